@@ -199,7 +199,7 @@ public class PatchingTest {
 
     private File resolveUndertowJar() throws ProvisioningException, ArtifactResolutionException {
         final MavenSessionManager msm = new MavenSessionManager();
-        final RepositorySystem system = msm.newRepositorySystem();
+        final RepositorySystem system = msm.getRepositorySystem();
         final DefaultRepositorySystemSession session = msm.newRepositorySystemSession(system);
         final ArtifactRequest req = new ArtifactRequest();
         req.setArtifact(new DefaultArtifact(PATCHED_GROUP_ID, PATCHED_ARTIFACT_ID, "jar", BASE_VERSION));
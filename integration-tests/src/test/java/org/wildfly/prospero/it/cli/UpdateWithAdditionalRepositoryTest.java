@@ -83,7 +83,7 @@ public class UpdateWithAdditionalRepositoryTest extends WfCoreTestBase {
     private URL mockInternalRepo() throws Exception {
         final File repo = temp.newFolder();
         final URL repoUrl = repo.toURI().toURL();
-        final RepositorySystem system = mavenSessionManager.newRepositorySystem();
+        final RepositorySystem system = mavenSessionManager.getRepositorySystem();
         final DefaultRepositorySystemSession session = mavenSessionManager.newRepositorySystemSession(system);
 
         final DeployRequest deployRequest = new DeployRequest();
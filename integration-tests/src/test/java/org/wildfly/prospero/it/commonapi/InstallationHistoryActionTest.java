@@ -22,9 +22,14 @@ import org.wildfly.prospero.api.ArtifactChange;
 import org.wildfly.prospero.actions.InstallationHistoryAction;
 import org.wildfly.prospero.api.SavedState;
 import org.wildfly.prospero.actions.UpdateAction;
+import org.wildfly.prospero.actions.VerifyAction;
 import org.wildfly.prospero.api.ProvisioningDefinition;
+import org.wildfly.prospero.installation.PinnedArtifacts;
 import org.wildfly.prospero.it.AcceptingConsole;
 import org.wildfly.prospero.model.ManifestYamlSupport;
+import org.wildfly.prospero.model.ProsperoConfig;
+import org.wildfly.prospero.model.RepositoryRef;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.junit.After;
@@ -36,11 +41,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -102,6 +109,38 @@ public class InstallationHistoryActionTest extends WfCoreTestBase {
         wildflyCliArtifact = readArtifactFromManifest("org.wildfly.core", "wildfly-cli");
         assertEquals(BASE_VERSION, wildflyCliArtifact.get().getVersion());
         assertTrue("Reverted jar should be present in module", wildflyCliModulePath.resolve(BASE_JAR).toFile().exists());
+        assertThat(new VerifyAction(outputPath).verify(false)).isEmpty();
+    }
+
+    @Test
+    public void rollbackWithoutRepositories() throws Exception {
+        provisionConfigFile = MetadataTestUtils.prepareProvisionConfig(CHANNEL_BASE_CORE_19);
+        final Path wildflyCliModulePath = outputPath.resolve(Paths.get("modules", "system", "layers", "base",
+                "org", "jboss", "as", "cli", "main"));
+
+        final ProvisioningDefinition provisioningDefinition = defaultWfCoreDefinition()
+                .setProvisionConfig(provisionConfigFile)
+                .build();
+        installation.provision(provisioningDefinition);
+
+        MetadataTestUtils.prepareProvisionConfig(outputPath.resolve(MetadataTestUtils.PROVISION_CONFIG_FILE_PATH), CHANNEL_COMPONENT_UPDATES, CHANNEL_BASE_CORE_19);
+        new UpdateAction(outputPath, mavenSessionManager, new AcceptingConsole()).doUpdateAll(false);
+
+        // neither the installation's repositories nor a populated local repository are available
+        final Path configFile = outputPath.resolve(MetadataTestUtils.PROVISION_CONFIG_FILE_PATH);
+        final ProsperoConfig config = ProsperoConfig.readConfig(configFile);
+        new ProsperoConfig(config.getChannels(), Collections.singletonList(
+                new RepositoryRef("unavailable", temp.getRoot().toPath().resolve("unavailable").toUri().toString())))
+                .writeConfig(configFile.toFile());
+        final MavenSessionManager offlineSessionManager = new MavenSessionManager(temp.newFolder("local-repo").toPath());
+
+        final InstallationHistoryAction historyAction = new InstallationHistoryAction(outputPath, new AcceptingConsole());
+        final SavedState savedState = historyAction.getRevisions().get(1);
+        assertTrue(new PinnedArtifacts(outputPath).isComplete(savedState.getName()));
+        historyAction.rollback(savedState, offlineSessionManager);
+
+        assertEquals(BASE_VERSION, readArtifactFromManifest("org.wildfly.core", "wildfly-cli").get().getVersion());
+        assertTrue("Reverted jar should be present in module", wildflyCliModulePath.resolve(BASE_JAR).toFile().exists());
     }
 
     @Test
@@ -142,7 +142,7 @@ public class UpdateTest extends WfCoreTestBase {
 
     private void deployChannelFile(File channelFile, String version) throws ProvisioningException, MalformedURLException, DeploymentException {
         final MavenSessionManager msm = new MavenSessionManager();
-        final RepositorySystem system = msm.newRepositorySystem();
+        final RepositorySystem system = msm.getRepositorySystem();
         final DefaultRepositorySystemSession session = msm.newRepositorySystemSession(system);
         final DeployRequest request = new DeployRequest();
         request.setRepository(new RepositoryRef("test-repo", mockRepo.toURI().toURL().toString()).toRemoteRepository());
@@ -71,7 +71,7 @@ public class WfCoreTestBase {
     @BeforeClass
     public static void deployUpgrade() throws InstallationException, ArtifactResolutionException {
         final MavenSessionManager msm = new MavenSessionManager(MavenSessionManager.LOCAL_MAVEN_REPO);
-        final RepositorySystem system = msm.newRepositorySystem();
+        final RepositorySystem system = msm.getRepositorySystem();
         final DefaultRepositorySystemSession session = msm.newRepositorySystemSession(system, false);
 
         resolvedUpgradeArtifact = installIfMissing(system, session, "org.wildfly.core", "wildfly-cli", null);
@@ -116,7 +116,7 @@ public class WfCoreTestBase {
 
     protected Artifact resolveArtifact(String groupId, String artifactId, String version) throws ArtifactResolutionException {
         final MavenSessionManager msm = new MavenSessionManager(MavenSessionManager.LOCAL_MAVEN_REPO);
-        final RepositorySystem system = msm.newRepositorySystem();
+        final RepositorySystem system = msm.getRepositorySystem();
         final DefaultRepositorySystemSession session = msm.newRepositorySystemSession(system, false);
 
         final DefaultArtifact existing = new DefaultArtifact(groupId, artifactId, null, "jar", version);
@@ -51,6 +51,8 @@ import org.wildfly.channel.version.VersionMatcher;
 public class BootstrapUpdater {
 
     static String LOCAL_MAVEN_REPO = System.getProperty("user.home") + "/.m2/repository";
+    // same property as used by the installer, the bootstrap doesn't read the installation configuration
+    private static final String MAX_PARALLEL_DOWNLOADS_PROPERTY = "prospero.downloads.parallel";
 
     public List<Path> update(String[] args) throws BootstrapException {
         final Path userHome = Paths.get(System.getProperty("user.home"));
@@ -128,6 +130,10 @@ public class BootstrapUpdater {
         }
         LocalRepository localRepo = new LocalRepository(location);
         session.setLocalRepositoryManager(system.newLocalRepositoryManager(session, localRepo));
+        final Integer maxParallelDownloads = Integer.getInteger(MAX_PARALLEL_DOWNLOADS_PROPERTY);
+        if (maxParallelDownloads != null) {
+            session.setConfigProperty("aether.connector.basic.threads", maxParallelDownloads);
+        }
         return session;
     }
 
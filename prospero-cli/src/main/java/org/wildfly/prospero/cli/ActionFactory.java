@@ -18,10 +18,16 @@
 package org.wildfly.prospero.cli;
 
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import org.eclipse.aether.repository.RemoteRepository;
 import org.jboss.galleon.ProvisioningException;
 import org.wildfly.prospero.actions.Console;
 import org.wildfly.prospero.actions.InstallationHistoryAction;
@@ -29,11 +35,37 @@ import org.wildfly.prospero.actions.MetadataAction;
 import org.wildfly.prospero.actions.PromoteArtifactBundleAction;
 import org.wildfly.prospero.actions.ProvisioningAction;
 import org.wildfly.prospero.actions.UpdateAction;
+import org.wildfly.prospero.actions.UpdateBundleAction;
+import org.wildfly.prospero.actions.VerifyAction;
 import org.wildfly.prospero.api.exceptions.OperationException;
+import org.wildfly.prospero.proxy.RepositoryProxy;
 import org.wildfly.prospero.wfchannel.MavenSessionManager;
 
 public class ActionFactory {
 
+    private Map<Optional<Path>, MavenSessionManager> sharedSessions;
+
+    /**
+     * Makes {@link #mavenSessionManager(Optional, boolean)} return one session manager per local repository,
+     * so that consecutive commands (e.g. in batch mode) reuse it instead of building a new one each time.
+     */
+    public void shareMavenSessions(boolean share) {
+        sharedSessions = share ? new HashMap<>() : null;
+    }
+
+    public MavenSessionManager mavenSessionManager(Optional<Path> localRepo, boolean offline) throws ProvisioningException {
+        if (sharedSessions == null) {
+            return new MavenSessionManager(localRepo, offline);
+        }
+        MavenSessionManager mavenSessionManager = sharedSessions.get(localRepo);
+        if (mavenSessionManager == null) {
+            mavenSessionManager = new MavenSessionManager(localRepo, offline);
+            sharedSessions.put(localRepo, mavenSessionManager);
+        }
+        mavenSessionManager.setOffline(offline);
+        return mavenSessionManager;
+    }
+
     public ProvisioningAction install(Path targetPath, MavenSessionManager mavenSessionManager, Console console) {
         return new ProvisioningAction(targetPath, mavenSessionManager, console);
     }
@@ -46,6 +78,15 @@ public class ActionFactory {
         return new UpdateAction(targetPath, mavenSessionManager, console, additionalRepositories);
     }
 
+    public UpdateAction updateFromBundle(Path targetPath, Path updateBundle, MavenSessionManager mavenSessionManager, Console console)
+            throws OperationException, ProvisioningException {
+        return new UpdateAction(targetPath, updateBundle, mavenSessionManager, console);
+    }
+
+    public UpdateBundleAction updateBundle(MavenSessionManager mavenSessionManager, List<RemoteRepository> repositories) {
+        return new UpdateBundleAction(mavenSessionManager, repositories);
+    }
+
     public InstallationHistoryAction history(Path targetPath, Console console) {
         return new InstallationHistoryAction(targetPath, console);
     }
@@ -54,7 +95,16 @@ public class ActionFactory {
         return new MetadataAction(targetPath);
     }
 
+    public VerifyAction verify(Path targetPath) {
+        return new VerifyAction(targetPath);
+    }
+
     public PromoteArtifactBundleAction promoter(Console console) {
         return new PromoteArtifactBundleAction(console);
     }
+
+    public RepositoryProxy repositoryProxy(MavenSessionManager mavenSessionManager, List<RemoteRepository> repositories,
+                                           InetSocketAddress address) throws IOException {
+        return new RepositoryProxy(mavenSessionManager, repositories, address);
+    }
 }
@@ -17,23 +17,59 @@
 
 package org.wildfly.prospero.cli;
 
+import java.io.PrintStream;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
 
+import org.eclipse.aether.artifact.Artifact;
 import org.jboss.galleon.layout.FeaturePackUpdatePlan;
 import org.jboss.galleon.progresstracking.ProgressCallback;
 import org.jboss.galleon.progresstracking.ProgressTracker;
 import org.jboss.galleon.universe.FeaturePackLocation;
 import org.wildfly.prospero.actions.Console;
 import org.wildfly.prospero.api.ArtifactChange;
+import org.wildfly.prospero.updates.UpdateListener;
+import org.wildfly.prospero.updates.UpdateSet;
 
 public class CliConsole implements Console {
 
     public static final int PULSE_INTERVAL = 500;
     public static final int PULSE_PCT = 5;
 
+    private StructuredOutput structuredOutput;
+
+    /**
+     * With a JSON format, results are written to the standard output as JSON and all other messages are printed
+     * to the error output, so that the standard output can be parsed.
+     */
+    public void setOutputFormat(OutputFormat format) {
+        if (format == null || format == OutputFormat.TEXT) {
+            structuredOutput = null;
+        } else if (structuredOutput == null || structuredOutput.getFormat() != format) {
+            structuredOutput = new StructuredOutput(format, getStdOut());
+        }
+    }
+
+    public Optional<StructuredOutput> getStructuredOutput() {
+        return Optional.ofNullable(structuredOutput);
+    }
+
+    private PrintStream messages() {
+        return structuredOutput == null ? getStdOut() : getErrOut();
+    }
+
+    @Override
+    public void println(String text) {
+        messages().println(text);
+    }
+
+    @Override
+    public void println(String text, String... args) {
+        messages().println(String.format(text, args));
+    }
+
     @Override
     public void installationComplete() {
 
@@ -62,16 +98,16 @@ public class CliConsole implements Console {
             public void starting(ProgressTracker tracker) {
                 switch (id) {
                     case "LAYOUT_BUILD":
-                        getStdOut().print(CliMessages.MESSAGES.resolvingFeaturePack());
+                        messages().print(CliMessages.MESSAGES.resolvingFeaturePack());
                         break;
                     case "PACKAGES":
-                        getStdOut().print(CliMessages.MESSAGES.installingPackages());
+                        messages().print(CliMessages.MESSAGES.installingPackages());
                         break;
                     case "CONFIGS":
-                        getStdOut().print(CliMessages.MESSAGES.generatingConfiguration());
+                        messages().print(CliMessages.MESSAGES.generatingConfiguration());
                         break;
                     case "JBMODULES":
-                        getStdOut().print(CliMessages.MESSAGES.installingJBossModules());
+                        messages().print(CliMessages.MESSAGES.installingJBossModules());
                         break;
                 }
             }
@@ -81,20 +117,20 @@ public class CliConsole implements Console {
                 final double progress = tracker.getProgress();
                 switch (id) {
                     case "LAYOUT_BUILD":
-                        getStdOut().print("\r");
-                        getStdOut().printf(CliMessages.MESSAGES.resolvingFeaturePack() + " %.0f%%", progress);
+                        messages().print("\r");
+                        messages().printf(CliMessages.MESSAGES.resolvingFeaturePack() + " %.0f%%", progress);
                         break;
                     case "PACKAGES":
-                        getStdOut().print("\r");
-                        getStdOut().printf(CliMessages.MESSAGES.installingPackages() + " %.0f%%", progress);
+                        messages().print("\r");
+                        messages().printf(CliMessages.MESSAGES.installingPackages() + " %.0f%%", progress);
                         break;
                     case "CONFIGS":
-                        getStdOut().print("\r");
-                        getStdOut().printf(CliMessages.MESSAGES.generatingConfiguration() + " %.0f%%", progress);
+                        messages().print("\r");
+                        messages().printf(CliMessages.MESSAGES.generatingConfiguration() + " %.0f%%", progress);
                         break;
                     case "JBMODULES":
-                        getStdOut().print("\r");
-                        getStdOut().printf(CliMessages.MESSAGES.installingJBossModules() + " %.0f%%", progress);
+                        messages().print("\r");
+                        messages().printf(CliMessages.MESSAGES.installingJBossModules() + " %.0f%%", progress);
                         break;
                 }
             }
@@ -103,28 +139,76 @@ public class CliConsole implements Console {
             public void complete(ProgressTracker tracker) {
                 switch (id) {
                     case "LAYOUT_BUILD":
-                        getStdOut().print("\r");
-                        getStdOut().println(CliMessages.MESSAGES.featurePacksResolved());
+                        messages().print("\r");
+                        messages().println(CliMessages.MESSAGES.featurePacksResolved());
                         break;
                     case "PACKAGES":
-                        getStdOut().print("\r");
-                        getStdOut().println(CliMessages.MESSAGES.packagesInstalled());
+                        messages().print("\r");
+                        messages().println(CliMessages.MESSAGES.packagesInstalled());
                         break;
                     case "CONFIGS":
-                        getStdOut().print("\r");
-                        getStdOut().println(CliMessages.MESSAGES.configurationsGenerated());
+                        messages().print("\r");
+                        messages().println(CliMessages.MESSAGES.configurationsGenerated());
                         break;
                     case "JBMODULES":
-                        getStdOut().print("\r");
-                        getStdOut().println(CliMessages.MESSAGES.jbossModulesInstalled());
+                        messages().print("\r");
+                        messages().println(CliMessages.MESSAGES.jbossModulesInstalled());
                         break;
                 }
             }
         };
     }
 
+    @Override
+    public UpdateListener getUpdateListener() {
+        if (structuredOutput != null) {
+            final StructuredOutput output = structuredOutput;
+            return new UpdateListener() {
+                private int checked;
+
+                @Override
+                public void artifactChecked(Artifact artifact, Optional<ArtifactChange> change, int checked, int total) {
+                    this.checked = checked;
+                    change.ifPresent(output::artifactChange);
+                }
+
+                @Override
+                public void searchCompleted(UpdateSet updates) {
+                    updates.getFpUpdates().getUpdates().forEach(output::featurePackUpdate);
+                    output.updateSummary(checked, updates.getArtifactUpdates().size() + updates.getFpUpdates().getUpdates().size());
+                }
+            };
+        }
+        return new UpdateListener() {
+            private int found;
+
+            @Override
+            public void searchStarted(int total) {
+                getStdOut().print(CliMessages.MESSAGES.checkingUpdates(0, total, 0));
+            }
+
+            @Override
+            public void artifactChecked(Artifact artifact, Optional<ArtifactChange> change, int checked, int total) {
+                if (change.isPresent()) {
+                    found++;
+                }
+                getStdOut().print("\r");
+                getStdOut().print(CliMessages.MESSAGES.checkingUpdates(checked, total, found));
+            }
+
+            @Override
+            public void searchCompleted(UpdateSet updates) {
+                getStdOut().println();
+            }
+        };
+    }
+
     @Override
     public void updatesFound(Collection<FeaturePackUpdatePlan> fpUpdates, List<ArtifactChange> artifactUpdates) {
+        if (structuredOutput != null) {
+            // already streamed by the update listener
+            return;
+        }
         if (fpUpdates.isEmpty() && artifactUpdates.isEmpty()) {
             getStdOut().println(CliMessages.MESSAGES.noUpdatesFound());
         } else {
@@ -158,7 +242,7 @@ public class CliConsole implements Console {
 
     @Override
     public boolean confirm(String prompt, String accepted, String cancelled) {
-        getStdOut().print(prompt);
+        messages().print(prompt);
         Scanner sc = new Scanner(getInput());
         while (true) {
             String resp = sc.nextLine();
@@ -169,7 +253,7 @@ public class CliConsole implements Console {
                 println(accepted);
                 return true;
             } else {
-                getStdOut().print(CliMessages.MESSAGES.chooseYN());
+                messages().print(CliMessages.MESSAGES.chooseYN());
             }
         }
     }
@@ -17,16 +17,22 @@
 
 package org.wildfly.prospero.cli;
 
+import java.util.Optional;
+
 import org.jboss.logging.Logger;
 import org.wildfly.prospero.actions.Console;
+import org.wildfly.prospero.cli.commands.BatchCommand;
 import org.wildfly.prospero.cli.commands.ChannelCommand;
 import org.wildfly.prospero.cli.commands.CliConstants;
 import org.wildfly.prospero.cli.commands.HistoryCommand;
 import org.wildfly.prospero.cli.commands.InstallCommand;
 import org.wildfly.prospero.cli.commands.MainCommand;
+import org.wildfly.prospero.cli.commands.ProxyCommand;
 import org.wildfly.prospero.cli.commands.RepositoryCommand;
 import org.wildfly.prospero.cli.commands.RevertCommand;
 import org.wildfly.prospero.cli.commands.UpdateCommand;
+import org.wildfly.prospero.cli.commands.UpdateBundleCommand;
+import org.wildfly.prospero.cli.commands.VerifyCommand;
 import org.wildfly.prospero.cli.commands.channel.ChannelAddCommand;
 import org.wildfly.prospero.cli.commands.channel.ChannelInitializeCommand;
 import org.wildfly.prospero.cli.commands.channel.ChannelPromoteCommand;
@@ -73,6 +79,10 @@ public class CliMain {
         commandLine.addSubcommand(new RevertCommand(console, actionFactory));
         commandLine.addSubcommand(new RepositoryCommand(console, actionFactory));
         commandLine.addSubcommand(new ChannelCommand(console, actionFactory));
+        commandLine.addSubcommand(new VerifyCommand(console, actionFactory));
+        commandLine.addSubcommand(new UpdateBundleCommand(console, actionFactory));
+        commandLine.addSubcommand(new BatchCommand(console, actionFactory));
+        commandLine.addSubcommand(new ProxyCommand(console, actionFactory));
 
         CommandLine repoCmd = commandLine.getSubcommands().get(CliConstants.Commands.REPOSITORY);
         repoCmd.addSubcommand(new RepositoryCommand.RepositoryAddCommand(console, actionFactory));
@@ -87,9 +97,37 @@ public class CliMain {
         channelCmd.addSubcommand(new ChannelPromoteCommand(console, actionFactory));
 
         commandLine.setUsageHelpAutoWidth(true);
+        commandLine.setCaseInsensitiveEnumValuesAllowed(true);
         commandLine.setExecutionExceptionHandler(new ExecutionExceptionHandler(console));
+        if (console instanceof CliConsole) {
+            commandLine.setExecutionStrategy(new StructuredOutputStrategy((CliConsole) console));
+        }
 
         return commandLine;
     }
 
+    /**
+     * Runs the command and closes its structured output. The output format is known only after the arguments
+     * have been parsed, so this can't be done before the execution.
+     */
+    private static class StructuredOutputStrategy implements CommandLine.IExecutionStrategy {
+
+        private final CliConsole console;
+        private final CommandLine.IExecutionStrategy delegate = new CommandLine.RunLast();
+
+        StructuredOutputStrategy(CliConsole console) {
+            this.console = console;
+        }
+
+        @Override
+        public int execute(CommandLine.ParseResult parseResult) {
+            final Optional<StructuredOutput> output = console.getStructuredOutput();
+            output.ifPresent(StructuredOutput::begin);
+            try {
+                return delegate.execute(parseResult);
+            } finally {
+                output.ifPresent(StructuredOutput::finish);
+            }
+        }
+    }
 }
@@ -22,6 +22,7 @@ import org.jboss.logging.annotations.Message;
 import org.jboss.logging.annotations.MessageBundle;
 import org.wildfly.prospero.cli.commands.CliConstants;
 
+import java.net.URI;
 import java.nio.file.Path;
 
 @MessageBundle(projectCode = "PRSP-CLI")
@@ -63,6 +64,9 @@ public interface CliMessages {
     @Message("Updates found: ")
     String updatesFound();
 
+    @Message("Checking for updates: %d/%d artifacts checked, %d update(s) found.")
+    String checkingUpdates(int checked, int total, int found);
+
     @Message("Continue with update [y/N]: ")
     String continueWithUpdate();
 
@@ -132,6 +136,12 @@ public interface CliMessages {
     @Message("Add required channels using [%s] argument.")
     String addChannels(String channel);
 
+    @Message("Installation history compacted.")
+    String historyCompacted();
+
+    @Message("Update bundle written to `%s`.")
+    String updateBundleCreated(Path bundle);
+
     @Message("Operation completed in %.2f seconds.")
     String operationCompleted(float time);
 
@@ -173,4 +183,28 @@ public interface CliMessages {
 
     @Message("Registering custom repository `%s`")
     String registeringCustomRepository(String name);
+
+    @Message("[%d] %s")
+    String batchStep(int step, String command);
+
+    @Message("[%d] Completed in %d ms.")
+    String batchStepCompleted(int step, long millis);
+
+    @Message("[%d] Failed with exit code %d, skipping remaining %d step(s).")
+    String batchStepFailed(int step, int exitCode, int remaining);
+
+    @Message("Batch of %d step(s) completed in %d ms.")
+    String batchCompleted(int steps, long millis);
+
+    @Message("Repository proxy listening on %s")
+    String proxyStarted(URI uri);
+
+    @Message("Repository proxy stopped: %s")
+    String proxyStopped(String statistics);
+
+    @Message("Unterminated quote in batch line %d: %s")
+    IllegalArgumentException batchUnterminatedQuote(int line, String command);
+
+    @Message("Batch line %d: the `%s` command cannot be nested.")
+    IllegalArgumentException batchNestedBatch(int line, String command);
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import org.jboss.galleon.layout.FeaturePackUpdatePlan;
+import org.wildfly.prospero.api.ArtifactChange;
+import org.wildfly.prospero.api.ArtifactDrift;
+import org.wildfly.prospero.api.SavedState;
+import org.wildfly.prospero.model.ChannelRef;
+import org.wildfly.prospero.model.RepositoryRef;
+
+/**
+ * Writes command results as JSON objects with a {@code type} field, using a streaming generator so that large
+ * results are never held in memory.
+ *
+ * In {@link OutputFormat#JSON} mode the objects are elements of a single array that is closed by {@link #finish()}.
+ * In {@link OutputFormat#JSONL} mode each object is written on its own line and flushed immediately.
+ */
+public class StructuredOutput {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final OutputFormat format;
+    private final PrintStream out;
+    private JsonGenerator generator;
+    private int depth;
+
+    StructuredOutput(OutputFormat format, PrintStream out) {
+        if (format == OutputFormat.TEXT) {
+            throw new IllegalArgumentException("Structured output requires JSON format");
+        }
+        this.format = format;
+        this.out = out;
+    }
+
+    public OutputFormat getFormat() {
+        return format;
+    }
+
+    public void artifactChange(ArtifactChange change) {
+        write(g -> {
+            g.writeStringField("type", "artifact");
+            g.writeStringField("name", change.getArtifactName());
+            g.writeStringField("oldVersion", change.getOldVersion().orElse(null));
+            g.writeStringField("newVersion", change.getNewVersion().orElse(null));
+            g.writeBooleanField("downgrade", change.isDowngrade());
+        });
+    }
+
+    public void artifactDrift(ArtifactDrift drift) {
+        write(g -> {
+            g.writeStringField("type", "artifact-drift");
+            g.writeStringField("drift", drift.getType().name());
+            g.writeStringField("gav", drift.getGav());
+            g.writeStringField("path", drift.getPath());
+            g.writeStringField("expected", drift.getExpected());
+            g.writeStringField("actual", drift.getActual());
+        });
+    }
+
+    public void featurePackUpdate(FeaturePackUpdatePlan update) {
+        write(g -> {
+            g.writeStringField("type", "feature-pack");
+            g.writeStringField("name", update.getNewLocation().getProducerName());
+            g.writeStringField("oldVersion", update.getInstalledLocation().getBuild());
+            g.writeStringField("newVersion", update.getNewLocation().getBuild());
+        });
+    }
+
+    public void revision(SavedState state) {
+        write(g -> {
+            g.writeStringField("type", "revision");
+            g.writeStringField("hash", state.getName());
+            g.writeStringField("timestamp", state.getTimestamp() == null ? null : state.getTimestamp().toString());
+            g.writeStringField("revisionType", state.getType() == null ? null : state.getType().name());
+        });
+    }
+
+    public void channel(ChannelRef channel) {
+        write(g -> {
+            g.writeStringField("type", "channel");
+            g.writeStringField("gav", channel.getGav());
+            g.writeStringField("url", channel.getUrl());
+        });
+    }
+
+    public void repository(RepositoryRef repository) {
+        write(g -> {
+            g.writeStringField("type", "repository");
+            g.writeStringField("id", repository.getId());
+            g.writeStringField("url", repository.getUrl());
+        });
+    }
+
+    public void updateSummary(int checked, int updates) {
+        write(g -> {
+            g.writeStringField("type", "update-summary");
+            g.writeNumberField("checked", checked);
+            g.writeNumberField("updates", updates);
+        });
+    }
+
+    public void timing(String operation, long millis) {
+        write(g -> {
+            g.writeStringField("type", "timing");
+            g.writeStringField("operation", operation);
+            g.writeNumberField("millis", millis);
+        });
+    }
+
+    /**
+     * Marks the start of a command. Commands can be nested (e.g. in a batch), the output is finished only with the
+     * outermost command.
+     */
+    void begin() {
+        depth++;
+    }
+
+    /**
+     * Closes the JSON array if this is the end of the outermost command.
+     */
+    void finish() {
+        if (depth > 0 && --depth > 0) {
+            return;
+        }
+        try {
+            if (format == OutputFormat.JSON) {
+                generator().writeEndArray();
+                generator.flush();
+                out.println();
+            }
+            if (generator != null) {
+                generator.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            generator = null;
+        }
+    }
+
+    private void write(FieldWriter fields) {
+        try {
+            final JsonGenerator g = generator();
+            g.writeStartObject();
+            fields.write(g);
+            g.writeEndObject();
+            g.flush();
+            if (format == OutputFormat.JSONL) {
+                out.println();
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonGenerator generator() throws IOException {
+        if (generator == null) {
+            generator = JSON_FACTORY.createGenerator(out);
+            if (format == OutputFormat.JSONL) {
+                // no separator between root values, each value is followed by a new line instead
+                generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            } else {
+                generator.writeStartArray();
+            }
+        }
+        return generator;
+    }
+
+    private interface FieldWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+}
@@ -26,7 +26,9 @@ import java.util.concurrent.Callable;
 import org.wildfly.prospero.actions.Console;
 import org.wildfly.prospero.api.InstallationMetadata;
 import org.wildfly.prospero.cli.ActionFactory;
+import org.wildfly.prospero.cli.CliConsole;
 import org.wildfly.prospero.cli.CliMessages;
+import org.wildfly.prospero.cli.StructuredOutput;
 import picocli.CommandLine;
 
 public abstract class AbstractCommand implements Callable<Integer> {
@@ -62,6 +64,16 @@ public abstract class AbstractCommand implements Callable<Integer> {
         }
     }
 
+    /**
+     * @return writer of the command results if a JSON output format was requested
+     */
+    protected Optional<StructuredOutput> structuredOutput() {
+        if (console instanceof CliConsole) {
+            return ((CliConsole) console).getStructuredOutput();
+        }
+        return Optional.empty();
+    }
+
     static Path currentDir() {
         return Paths.get(".").toAbsolutePath();
     }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.cli.commands;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.wildfly.prospero.actions.Console;
+import org.wildfly.prospero.cli.ActionFactory;
+import org.wildfly.prospero.cli.CliMain;
+import org.wildfly.prospero.cli.CliMessages;
+import org.wildfly.prospero.cli.ReturnCodes;
+import picocli.CommandLine;
+
+/**
+ * Runs a list of commands through a single command line instance. The steps share the action factory, so the Maven
+ * session (and its repository system) is created once and reused by all of them.
+ */
+@CommandLine.Command(
+        name = CliConstants.Commands.BATCH,
+        sortOptions = false
+)
+public class BatchCommand extends AbstractCommand {
+
+    private static final String STDIN = "-";
+    private static final String COMMENT = "#";
+
+    @CommandLine.Parameters(index = "0", paramLabel = CliConstants.PATH, descriptionKey = "batch-file", arity = "0..1")
+    Optional<String> batchFile;
+
+    public BatchCommand(Console console, ActionFactory actionFactory) {
+        super(console, actionFactory);
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        final List<String[]> steps = new ArrayList<>();
+        final List<String> lines = readLines();
+        for (int i = 0; i < lines.size(); i++) {
+            final String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith(COMMENT)) {
+                continue;
+            }
+            final String[] args = tokenize(line, i + 1);
+            if (args.length > 0 && args[0].equals(CliConstants.Commands.BATCH)) {
+                throw CliMessages.MESSAGES.batchNestedBatch(i + 1, CliConstants.Commands.BATCH);
+            }
+            steps.add(args);
+        }
+
+        final long startTime = System.currentTimeMillis();
+        actionFactory.shareMavenSessions(true);
+        try {
+            final CommandLine commandLine = CliMain.createCommandLine(console, actionFactory);
+            for (int i = 0; i < steps.size(); i++) {
+                final String[] args = steps.get(i);
+                console.println(CliMessages.MESSAGES.batchStep(i + 1, String.join(" ", args)));
+
+                final long stepStart = System.currentTimeMillis();
+                final int exitCode = commandLine.execute(args);
+                if (exitCode != ReturnCodes.SUCCESS) {
+                    console.error(CliMessages.MESSAGES.batchStepFailed(i + 1, exitCode, steps.size() - i - 1));
+                    return exitCode;
+                }
+                final long stepMillis = System.currentTimeMillis() - stepStart;
+                structuredOutput().ifPresent(output -> output.timing(String.join(" ", args), stepMillis));
+                console.println(CliMessages.MESSAGES.batchStepCompleted(i + 1, stepMillis));
+            }
+        } finally {
+            actionFactory.shareMavenSessions(false);
+        }
+        final long totalMillis = System.currentTimeMillis() - startTime;
+        structuredOutput().ifPresent(output -> output.timing(CliConstants.Commands.BATCH, totalMillis));
+        console.println(CliMessages.MESSAGES.batchCompleted(steps.size(), totalMillis));
+        return ReturnCodes.SUCCESS;
+    }
+
+    private List<String> readLines() throws IOException {
+        if (batchFile.isEmpty() || batchFile.get().equals(STDIN)) {
+            // read the whole script up front, steps might prompt for confirmation on the same stream
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            final List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+            return lines;
+        }
+        return Files.readAllLines(Path.of(batchFile.get()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Splits the line on whitespace. Single or double quotes group words containing whitespace.
+     */
+    static String[] tokenize(String line, int lineNumber) {
+        final List<String> args = new ArrayList<>();
+        final StringBuilder current = new StringBuilder();
+        boolean inArg = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                inArg = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inArg) {
+                    args.add(current.toString());
+                    current.setLength(0);
+                    inArg = false;
+                }
+            } else {
+                current.append(c);
+                inArg = true;
+            }
+        }
+        if (quote != 0) {
+            throw CliMessages.MESSAGES.batchUnterminatedQuote(lineNumber, line);
+        }
+        if (inArg) {
+            args.add(current.toString());
+        }
+        return args.toArray(new String[0]);
+    }
+}
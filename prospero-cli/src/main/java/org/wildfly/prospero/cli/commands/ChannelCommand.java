@@ -25,6 +25,7 @@ import org.wildfly.prospero.actions.Console;
 import org.wildfly.prospero.actions.MetadataAction;
 import org.wildfly.prospero.cli.ActionFactory;
 import org.wildfly.prospero.cli.ReturnCodes;
+import org.wildfly.prospero.cli.StructuredOutput;
 import org.wildfly.prospero.model.ChannelRef;
 import picocli.CommandLine;
 
@@ -61,8 +62,13 @@ public class ChannelCommand extends AbstractCommand {
             MetadataAction metadataAction = actionFactory.metadataActions(installationDirectory);
             List<ChannelRef> channels = metadataAction.getChannels();
 
+            final Optional<StructuredOutput> output = structuredOutput();
             for (ChannelRef channel: channels) {
-                console.println(channel.getGavOrUrlString());
+                if (output.isPresent()) {
+                    output.get().channel(channel);
+                } else {
+                    console.println(channel.getGavOrUrlString());
+                }
             }
 
             return ReturnCodes.SUCCESS;
@@ -41,6 +41,10 @@ public final class CliConstants {
         public static final String REPO = "repo";
         public static final String REPOSITORY = "repository";
         public static final String CHANNEL = "channel";
+        public static final String VERIFY = "verify";
+        public static final String UPDATE_BUNDLE = "update-bundle";
+        public static final String BATCH = "batch";
+        public static final String PROXY = "proxy";
 
         public static final String LIST = "list";
         public static final String ADD = "add";
@@ -55,26 +59,40 @@ public final class CliConstants {
 
     public static final String CHANNEL_REFERENCE = "<channel-reference>";
     public static final String FEATURE_PACK_REFERENCE = "<feature-pack-reference>";
+    public static final String FORMAT = "<format>";
+    public static final String HOST_NAME = "<host>";
+    public static final String PORT_NUMBER = "<port>";
     public static final String PATH = "<path>";
     public static final String REPO_ID = "<repo-id>";
     public static final String REPO_URL = "<repo-url>";
+    public static final String SECONDS = "<seconds>";
 
     // Option names:
 
+    public static final String BUNDLE = "--bundle";
     public static final String CHANNEL = "--channel";
+    public static final String COMPACT = "--compact";
     public static final String REMOTE_REPOSITORIES = "--remote-repositories";
     public static final String DEFINITION = "--definition";
     public static final String DIR = "--dir";
     public static final String DRY_RUN = "--dry-run";
+    public static final String FAST = "--fast";
     public static final String FPL = "--fpl";
     public static final String H = "-h";
     public static final String HELP = "--help";
+    public static final String HOST = "--host";
     public static final String LOCAL_REPO = "--local-repo";
+    public static final String LOCK_TIMEOUT = "--lock-timeout";
+    public static final String METADATA = "--metadata";
     public static final String NO_LOCAL_MAVEN_CACHE = "--no-resolve-local-cache";
     public static final String OFFLINE = "--offline";
+    public static final String OUTPUT = "--output";
+    public static final String PASSWORD = "--password";
+    public static final String PORT = "--port";
     public static final String PROVISION_CONFIG = "--provision-config";
     public static final String REVISION = "--revision";
     public static final String SELF = "--self";
+    public static final String USERNAME = "--username";
     public static final String V = "-v";
     public static final String VERSION = "--version";
     public static final String Y = "-y";
@@ -28,6 +28,7 @@ import org.wildfly.prospero.api.SavedState;
 import org.wildfly.prospero.cli.ActionFactory;
 import org.wildfly.prospero.cli.CliMessages;
 import org.wildfly.prospero.cli.ReturnCodes;
+import org.wildfly.prospero.cli.StructuredOutput;
 import picocli.CommandLine;
 
 @CommandLine.Command(
@@ -42,6 +43,9 @@ public class HistoryCommand extends AbstractCommand {
     @CommandLine.Option(names = CliConstants.REVISION)
     Optional<String> revision;
 
+    @CommandLine.Option(names = CliConstants.COMPACT)
+    boolean compact;
+
     public HistoryCommand(Console console, ActionFactory actionFactory) {
         super(console, actionFactory);
     }
@@ -51,14 +55,25 @@ public class HistoryCommand extends AbstractCommand {
         Path installationDirectory = determineInstallationDirectory(directory);
         InstallationHistoryAction historyAction = actionFactory.history(installationDirectory, console);
 
-        if (revision.isEmpty()) {
+        if (compact) {
+            historyAction.compact();
+            console.println(CliMessages.MESSAGES.historyCompacted());
+        } else if (revision.isEmpty()) {
             List<SavedState> revisions = historyAction.getRevisions();
+            final Optional<StructuredOutput> output = structuredOutput();
             for (SavedState savedState : revisions) {
-                console.println(savedState.shortDescription());
+                if (output.isPresent()) {
+                    output.get().revision(savedState);
+                } else {
+                    console.println(savedState.shortDescription());
+                }
             }
         } else {
             List<ArtifactChange> changes = historyAction.compare(new SavedState(revision.get()));
-            if (changes.isEmpty()) {
+            final Optional<StructuredOutput> output = structuredOutput();
+            if (output.isPresent()) {
+                changes.forEach(output.get()::artifactChange);
+            } else if (changes.isEmpty()) {
                 console.println(CliMessages.MESSAGES.noChangesFound());
             } else {
                 changes.forEach(c-> console.println(c.toString()));
@@ -131,7 +131,7 @@ public class InstallCommand extends AbstractCommand {
 
         final Optional<Path> localRepo = LocalRepoOptions.getLocalRepo(localRepoOptions);
 
-        final MavenSessionManager mavenSessionManager = new MavenSessionManager(localRepo, offline);
+        final MavenSessionManager mavenSessionManager = actionFactory.mavenSessionManager(localRepo, offline);
 
         final ProvisioningDefinition provisioningDefinition = ProvisioningDefinition.builder()
                 .setFpl(featurePackOrDefinition.fpl.orElse(null))
@@ -145,8 +145,9 @@ public class InstallCommand extends AbstractCommand {
                 console);
         provisioningAction.provision(provisioningDefinition);
 
-        final float totalTime = (System.currentTimeMillis() - startTime) / 1000f;
-        console.println(CliMessages.MESSAGES.operationCompleted(totalTime));
+        final long totalMillis = System.currentTimeMillis() - startTime;
+        structuredOutput().ifPresent(output -> output.timing(CliConstants.Commands.INSTALL, totalMillis));
+        console.println(CliMessages.MESSAGES.operationCompleted(totalMillis / 1000f));
 
         return ReturnCodes.SUCCESS;
     }
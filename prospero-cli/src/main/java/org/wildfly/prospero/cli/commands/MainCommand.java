@@ -25,7 +25,10 @@ import java.util.concurrent.Callable;
 import java.util.jar.Manifest;
 
 import org.wildfly.prospero.actions.Console;
+import org.wildfly.prospero.cli.CliConsole;
+import org.wildfly.prospero.cli.OutputFormat;
 import org.wildfly.prospero.cli.ReturnCodes;
+import org.wildfly.prospero.installation.InstallationLock;
 import picocli.CommandLine;
 
 @CommandLine.Command(name = CliConstants.Commands.MAIN_COMMAND, resourceBundle = "UsageMessages",
@@ -45,6 +48,21 @@ public class MainCommand implements Callable<Integer> {
     @CommandLine.Option(names = {CliConstants.V, CliConstants.VERSION}, versionHelp = true)
     boolean version;
 
+    @CommandLine.Option(names = CliConstants.OUTPUT, paramLabel = CliConstants.FORMAT, scope = CommandLine.ScopeType.INHERIT)
+    void setOutputFormat(OutputFormat format) {
+        if (console instanceof CliConsole) {
+            ((CliConsole) console).setOutputFormat(format);
+        }
+    }
+
+    @CommandLine.Option(names = CliConstants.LOCK_TIMEOUT, paramLabel = CliConstants.SECONDS, scope = CommandLine.ScopeType.INHERIT)
+    void setLockTimeout(Long seconds) {
+        // not given on the command line, keep the current timeout
+        if (seconds != null) {
+            InstallationLock.setLockTimeout(seconds);
+        }
+    }
+
     public MainCommand(Console console) {
         this.console = console;
     }
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.cli.commands;
+
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.eclipse.aether.repository.RemoteRepository;
+import org.wildfly.prospero.actions.Console;
+import org.wildfly.prospero.cli.ActionFactory;
+import org.wildfly.prospero.cli.CliMessages;
+import org.wildfly.prospero.cli.ReturnCodes;
+import org.wildfly.prospero.cli.commands.options.LocalRepoOptions;
+import org.wildfly.prospero.model.RepositoryRef;
+import org.wildfly.prospero.proxy.RepositoryProxy;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = CliConstants.Commands.PROXY,
+        sortOptions = false
+)
+public class ProxyCommand extends AbstractCommand {
+
+    @CommandLine.Option(names = CliConstants.DIR, descriptionKey = "proxy.dir")
+    Optional<Path> directory;
+
+    @CommandLine.Option(
+            names = CliConstants.REMOTE_REPOSITORIES,
+            paramLabel = CliConstants.REPO_URL,
+            descriptionKey = "proxy.remote-repositories",
+            split = ","
+    )
+    List<URL> remoteRepositories = new ArrayList<>();
+
+    @CommandLine.Option(names = CliConstants.HOST, paramLabel = CliConstants.HOST_NAME, defaultValue = "localhost",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS)
+    String host;
+
+    @CommandLine.Option(names = CliConstants.PORT, paramLabel = CliConstants.PORT_NUMBER, defaultValue = "8081",
+            showDefaultValue = CommandLine.Help.Visibility.ALWAYS)
+    int port;
+
+    @CommandLine.ArgGroup(exclusive = true, headingKey = "localRepoOptions.heading")
+    LocalRepoOptions localRepoOptions;
+
+    public ProxyCommand(Console console, ActionFactory actionFactory) {
+        super(console, actionFactory);
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        final List<RemoteRepository> repositories;
+        if (remoteRepositories.isEmpty()) {
+            final Path installationDirectory = determineInstallationDirectory(directory);
+            repositories = actionFactory.metadataActions(installationDirectory).getRepositories().stream()
+                    .map(RepositoryRef::toRemoteRepository)
+                    .collect(Collectors.toList());
+        } else {
+            repositories = new ArrayList<>();
+            for (int i = 0; i < remoteRepositories.size(); i++) {
+                repositories.add(new RepositoryRef("repo-" + i, remoteRepositories.get(i).toString()).toRemoteRepository());
+            }
+        }
+
+        // the proxy cache must survive restarts, so the local repository is used even with --no-resolve-local-cache
+        final MavenSessionManager mavenSessionManager = actionFactory.mavenSessionManager(
+                Optional.of(LocalRepoOptions.getLocalRepo(localRepoOptions).orElse(MavenSessionManager.LOCAL_MAVEN_REPO)), false);
+
+        try (RepositoryProxy proxy = actionFactory.repositoryProxy(mavenSessionManager, repositories,
+                new InetSocketAddress(host, port))) {
+            final Thread shutdownHook = new Thread(proxy::close);
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+            try {
+                proxy.start();
+                console.println(CliMessages.MESSAGES.proxyStarted(proxy.getUri()));
+                proxy.awaitTermination();
+            } finally {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException e) {
+                    // the JVM is shutting down, the hook has stopped the proxy
+                }
+            }
+            console.println(CliMessages.MESSAGES.proxyStopped(proxy.getStatistics().toString()));
+        }
+        return ReturnCodes.SUCCESS;
+    }
+}
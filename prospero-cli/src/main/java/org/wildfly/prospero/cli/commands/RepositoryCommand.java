@@ -28,6 +28,7 @@ import org.wildfly.prospero.actions.MetadataAction;
 import org.wildfly.prospero.cli.ActionFactory;
 import org.wildfly.prospero.cli.CliMessages;
 import org.wildfly.prospero.cli.ReturnCodes;
+import org.wildfly.prospero.cli.StructuredOutput;
 import org.wildfly.prospero.model.RepositoryRef;
 import picocli.CommandLine;
 
@@ -63,6 +64,12 @@ public class RepositoryCommand extends AbstractCommand {
             MetadataAction metadataAction = actionFactory.metadataActions(installationDirectory);
             List<RepositoryRef> repositories = metadataAction.getRepositories();
 
+            final Optional<StructuredOutput> output = structuredOutput();
+            if (output.isPresent()) {
+                repositories.forEach(output.get()::repository);
+                return ReturnCodes.SUCCESS;
+            }
+
             // calculate maximum length of repository id strings, to make the list nicely alligned
             int maxRepoIdLength = repositories.stream()
                     .map(r -> r.getId().length())
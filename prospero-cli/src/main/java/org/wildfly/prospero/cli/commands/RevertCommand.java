@@ -54,7 +54,7 @@ public class RevertCommand extends AbstractCommand {
     @Override
     public Integer call() throws Exception {
         final Path installationDirectory = determineInstallationDirectory(directory);
-        final MavenSessionManager mavenSessionManager = new MavenSessionManager(LocalRepoOptions.getLocalRepo(localRepoOptions), offline);
+        final MavenSessionManager mavenSessionManager = actionFactory.mavenSessionManager(LocalRepoOptions.getLocalRepo(localRepoOptions), offline);
 
         InstallationHistoryAction historyAction = actionFactory.history(installationDirectory, console);
         historyAction.rollback(new SavedState(revision), mavenSessionManager);
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.cli.commands;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.aether.repository.RemoteRepository;
+import org.wildfly.prospero.actions.Console;
+import org.wildfly.prospero.api.ArtifactChange;
+import org.wildfly.prospero.api.InstallationMetadata;
+import org.wildfly.prospero.cli.ActionFactory;
+import org.wildfly.prospero.cli.CliMessages;
+import org.wildfly.prospero.cli.ReturnCodes;
+import org.wildfly.prospero.cli.StructuredOutput;
+import org.wildfly.prospero.cli.commands.options.LocalRepoOptions;
+import org.wildfly.prospero.model.ChannelRef;
+import org.wildfly.prospero.model.RepositoryRef;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = CliConstants.Commands.UPDATE_BUNDLE,
+        sortOptions = false
+)
+public class UpdateBundleCommand extends AbstractCommand {
+
+    @CommandLine.Option(names = CliConstants.METADATA, paramLabel = CliConstants.PATH, required = true)
+    Path metadataBundle;
+
+    @CommandLine.Option(
+            names = CliConstants.CHANNEL,
+            paramLabel = CliConstants.CHANNEL_REFERENCE,
+            descriptionKey = "update-bundle.channel",
+            required = true
+    )
+    String channel;
+
+    @CommandLine.Option(
+            names = CliConstants.REMOTE_REPOSITORIES,
+            paramLabel = CliConstants.REPO_URL,
+            descriptionKey = "update-bundle.remote-repositories",
+            split = ",",
+            required = true
+    )
+    List<URL> remoteRepositories = new ArrayList<>();
+
+    @CommandLine.Option(
+            names = CliConstants.CUSTOMIZATION_ARCHIVE,
+            paramLabel = CliConstants.PATH,
+            descriptionKey = "update-bundle.archive",
+            required = true
+    )
+    Path archive;
+
+    @CommandLine.ArgGroup(exclusive = true, headingKey = "localRepoOptions.heading")
+    LocalRepoOptions localRepoOptions;
+
+    public UpdateBundleCommand(Console console, ActionFactory actionFactory) {
+        super(console, actionFactory);
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        final MavenSessionManager mavenSessionManager = actionFactory.mavenSessionManager(LocalRepoOptions.getLocalRepo(localRepoOptions), false);
+
+        final List<RemoteRepository> repositories = new ArrayList<>();
+        for (int i = 0; i < remoteRepositories.size(); i++) {
+            repositories.add(new RepositoryRef("repo-" + i, remoteRepositories.get(i).toString()).toRemoteRepository());
+        }
+
+        final List<ArtifactChange> changes;
+        try (InstallationMetadata installation = InstallationMetadata.importMetadata(metadataBundle)) {
+            changes = actionFactory.updateBundle(mavenSessionManager, repositories)
+                    .createBundle(installation, ChannelRef.fromString(channel), archive.toAbsolutePath());
+        }
+
+        final Optional<StructuredOutput> output = structuredOutput();
+        if (output.isPresent()) {
+            changes.forEach(output.get()::artifactChange);
+        } else {
+            console.updatesFound(Collections.emptyList(), changes);
+        }
+        if (!changes.isEmpty()) {
+            console.println(CliMessages.MESSAGES.updateBundleCreated(archive.toAbsolutePath()));
+        }
+        return ReturnCodes.SUCCESS;
+    }
+}
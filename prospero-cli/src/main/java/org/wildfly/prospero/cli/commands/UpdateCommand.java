@@ -64,6 +64,9 @@ public class UpdateCommand extends AbstractCommand {
     @CommandLine.Option(names = {CliConstants.Y, CliConstants.YES})
     boolean yes;
 
+    @CommandLine.Option(names = CliConstants.BUNDLE, paramLabel = CliConstants.PATH)
+    Optional<Path> bundle;
+
     @CommandLine.ArgGroup(exclusive = true, headingKey = "localRepoOptions.heading")
     LocalRepoOptions localRepoOptions;
 
@@ -98,9 +101,15 @@ public class UpdateCommand extends AbstractCommand {
             installationDir = determineInstallationDirectory(directory);
         }
 
-        final MavenSessionManager mavenSessionManager = new MavenSessionManager(LocalRepoOptions.getLocalRepo(localRepoOptions), offline);
+        if (bundle.isPresent() && !remoteRepositories.isEmpty()) {
+            throw CliMessages.MESSAGES.exclusiveOptions(CliConstants.BUNDLE, CliConstants.REMOTE_REPOSITORIES);
+        }
+
+        final MavenSessionManager mavenSessionManager = actionFactory.mavenSessionManager(LocalRepoOptions.getLocalRepo(localRepoOptions), offline);
 
-        try (UpdateAction updateAction = actionFactory.update(installationDir, mavenSessionManager, console, remoteRepositories)) {
+        try (UpdateAction updateAction = bundle.isPresent()
+                ? actionFactory.updateFromBundle(installationDir, bundle.get().toAbsolutePath(), mavenSessionManager, console)
+                : actionFactory.update(installationDir, mavenSessionManager, console, remoteRepositories)) {
             if (!dryRun) {
                 updateAction.doUpdateAll(yes);
             } else {
@@ -108,8 +117,9 @@ public class UpdateCommand extends AbstractCommand {
             }
         }
 
-        final float totalTime = (System.currentTimeMillis() - startTime) / 1000f;
-        console.println(CliMessages.MESSAGES.operationCompleted(totalTime));
+        final long totalMillis = System.currentTimeMillis() - startTime;
+        structuredOutput().ifPresent(output -> output.timing(CliConstants.Commands.UPDATE, totalMillis));
+        console.println(CliMessages.MESSAGES.operationCompleted(totalMillis / 1000f));
 
         return ReturnCodes.SUCCESS;
     }
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.cli.commands;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.wildfly.prospero.actions.Console;
+import org.wildfly.prospero.api.ArtifactDrift;
+import org.wildfly.prospero.cli.ActionFactory;
+import org.wildfly.prospero.cli.CliMessages;
+import org.wildfly.prospero.cli.ReturnCodes;
+import org.wildfly.prospero.cli.StructuredOutput;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = CliConstants.Commands.VERIFY,
+        sortOptions = false
+)
+public class VerifyCommand extends AbstractCommand {
+
+    @CommandLine.Option(names = CliConstants.DIR)
+    Optional<Path> directory;
+
+    @CommandLine.Option(names = CliConstants.FAST)
+    boolean fast;
+
+    public VerifyCommand(Console console, ActionFactory actionFactory) {
+        super(console, actionFactory);
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        final Path installationDirectory = determineInstallationDirectory(directory);
+
+        final List<ArtifactDrift> drifts = actionFactory.verify(installationDirectory).verify(fast);
+        final Optional<StructuredOutput> output = structuredOutput();
+        if (output.isPresent()) {
+            drifts.forEach(output.get()::artifactDrift);
+            return drifts.isEmpty() ? ReturnCodes.SUCCESS : ReturnCodes.PROCESSING_ERROR;
+        }
+        if (drifts.isEmpty()) {
+            console.println(CliMessages.MESSAGES.noChangesFound());
+            return ReturnCodes.SUCCESS;
+        }
+
+        // one tab separated record per line: type, gav, path, expected, actual
+        drifts.forEach(d -> console.println(d.toString()));
+        return ReturnCodes.PROCESSING_ERROR;
+    }
+}
@@ -17,6 +17,8 @@
 
 package org.wildfly.prospero.cli.commands.channel;
 
+import org.eclipse.aether.repository.Authentication;
+import org.eclipse.aether.util.repository.AuthenticationBuilder;
 import org.wildfly.prospero.actions.Console;
 import org.wildfly.prospero.actions.MetadataAction;
 import org.wildfly.prospero.api.exceptions.MetadataException;
@@ -58,6 +60,18 @@ public class ChannelPromoteCommand extends AbstractCommand {
     )
     private Optional<URL> url;
 
+    @CommandLine.Option(
+            names = CliConstants.USERNAME
+    )
+    private Optional<String> username;
+
+    @CommandLine.Option(
+            names = CliConstants.PASSWORD,
+            arity = "0..1",
+            interactive = true
+    )
+    private char[] password;
+
     @CommandLine.Option(
             names = CliConstants.DIR
     )
@@ -111,7 +125,6 @@ public class ChannelPromoteCommand extends AbstractCommand {
             console.error(CliMessages.MESSAGES.wrongChannelCoordinateFormat());
             return ReturnCodes.INVALID_ARGUMENTS;
         }
-        // TODO: support remote repositories
         final ChannelRef coordinate = ChannelRef.fromString(name.get());
 
         final boolean accepted;
@@ -123,12 +136,23 @@ public class ChannelPromoteCommand extends AbstractCommand {
         }
 
         if (accepted) {
-            actionFactory.promoter(console).promote(archive.normalize().toAbsolutePath(), url.get(), coordinate);
+            actionFactory.promoter(console).promote(archive.normalize().toAbsolutePath(), url.get(), coordinate, authentication());
         }
 
         return ReturnCodes.SUCCESS;
     }
 
+    private Authentication authentication() {
+        if (username.isEmpty()) {
+            return null;
+        }
+        final AuthenticationBuilder builder = new AuthenticationBuilder().addUsername(username.get());
+        if (password != null) {
+            builder.addPassword(password);
+        }
+        return builder.build();
+    }
+
     private <T> Optional<T> readSetting(ThrowableFunction<MetadataAction, Optional<T>> reader) throws MetadataException {
         try {
             final Path installation = determineInstallationDirectory(directory);
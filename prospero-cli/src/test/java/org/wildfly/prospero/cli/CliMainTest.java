@@ -21,6 +21,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.wildfly.prospero.cli.commands.CliConstants;
+import org.wildfly.prospero.installation.InstallationLock;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -50,6 +51,19 @@ public class CliMainTest extends AbstractConsoleTest {
         assertTrue(getErrorOutput().contains("Unknown option: '--foo=bar'"));
     }
 
+    @Test
+    public void lockTimeoutAppliesToAllCommands() {
+        try {
+            commandLine.execute(CliConstants.Commands.HISTORY, CliConstants.LOCK_TIMEOUT, "5");
+            assertEquals(5, InstallationLock.getLockTimeout());
+
+            int exitCode = commandLine.execute(CliConstants.Commands.HISTORY, CliConstants.LOCK_TIMEOUT, "-1");
+            assertEquals(ReturnCodes.INVALID_ARGUMENTS, exitCode);
+        } finally {
+            InstallationLock.setLockTimeout(InstallationLock.DEFAULT_LOCK_TIMEOUT);
+        }
+    }
+
     @Test
     public void errorOnUnknownOperation() {
         int exitCode = commandLine.execute("foo");
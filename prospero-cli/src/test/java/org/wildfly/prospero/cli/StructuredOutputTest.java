@@ -0,0 +1,144 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.cli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.jboss.galleon.layout.ProvisioningPlan;
+import org.junit.Test;
+import org.wildfly.prospero.api.ArtifactChange;
+import org.wildfly.prospero.api.SavedState;
+import org.wildfly.prospero.updates.UpdateListener;
+import org.wildfly.prospero.updates.UpdateSet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StructuredOutputTest {
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void jsonLinesStreamOneObjectPerUpdate() throws Exception {
+        final CliConsole console = console(OutputFormat.JSONL);
+        final DefaultArtifact bar = new DefaultArtifact("org.foo", "bar", "jar", "1.0.0");
+        final DefaultArtifact baz = new DefaultArtifact("org.foo", "baz", "jar", "1.0.0");
+        final ArtifactChange change = new ArtifactChange(bar, bar.setVersion("1.0.1"));
+
+        final UpdateListener listener = console.getUpdateListener();
+        listener.searchStarted(2);
+        listener.artifactChecked(baz, Optional.empty(), 1, 2);
+        listener.artifactChecked(bar, Optional.of(change), 2, 2);
+        assertEquals(1, lines().length);
+        listener.searchCompleted(new UpdateSet(ProvisioningPlan.builder(), List.of(change)));
+
+        final String[] lines = lines();
+        assertEquals(2, lines.length);
+        final JsonNode update = mapper.readTree(lines[0]);
+        assertEquals("artifact", update.get("type").asText());
+        assertEquals("org.foo:bar", update.get("name").asText());
+        assertEquals("1.0.0", update.get("oldVersion").asText());
+        assertEquals("1.0.1", update.get("newVersion").asText());
+        final JsonNode summary = mapper.readTree(lines[1]);
+        assertEquals("update-summary", summary.get("type").asText());
+        assertEquals(2, summary.get("checked").asInt());
+        assertEquals(1, summary.get("updates").asInt());
+    }
+
+    @Test
+    public void jsonWritesSingleArray() throws Exception {
+        final CliConsole console = console(OutputFormat.JSON);
+        final StructuredOutput output = console.getStructuredOutput().get();
+
+        output.begin();
+        output.revision(new SavedState("abcd", Instant.ofEpochSecond(0), SavedState.Type.UPDATE));
+        output.timing("history", 42);
+        output.finish();
+
+        final JsonNode records = mapper.readTree(buffer.toString(StandardCharsets.UTF_8));
+        assertTrue(records.isArray());
+        assertEquals(2, records.size());
+        assertEquals("abcd", records.get(0).get("hash").asText());
+        assertEquals("1970-01-01T00:00:00Z", records.get(0).get("timestamp").asText());
+        assertEquals("UPDATE", records.get(0).get("revisionType").asText());
+        assertEquals("timing", records.get(1).get("type").asText());
+        assertEquals(42, records.get(1).get("millis").asInt());
+    }
+
+    @Test
+    public void nestedCommandsShareOneArray() throws Exception {
+        final StructuredOutput output = console(OutputFormat.JSON).getStructuredOutput().get();
+
+        output.begin();
+        output.begin();
+        output.timing("step", 1);
+        output.finish();
+        output.timing("batch", 2);
+        output.finish();
+
+        final JsonNode records = mapper.readTree(buffer.toString(StandardCharsets.UTF_8));
+        assertEquals(2, records.size());
+    }
+
+    @Test
+    public void messagesGoToErrorOutput() {
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final CliConsole console = new CliConsole() {
+            @Override
+            public PrintStream getStdOut() {
+                return new PrintStream(buffer, true, StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public PrintStream getErrOut() {
+                return new PrintStream(err, true, StandardCharsets.UTF_8);
+            }
+        };
+        console.setOutputFormat(OutputFormat.JSONL);
+
+        console.println("Operation completed");
+
+        assertEquals(0, buffer.size());
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Operation completed"));
+    }
+
+    private CliConsole console(OutputFormat format) {
+        final PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+        final CliConsole console = new CliConsole() {
+            @Override
+            public PrintStream getStdOut() {
+                return out;
+            }
+        };
+        console.setOutputFormat(format);
+        return console;
+    }
+
+    private String[] lines() {
+        return buffer.toString(StandardCharsets.UTF_8).split(System.lineSeparator());
+    }
+}
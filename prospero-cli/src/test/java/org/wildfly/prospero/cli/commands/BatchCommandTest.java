@@ -0,0 +1,147 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.cli.commands;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.wildfly.prospero.actions.Console;
+import org.wildfly.prospero.actions.InstallationHistoryAction;
+import org.wildfly.prospero.api.SavedState;
+import org.wildfly.prospero.cli.AbstractConsoleTest;
+import org.wildfly.prospero.cli.ActionFactory;
+import org.wildfly.prospero.cli.CliMessages;
+import org.wildfly.prospero.cli.ReturnCodes;
+import org.wildfly.prospero.test.MetadataTestUtils;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchCommandTest extends AbstractConsoleTest {
+
+    @Mock
+    private InstallationHistoryAction historyAction;
+
+    @Captor
+    private ArgumentCaptor<MavenSessionManager> mavenSessionManager;
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    private Path installationDir;
+
+    @Override
+    protected ActionFactory createActionFactory() {
+        return new ActionFactory() {
+            @Override
+            public InstallationHistoryAction history(Path targetPath, Console console) {
+                return historyAction;
+            }
+        };
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+
+        this.installationDir = tempDir.newFolder("server dir").toPath();
+        MetadataTestUtils.createInstallationMetadata(installationDir);
+        MetadataTestUtils.createGalleonProvisionedState(installationDir);
+    }
+
+    @Test
+    public void stepsShareMavenSession() throws Exception {
+        final Path batch = writeBatch(
+                "# revert twice",
+                String.format("revert --dir \"%s\" --revision abcd --local-repo local-repo", installationDir),
+                "",
+                String.format("revert --dir '%s' --revision efgh --local-repo local-repo --offline", installationDir));
+
+        int exitCode = commandLine.execute(CliConstants.Commands.BATCH, batch.toString());
+
+        assertEquals(ReturnCodes.SUCCESS, exitCode);
+        verify(historyAction).rollback(eq(new SavedState("abcd")), mavenSessionManager.capture());
+        verify(historyAction).rollback(eq(new SavedState("efgh")), mavenSessionManager.capture());
+        final List<MavenSessionManager> sessions = mavenSessionManager.getAllValues();
+        assertSame(sessions.get(0), sessions.get(1));
+        assertTrue(sessions.get(1).isOffline());
+        assertTrue(getStandardOutput().contains("Batch of 2 step(s) completed"));
+    }
+
+    @Test
+    public void stopAtFirstFailedStep() throws Exception {
+        final Path batch = writeBatch(
+                "revert --revision abcd",
+                String.format("revert --dir %s --revision efgh", installationDir.getParent()),
+                String.format("revert --dir \"%s\" --revision ijkl", installationDir));
+
+        int exitCode = commandLine.execute(CliConstants.Commands.BATCH, batch.toString());
+
+        assertEquals(ReturnCodes.INVALID_ARGUMENTS, exitCode);
+        verify(historyAction, never()).rollback(any(), any());
+        assertTrue(getErrorOutput().contains(CliMessages.MESSAGES.batchStepFailed(1, ReturnCodes.INVALID_ARGUMENTS, 2)));
+    }
+
+    @Test
+    public void nestedBatchIsRejected() throws Exception {
+        final Path batch = writeBatch(
+                String.format("revert --dir \"%s\" --revision abcd", installationDir),
+                "batch other.txt");
+
+        int exitCode = commandLine.execute(CliConstants.Commands.BATCH, batch.toString());
+
+        assertEquals(ReturnCodes.INVALID_ARGUMENTS, exitCode);
+        verify(historyAction, times(0)).rollback(any(), any());
+    }
+
+    @Test
+    public void tokenizeQuotedArguments() {
+        assertArrayEquals(new String[]{"channel", "add", "a b", "c'd", ""},
+                BatchCommand.tokenize("  channel add \"a b\"  \"c'd\" ''", 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unterminatedQuote() {
+        BatchCommand.tokenize("channel add \"a b", 1);
+    }
+
+    private Path writeBatch(String... lines) throws Exception {
+        final Path batch = tempDir.newFile("batch.txt").toPath();
+        Files.write(batch, List.of(lines));
+        return batch;
+    }
+}
@@ -107,4 +107,13 @@ public class HistoryCommandTest extends AbstractConsoleTest {
         verify(historyAction).compare(eq(new SavedState("abcd")));
         assertTrue(getStandardOutput().contains("foo:bar"));
     }
+
+    @Test
+    public void compactHistory() throws Exception {
+        int exitCode = commandLine.execute(CliConstants.Commands.HISTORY, CliConstants.DIR, installationDir.toString(),
+                CliConstants.COMPACT);
+        assertEquals(ReturnCodes.SUCCESS, exitCode);
+        verify(historyAction).compact();
+        assertTrue(getStandardOutput().contains(CliMessages.MESSAGES.historyCompacted()));
+    }
 }
\ No newline at end of file
@@ -51,6 +51,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -81,6 +82,7 @@ public class InstallCommandTest extends AbstractMavenCommandTest {
     public void setUp() throws Exception {
         super.setUp();
         when(actionFactory.install(any(), any(), any())).thenReturn(provisionAction);
+        when(actionFactory.mavenSessionManager(any(), anyBoolean())).thenCallRealMethod();
     }
 
     @Test
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.cli.commands;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.wildfly.prospero.cli.AbstractConsoleTest;
+import org.wildfly.prospero.cli.ActionFactory;
+import org.wildfly.prospero.cli.CliMessages;
+import org.wildfly.prospero.cli.ReturnCodes;
+import org.wildfly.prospero.proxy.ProxyStatistics;
+import org.wildfly.prospero.proxy.RepositoryProxy;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProxyCommandTest extends AbstractConsoleTest {
+
+    @Mock
+    private RepositoryProxy proxy;
+
+    private final List<RemoteRepository> proxiedRepositories = new ArrayList<>();
+    private InetSocketAddress address;
+    private Path localRepo;
+
+    @Override
+    protected ActionFactory createActionFactory() {
+        return new ActionFactory() {
+            @Override
+            public RepositoryProxy repositoryProxy(MavenSessionManager mavenSessionManager, List<RemoteRepository> repositories,
+                                                   InetSocketAddress address) {
+                proxiedRepositories.addAll(repositories);
+                ProxyCommandTest.this.address = address;
+                ProxyCommandTest.this.localRepo = mavenSessionManager.getProvisioningRepo();
+                return proxy;
+            }
+        };
+    }
+
+    @Test
+    public void proxyRemoteRepositories() throws Exception {
+        when(proxy.getUri()).thenReturn(URI.create("http://localhost:9090/"));
+        when(proxy.getStatistics()).thenReturn(new ProxyStatistics());
+
+        int exitCode = commandLine.execute(CliConstants.Commands.PROXY,
+                CliConstants.REMOTE_REPOSITORIES, "http://test1.te,http://test2.te",
+                CliConstants.PORT, "9090",
+                CliConstants.LOCAL_REPO, "/tmp/proxy-cache");
+
+        assertEquals(ReturnCodes.SUCCESS, exitCode);
+        assertEquals(2, proxiedRepositories.size());
+        assertEquals("http://test1.te", proxiedRepositories.get(0).getUrl());
+        assertEquals("http://test2.te", proxiedRepositories.get(1).getUrl());
+        assertEquals(9090, address.getPort());
+        assertTrue(address.getAddress().isLoopbackAddress());
+        assertEquals(Path.of("/tmp/proxy-cache"), localRepo);
+        verify(proxy).start();
+        verify(proxy).awaitTermination();
+        verify(proxy).close();
+        assertTrue(getStandardOutput().contains(CliMessages.MESSAGES.proxyStarted(URI.create("http://localhost:9090/"))));
+    }
+
+    @Test
+    public void listenOnGivenHost() throws Exception {
+        when(proxy.getUri()).thenReturn(URI.create("http://localhost:9090/"));
+        when(proxy.getStatistics()).thenReturn(new ProxyStatistics());
+
+        int exitCode = commandLine.execute(CliConstants.Commands.PROXY,
+                CliConstants.REMOTE_REPOSITORIES, "http://test1.te",
+                CliConstants.HOST, "0.0.0.0");
+
+        assertEquals(ReturnCodes.SUCCESS, exitCode);
+        assertTrue(address.getAddress().isAnyLocalAddress());
+    }
+
+    @Test
+    public void requiresInstallationWithoutRemoteRepositories() {
+        int exitCode = commandLine.execute(CliConstants.Commands.PROXY);
+
+        assertEquals(ReturnCodes.INVALID_ARGUMENTS, exitCode);
+        assertTrue(getErrorOutput().contains(CliMessages.MESSAGES.invalidInstallationDir(ProxyCommand.currentDir())
+                .getMessage()));
+    }
+}
@@ -20,6 +20,8 @@ package org.wildfly.prospero.cli.commands;
 import java.nio.file.Path;
 import java.util.Collections;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.junit.Assert;
 import org.junit.Before;
@@ -94,6 +96,30 @@ public class RepositoryCommandTest extends AbstractConsoleTest {
         assertTrue(getStandardOutput().contains(REPO_URL));
     }
 
+    @Test
+    public void testListAsJson() throws Exception {
+        int exitCode = commandLine.execute(CliConstants.OUTPUT, "json", CliConstants.Commands.REPO, CliConstants.Commands.LIST,
+                CliConstants.DIR, dir.toString());
+
+        assertEquals(ReturnCodes.SUCCESS, exitCode);
+        final JsonNode repositories = new ObjectMapper().readTree(getStandardOutput());
+        assertEquals(1, repositories.size());
+        assertEquals("repository", repositories.get(0).get("type").asText());
+        assertEquals(REPO_ID, repositories.get(0).get("id").asText());
+        assertEquals(REPO_URL, repositories.get(0).get("url").asText());
+    }
+
+    @Test
+    public void testListAsJsonLinesWithSubcommandOption() throws Exception {
+        int exitCode = commandLine.execute(CliConstants.Commands.REPO, CliConstants.Commands.LIST, CliConstants.DIR, dir.toString(),
+                CliConstants.OUTPUT, "jsonl");
+
+        assertEquals(ReturnCodes.SUCCESS, exitCode);
+        final String[] lines = getStandardOutput().split(System.lineSeparator());
+        assertEquals(1, lines.length);
+        assertEquals(REPO_ID, new ObjectMapper().readTree(lines[0]).get("id").asText());
+    }
+
     @Test
     public void testAddInvalidArguments() {
         assertEquals(ReturnCodes.INVALID_ARGUMENTS, commandLine.execute(CliConstants.Commands.REPO, CliConstants.Commands.ADD, "repo2", "file:/tmp/repo2"));
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.cli.commands;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.wildfly.channel.Channel;
+import org.wildfly.channel.ChannelMapper;
+import org.wildfly.prospero.actions.UpdateBundleAction;
+import org.wildfly.prospero.api.ArtifactChange;
+import org.wildfly.prospero.api.InstallationMetadata;
+import org.wildfly.prospero.cli.AbstractConsoleTest;
+import org.wildfly.prospero.cli.ActionFactory;
+import org.wildfly.prospero.cli.CliMessages;
+import org.wildfly.prospero.cli.ReturnCodes;
+import org.wildfly.prospero.model.ChannelRef;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UpdateBundleCommandTest extends AbstractConsoleTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    @Mock
+    private UpdateBundleAction updateBundleAction;
+
+    private Path metadataBundle;
+
+    @Override
+    protected ActionFactory createActionFactory() {
+        return new ActionFactory() {
+            @Override
+            public UpdateBundleAction updateBundle(MavenSessionManager mavenSessionManager, List<RemoteRepository> repositories) {
+                return updateBundleAction;
+            }
+        };
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        metadataBundle = tempDir.newFile("metadata.zip").toPath();
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(metadataBundle))) {
+            zos.putNextEntry(new ZipEntry(InstallationMetadata.MANIFEST_FILE_NAME));
+            zos.write(ChannelMapper.toYaml(new Channel("manifest", null, null, null, null)).getBytes(StandardCharsets.UTF_8));
+            zos.putNextEntry(new ZipEntry(InstallationMetadata.PROSPERO_CONFIG_FILE_NAME));
+            zos.write("channels: []\nrepositories: []".getBytes(StandardCharsets.UTF_8));
+            zos.putNextEntry(new ZipEntry(InstallationMetadata.PROVISIONING_FILE_NAME));
+            zos.write("<installation xmlns=\"urn:jboss:galleon:provisioning:3.0\"/>".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void createBundle() throws Exception {
+        final Path archive = tempDir.getRoot().toPath().resolve("update.zip");
+        when(updateBundleAction.createBundle(any(), eq(new ChannelRef("org.test:channel:1.0.1", null)), eq(archive)))
+                .thenReturn(Collections.singletonList(new ArtifactChange(new DefaultArtifact("org.test:foo:1.0.0"),
+                        new DefaultArtifact("org.test:foo:1.0.1"))));
+
+        int exitCode = commandLine.execute(CliConstants.Commands.UPDATE_BUNDLE,
+                CliConstants.METADATA, metadataBundle.toString(),
+                CliConstants.CHANNEL, "org.test:channel:1.0.1",
+                CliConstants.REMOTE_REPOSITORIES, "file:/test",
+                CliConstants.CUSTOMIZATION_ARCHIVE, archive.toString());
+
+        assertEquals(ReturnCodes.SUCCESS, exitCode);
+        verify(updateBundleAction).createBundle(any(), any(), eq(archive));
+        assertTrue(getStandardOutput().contains(CliMessages.MESSAGES.updateBundleCreated(archive)));
+    }
+
+    @Test
+    public void createBundleAsJsonLines() throws Exception {
+        final Path archive = tempDir.getRoot().toPath().resolve("update.zip");
+        when(updateBundleAction.createBundle(any(), any(), eq(archive)))
+                .thenReturn(Arrays.asList(
+                        new ArtifactChange(new DefaultArtifact("org.test:foo:1.0.0"), new DefaultArtifact("org.test:foo:1.0.1")),
+                        new ArtifactChange(new DefaultArtifact("org.test:bar:1.0.0"), null)));
+
+        int exitCode = commandLine.execute(CliConstants.OUTPUT, "jsonl", CliConstants.Commands.UPDATE_BUNDLE,
+                CliConstants.METADATA, metadataBundle.toString(),
+                CliConstants.CHANNEL, "org.test:channel:1.0.1",
+                CliConstants.REMOTE_REPOSITORIES, "file:/test",
+                CliConstants.CUSTOMIZATION_ARCHIVE, archive.toString());
+
+        assertEquals(ReturnCodes.SUCCESS, exitCode);
+        final String[] lines = getStandardOutput().split(System.lineSeparator());
+        assertEquals(2, lines.length);
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonNode updated = mapper.readTree(lines[0]);
+        assertEquals("artifact", updated.get("type").asText());
+        assertEquals("org.test:foo", updated.get("name").asText());
+        assertEquals("1.0.1", updated.get("newVersion").asText());
+        final JsonNode removed = mapper.readTree(lines[1]);
+        assertEquals("org.test:bar", removed.get("name").asText());
+        assertTrue(removed.get("newVersion").isNull());
+    }
+
+    @Test
+    public void requiresTargetChannel() {
+        int exitCode = commandLine.execute(CliConstants.Commands.UPDATE_BUNDLE,
+                CliConstants.METADATA, metadataBundle.toString(),
+                CliConstants.REMOTE_REPOSITORIES, "file:/test",
+                CliConstants.CUSTOMIZATION_ARCHIVE, "update.zip");
+
+        assertEquals(ReturnCodes.INVALID_ARGUMENTS, exitCode);
+    }
+}
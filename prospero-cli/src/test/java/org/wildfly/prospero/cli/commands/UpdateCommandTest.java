@@ -41,6 +41,7 @@ import org.wildfly.prospero.test.MetadataTestUtils;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
@@ -75,6 +76,7 @@ public class UpdateCommandTest extends AbstractMavenCommandTest {
         super.setUp();
 
         when(actionFactory.update(any(), any(), any(), any())).thenReturn(updateAction);
+        when(actionFactory.mavenSessionManager(any(), anyBoolean())).thenCallRealMethod();
 
         installationDir = tempFolder.newFolder().toPath();
 
@@ -104,6 +106,29 @@ public class UpdateCommandTest extends AbstractMavenCommandTest {
         Mockito.verify(updateAction).doUpdateAll(false);
     }
 
+    @Test
+    public void callUpdateFromBundle() throws Exception {
+        final Path bundle = tempFolder.newFile("update.zip").toPath();
+        when(actionFactory.updateFromBundle(any(), any(), any(), any())).thenReturn(updateAction);
+
+        int exitCode = commandLine.execute(CliConstants.Commands.UPDATE, CliConstants.DIR, installationDir.toString(),
+                CliConstants.BUNDLE, bundle.toString());
+
+        assertEquals(ReturnCodes.SUCCESS, exitCode);
+        Mockito.verify(actionFactory).updateFromBundle(eq(installationDir.toAbsolutePath()), eq(bundle.toAbsolutePath()), any(), any());
+        Mockito.verify(updateAction).doUpdateAll(false);
+    }
+
+    @Test
+    public void bundleAndRemoteRepositoriesAreExclusive() throws Exception {
+        int exitCode = commandLine.execute(CliConstants.Commands.UPDATE, CliConstants.DIR, installationDir.toString(),
+                CliConstants.BUNDLE, "update.zip", CliConstants.REMOTE_REPOSITORIES, "file:/test");
+
+        assertEquals(ReturnCodes.INVALID_ARGUMENTS, exitCode);
+        assertTrue(getErrorOutput().contains(CliMessages.MESSAGES
+                .exclusiveOptions(CliConstants.BUNDLE, CliConstants.REMOTE_REPOSITORIES).getMessage()));
+    }
+
     @Test
     public void selfUpdateRequiresModulePathProp() {
         int exitCode = commandLine.execute(CliConstants.Commands.UPDATE, CliConstants.SELF);
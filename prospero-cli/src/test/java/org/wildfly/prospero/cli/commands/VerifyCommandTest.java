@@ -0,0 +1,134 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.cli.commands;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.wildfly.prospero.actions.VerifyAction;
+import org.wildfly.prospero.api.ArtifactDrift;
+import org.wildfly.prospero.cli.AbstractConsoleTest;
+import org.wildfly.prospero.cli.ActionFactory;
+import org.wildfly.prospero.cli.CliMessages;
+import org.wildfly.prospero.cli.ReturnCodes;
+import org.wildfly.prospero.test.MetadataTestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VerifyCommandTest extends AbstractConsoleTest {
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder();
+
+    @Mock
+    private VerifyAction verifyAction;
+
+    private Path installationDir;
+
+    @Override
+    protected ActionFactory createActionFactory() {
+        return new ActionFactory() {
+            @Override
+            public VerifyAction verify(Path targetPath) {
+                return verifyAction;
+            }
+        };
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        installationDir = tempDir.newFolder().toPath();
+        MetadataTestUtils.createInstallationMetadata(installationDir);
+        MetadataTestUtils.createGalleonProvisionedState(installationDir);
+    }
+
+    @Test
+    public void currentDirNotValidInstallation() {
+        int exitCode = commandLine.execute(CliConstants.Commands.VERIFY);
+        assertEquals(ReturnCodes.INVALID_ARGUMENTS, exitCode);
+        assertTrue(getErrorOutput().contains(CliMessages.MESSAGES.invalidInstallationDir(VerifyCommand.currentDir())
+                .getMessage()));
+    }
+
+    @Test
+    public void unchangedInstallation() throws Exception {
+        when(verifyAction.verify(false)).thenReturn(Collections.emptyList());
+
+        int exitCode = commandLine.execute(CliConstants.Commands.VERIFY, CliConstants.DIR, installationDir.toString());
+
+        assertEquals(ReturnCodes.SUCCESS, exitCode);
+        assertTrue(getStandardOutput().contains(CliMessages.MESSAGES.noChangesFound()));
+    }
+
+    @Test
+    public void printDriftAndFail() throws Exception {
+        when(verifyAction.verify(true)).thenReturn(Arrays.asList(
+                new ArtifactDrift(ArtifactDrift.Type.MISSING, "org.foo:bar:1.2.3", "modules/foo/bar-1.2.3.jar", null, null)));
+
+        int exitCode = commandLine.execute(CliConstants.Commands.VERIFY, CliConstants.DIR, installationDir.toString(),
+                CliConstants.FAST);
+
+        assertEquals(ReturnCodes.PROCESSING_ERROR, exitCode);
+        verify(verifyAction).verify(true);
+        assertTrue(getStandardOutput().contains("MISSING\torg.foo:bar:1.2.3\tmodules/foo/bar-1.2.3.jar"));
+    }
+
+    @Test
+    public void printDriftAsJson() throws Exception {
+        when(verifyAction.verify(false)).thenReturn(Arrays.asList(
+                new ArtifactDrift(ArtifactDrift.Type.MODIFIED, "org.foo:bar:1.2.3", "modules/foo/bar-1.2.3.jar", "abcd", "ef01")));
+
+        int exitCode = commandLine.execute(CliConstants.OUTPUT, "json", CliConstants.Commands.VERIFY,
+                CliConstants.DIR, installationDir.toString());
+
+        assertEquals(ReturnCodes.PROCESSING_ERROR, exitCode);
+        final JsonNode records = new ObjectMapper().readTree(getStandardOutput());
+        assertEquals(1, records.size());
+        assertEquals("artifact-drift", records.get(0).get("type").asText());
+        assertEquals("MODIFIED", records.get(0).get("drift").asText());
+        assertEquals("org.foo:bar:1.2.3", records.get(0).get("gav").asText());
+        assertEquals("modules/foo/bar-1.2.3.jar", records.get(0).get("path").asText());
+        assertEquals("abcd", records.get(0).get("expected").asText());
+        assertEquals("ef01", records.get(0).get("actual").asText());
+    }
+
+    @Test
+    public void unchangedInstallationAsJsonLines() throws Exception {
+        when(verifyAction.verify(false)).thenReturn(Collections.emptyList());
+
+        int exitCode = commandLine.execute(CliConstants.Commands.VERIFY, CliConstants.DIR, installationDir.toString(),
+                CliConstants.OUTPUT, "jsonl");
+
+        assertEquals(ReturnCodes.SUCCESS, exitCode);
+        assertEquals("", getStandardOutput());
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.wildfly.prospero.cli.commands.channel;
 
+import org.eclipse.aether.util.repository.AuthenticationBuilder;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -78,7 +79,24 @@ public class ChannelPromoteCommandTest extends AbstractConsoleTest {
 
         assertEquals(ReturnCodes.SUCCESS, exitCode);
         verify(promoter).promote(Paths.get("test/archive.zip").toAbsolutePath(), new URL("file:///test/test"),
-                ChannelRef.fromString("org.test:custom-channel"));
+                ChannelRef.fromString("org.test:custom-channel"), null);
+    }
+
+    @Test
+    public void passCredentialsToPromoteAction() throws Exception {
+        when(actionFactory.promoter(any())).thenReturn(promoter);
+        int exitCode = commandLine.execute(
+                CliConstants.Commands.CHANNEL, CUSTOMIZATION_PROMOTE,
+                CliConstants.CUSTOMIZATION_REPOSITORY_URL, "http://test.repo",
+                CliConstants.CUSTOMIZATION_ARCHIVE, "test/archive.zip",
+                CliConstants.CUSTOMIZATION_CHANNEL_NAME, "org.test:custom-channel",
+                CliConstants.USERNAME, "user",
+                CliConstants.PASSWORD + "=secret");
+
+        assertEquals(ReturnCodes.SUCCESS, exitCode);
+        verify(promoter).promote(Paths.get("test/archive.zip").toAbsolutePath(), new URL("http://test.repo"),
+                ChannelRef.fromString("org.test:custom-channel"),
+                new AuthenticationBuilder().addUsername("user").addPassword("secret").build());
     }
 
     @Test
@@ -144,7 +162,7 @@ public class ChannelPromoteCommandTest extends AbstractConsoleTest {
                 );
         assertEquals(ReturnCodes.SUCCESS, exitCode);
         verify(promoter).promote(Paths.get("test/archive.zip").toAbsolutePath(), new URL("file:///test/test"),
-                ChannelRef.fromString(CUSTOM_CHANNELS_GROUP_ID + ":test1"));
+                ChannelRef.fromString(CUSTOM_CHANNELS_GROUP_ID + ":test1"), null);
     }
 
     @Test
@@ -164,7 +182,7 @@ public class ChannelPromoteCommandTest extends AbstractConsoleTest {
         );
         assertEquals(ReturnCodes.SUCCESS, exitCode);
         verify(promoter).promote(Paths.get("test/archive.zip").toAbsolutePath(), new URL("http://test.repo"),
-                ChannelRef.fromString("org.custom:test"));
+                ChannelRef.fromString("org.custom:test"), null);
     }
 
     @Test
@@ -185,6 +203,6 @@ public class ChannelPromoteCommandTest extends AbstractConsoleTest {
         );
         assertEquals(ReturnCodes.SUCCESS, exitCode);
         verify(promoter).promote(Paths.get("test/archive.zip").toAbsolutePath(), new URL("http://test.repo"),
-                ChannelRef.fromString(CUSTOM_CHANNELS_GROUP_ID + ":test1"));
+                ChannelRef.fromString(CUSTOM_CHANNELS_GROUP_ID + ":test1"), null);
     }
 }
\ No newline at end of file
@@ -17,6 +17,7 @@
 
 package org.wildfly.prospero;
 
+import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
 
@@ -56,6 +57,9 @@ public interface Messages {
     @Message("Artifact [%s:%s] not found")
     ArtifactResolutionException artifactNotFound(String g, String a, @Cause Exception e);
 
+    @Message("Unable to check updates of artifact [%s:%s]: %s")
+    ArtifactResolutionException unableToCheckUpdates(String g, String a, String reason, @Cause Exception e);
+
     @Message("At least one channel reference must be given.")
     NoChannelException noChannelReference();
 
@@ -86,6 +90,36 @@ public interface Messages {
     @Message("Unable to parse server configuration at '%s'")
     MetadataException unableToParseConfiguration(String path, @Cause Exception e);
 
+    @Message("Installation metadata at '%s' was opened read-only.")
+    IllegalStateException metadataOpenedReadOnly(Path installation);
+
+    @Message("Installation at '%s' doesn't contain a record of installed artifacts. It will be created by the next update.")
+    MetadataException noInstalledArtifactsIndex(Path installation);
+
     @Message("Unable to close the update store.")
     MetadataException unableToCloseStore(@Cause Exception e);
+
+    @Message("Entry '%s' points outside of the customization bundle.")
+    IOException invalidBundleEntry(String entry);
+
+    @Message("Artifact '%s' is listed in the customization bundle, but not present in its repository.")
+    IOException bundleArtifactNotFound(String path);
+
+    @Message("'%s' is not an update bundle, it doesn't contain a manifest.")
+    MetadataException notAnUpdateBundle(Path bundle);
+
+    @Message("Unable to apply the update bundle '%s'.")
+    MetadataException unableToApplyUpdateBundle(Path bundle, @Cause Exception e);
+
+    @Message("Checksum of '%s' in the customization bundle doesn't match: expected %s, found %s.")
+    IOException bundleChecksumMismatch(String path, String expected, String actual);
+
+    @Message("Installation at '%s' is used by another process, unable to acquire the lock within %d seconds.")
+    MetadataException installationLocked(Path installation, long timeoutSeconds);
+
+    @Message("Unable to lock the installation at '%s'.")
+    MetadataException unableToLockInstallation(Path installation, @Cause Exception e);
+
+    @Message("Installation at '%s' was modified by another process while looking for updates.")
+    MetadataException installationChangedConcurrently(Path installation);
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.actions;
+
+import org.wildfly.prospero.api.ArtifactChange;
+import org.wildfly.prospero.api.ProgressEvent;
+import org.wildfly.prospero.api.ProgressListener;
+import org.wildfly.prospero.api.ProvisioningDefinition;
+import org.wildfly.prospero.api.SavedState;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs provisioning, update and rollback operations asynchronously on an {@link Executor}.
+ * <p>
+ * Cancellation is cooperative: once the returned future is done before the operation finishes, e.g. it was cancelled
+ * or completed by {@link CompletableFuture#orTimeout}, the operation stops at the next Galleon provisioning step or
+ * artifact download. Progress of the operation is published to the {@link ProgressListener} on the executing thread.
+ * <p>
+ * Each operation modifies the {@link MavenSessionManager} it is given, which therefore must not be shared between
+ * operations running at the same time.
+ */
+public class AsyncActions {
+
+    public static final String PROVISION = "provision";
+    public static final String UPDATE = "update";
+    public static final String ROLLBACK = "rollback";
+
+    private final Executor executor;
+
+    public AsyncActions(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    public CompletableFuture<Void> provision(Path installDir, ProvisioningDefinition definition,
+                                             MavenSessionManager mavenSessionManager, ProgressListener listener) {
+        return submit(PROVISION, mavenSessionManager, listener, console -> {
+            new ProvisioningAction(installDir, mavenSessionManager, console).provision(definition);
+            return null;
+        });
+    }
+
+    /**
+     * Applies all available updates without confirmation.
+     *
+     * @return the applied changes
+     */
+    public CompletableFuture<List<ArtifactChange>> update(Path installDir, MavenSessionManager mavenSessionManager,
+                                                          ProgressListener listener) {
+        return submit(UPDATE, mavenSessionManager, listener, console -> {
+            try (UpdateAction updateAction = new UpdateAction(installDir, mavenSessionManager, console)) {
+                updateAction.doUpdateAll(true);
+            }
+            return console.getChanges();
+        });
+    }
+
+    public CompletableFuture<Void> rollback(Path installDir, SavedState savedState, MavenSessionManager mavenSessionManager,
+                                            ProgressListener listener) {
+        return submit(ROLLBACK, mavenSessionManager, listener, console -> {
+            new InstallationHistoryAction(installDir, console).rollback(savedState, mavenSessionManager);
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> submit(String operation, MavenSessionManager mavenSessionManager,
+                                            ProgressListener listener, Operation<T> task) {
+        Objects.requireNonNull(mavenSessionManager);
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final ProgressConsole console = new ProgressConsole(operation, future, listener == null ? ProgressListener.NO_OP : listener);
+
+        executor.execute(() -> {
+            try {
+                console.checkCancelled();
+                console.publish(null, ProgressEvent.Type.STARTED, null, 0, -1);
+                mavenSessionManager.setTransferListener(console);
+
+                final T result = task.run(console);
+
+                console.publish(null, ProgressEvent.Type.COMPLETED, null, 0, -1);
+                future.complete(result);
+            } catch (Exception e) {
+                console.publish(null, future.isDone() ? ProgressEvent.Type.CANCELLED : ProgressEvent.Type.FAILED, null, 0, -1);
+                future.completeExceptionally(e);
+            } finally {
+                mavenSessionManager.setTransferListener(null);
+            }
+        });
+        return future;
+    }
+
+    private interface Operation<T> {
+        T run(ProgressConsole console) throws Exception;
+    }
+}
@@ -25,6 +25,7 @@ import java.util.List;
 import org.jboss.galleon.layout.FeaturePackUpdatePlan;
 import org.jboss.galleon.progresstracking.ProgressCallback;
 import org.wildfly.prospero.api.ArtifactChange;
+import org.wildfly.prospero.updates.UpdateListener;
 
 public interface Console {
 
@@ -39,6 +40,10 @@ public interface Console {
     // update
     void updatesFound(Collection<FeaturePackUpdatePlan> updates, List<ArtifactChange> changes);
 
+    default UpdateListener getUpdateListener() {
+        return UpdateListener.NONE;
+    }
+
     boolean confirmUpdates();
 
     boolean confirm(String prompt, String accepted, String cancelled);
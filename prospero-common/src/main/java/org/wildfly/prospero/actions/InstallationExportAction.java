@@ -14,40 +14,152 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.wildfly.prospero.actions;
 
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.logging.Logger;
+import org.wildfly.channel.Stream;
 import org.wildfly.prospero.Messages;
 import org.wildfly.prospero.api.InstallationMetadata;
 import org.wildfly.prospero.api.exceptions.MetadataException;
+import org.wildfly.prospero.installation.InstalledArtifactsScanner;
+import org.wildfly.prospero.model.InstalledArtifact;
+import org.wildfly.prospero.model.InstalledArtifactsIndex;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class InstallationExportAction {
 
+    public static final String WITH_ARTIFACTS = "--with-artifacts";
+
+    private static final Logger logger = Logger.getLogger(InstallationExportAction.class);
+
     private final Path installationDir;
+    private final MavenSessionManager mavenSessionManager;
 
     public InstallationExportAction(Path installationDir) {
+        this(installationDir, null);
+    }
+
+    /**
+     * @param mavenSessionManager - used to resolve artifacts not available in the installation when exporting
+     *                            with artifacts. If null, a default session is used.
+     */
+    public InstallationExportAction(Path installationDir, MavenSessionManager mavenSessionManager) {
         this.installationDir = installationDir;
+        this.mavenSessionManager = mavenSessionManager;
     }
 
     public static void main(String[] args) throws Exception {
         String installation = args[0];
         String exportName = args[1];
+        boolean withArtifacts = args.length > 2 && WITH_ARTIFACTS.equals(args[2]);
 
-        new InstallationExportAction(Paths.get(installation)).export(exportName);
+        new InstallationExportAction(Paths.get(installation)).export(exportName, withArtifacts);
     }
 
     public void export(String exportName) throws IOException, MetadataException {
+        export(exportName, false);
+    }
+
+    /**
+     * @param withArtifacts - if true, the installation's artifacts are included in the bundle in Maven repository layout,
+     *                      so that the installation can be restored without access to the remote repositories
+     */
+    public void export(String exportName, boolean withArtifacts) throws IOException, MetadataException {
         if (!installationDir.toFile().exists()) {
             throw Messages.MESSAGES.installationDirDoesNotExist(installationDir);
         }
 
         try (final InstallationMetadata metadataBundle = new InstallationMetadata(installationDir)) {
+            final List<Artifact> artifacts = withArtifacts ? collectArtifacts(metadataBundle) : Collections.emptyList();
+
+            metadataBundle.exportMetadataBundle(Paths.get(exportName), artifacts);
+        }
+    }
+
+    private List<Artifact> collectArtifacts(InstallationMetadata metadata) throws IOException, MetadataException {
+        final List<Artifact> artifacts = new ArrayList<>();
+        final Set<String> installedGAVs = new HashSet<>();
+
+        // use the files from the installation where possible, so they don't have to be downloaded
+        final List<InstalledArtifact> installed = metadata.getInstalledArtifacts()
+                .map(InstalledArtifactsIndex::getArtifacts)
+                .orElse(Collections.emptyList());
+        for (InstalledArtifact installedArtifact : installed) {
+            final Path file = installationDir.resolve(installedArtifact.getPath());
+            // a modified file would be restored into the local repository in place of the real artifact
+            if (!InstalledArtifactsScanner.isUnmodified(file, installedArtifact)) {
+                logger.warnf("%s has been modified since it was installed, it will be resolved from the repositories instead",
+                        installedArtifact.getPath());
+                continue;
+            }
+            final Artifact artifact = installedArtifact.toArtifact();
+            artifacts.add(artifact.setFile(file.toFile()));
+            installedGAVs.add(artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getVersion());
+        }
+
+        final Set<String> featurePacks = UpdateBundleAction.featurePackGAs(metadata);
+        final List<RemoteRepository> repositories = metadata.getProsperoConfig().getRemoteRepositories();
+        final List<ArtifactRequest> requests = new ArrayList<>();
+        for (Stream stream : metadata.getManifest().getStreams()) {
+            if (installedGAVs.contains(stream.getGroupId() + ":" + stream.getArtifactId() + ":" + stream.getVersion())) {
+                continue;
+            }
+            // manifest doesn't record extensions, feature packs are the only non-jar artifacts
+            final String extension = featurePacks.contains(stream.getGroupId() + ":" + stream.getArtifactId()) ? "zip" : "jar";
+            final Artifact artifact = new DefaultArtifact(stream.getGroupId(), stream.getArtifactId(), extension, stream.getVersion());
+            requests.add(new ArtifactRequest(artifact, repositories, null));
+        }
+
+        if (!requests.isEmpty()) {
+            artifacts.addAll(resolve(requests));
+        }
+        return artifacts;
+    }
+
+    private List<Artifact> resolve(List<ArtifactRequest> requests) throws MetadataException {
+        final MavenSessionManager msm;
+        try {
+            msm = mavenSessionManager == null ? new MavenSessionManager() : mavenSessionManager;
+        } catch (ProvisioningException e) {
+            throw new MetadataException(e.getMessage(), e);
+        }
+        final RepositorySystem system = msm.getRepositorySystem();
+        final RepositorySystemSession session = msm.newRepositorySystemSession(system);
+
+        List<ArtifactResult> results;
+        try {
+            results = system.resolveArtifacts(session, requests);
+        } catch (ArtifactResolutionException e) {
+            // artifacts no longer available in the repositories are left out, the rest of the export is still usable
+            results = e.getResults();
+        }
 
-            metadataBundle.exportMetadataBundle(Paths.get(exportName));
+        final List<Artifact> resolved = new ArrayList<>();
+        for (ArtifactResult result : results) {
+            if (result.isResolved()) {
+                resolved.add(result.getArtifact());
+            } else {
+                logger.warnf("Unable to resolve %s, it won't be included in the export", result.getRequest().getArtifact());
+            }
         }
+        return resolved;
     }
 }
@@ -27,11 +27,13 @@ import org.wildfly.prospero.api.exceptions.MetadataException;
 import org.wildfly.prospero.api.SavedState;
 import org.wildfly.prospero.galleon.GalleonEnvironment;
 import org.wildfly.prospero.galleon.GalleonUtils;
+import org.wildfly.prospero.installation.PinnedArtifacts;
 import org.wildfly.prospero.model.ProsperoConfig;
 import org.wildfly.prospero.wfchannel.MavenSessionManager;
 import org.jboss.galleon.ProvisioningException;
 
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
 
 import static org.wildfly.prospero.galleon.GalleonUtils.MAVEN_REPO_LOCAL;
@@ -47,20 +49,38 @@ public class InstallationHistoryAction {
     }
 
     public List<ArtifactChange> compare(SavedState savedState) throws MetadataException {
-        final InstallationMetadata installationMetadata = new InstallationMetadata(installation);
-        return installationMetadata.getChangesSince(savedState);
+        try (final InstallationMetadata installationMetadata = InstallationMetadata.readOnly(installation)) {
+            return installationMetadata.getChangesSince(savedState);
+        }
     }
 
     public List<SavedState> getRevisions() throws MetadataException {
-        final InstallationMetadata installationMetadata = new InstallationMetadata(installation);
-        return installationMetadata.getRevisions();
+        try (final InstallationMetadata installationMetadata = InstallationMetadata.readOnly(installation)) {
+            return installationMetadata.getRevisions();
+        }
+    }
+
+    public void compact() throws MetadataException {
+        // rewrites the history repository, needs the exclusive lock
+        try (final InstallationMetadata installationMetadata = new InstallationMetadata(installation)) {
+            installationMetadata.compactHistory();
+        }
     }
 
     public void rollback(SavedState savedState, MavenSessionManager mavenSessionManager) throws OperationException, ProvisioningException {
         InstallationMetadata metadata = new InstallationMetadata(installation);
+        final PinnedArtifacts pinnedArtifacts = new PinnedArtifacts(installation);
         try {
-            metadata = metadata.rollback(savedState);
-            final ProsperoConfig prosperoConfig = metadata.getProsperoConfig();
+            final InstallationMetadata rolledBack = metadata.rollback(savedState);
+            metadata.close();
+            metadata = rolledBack;
+            ProsperoConfig prosperoConfig = metadata.getProsperoConfig();
+            if (pinnedArtifacts.isComplete(savedState.getName())) {
+                // all artifacts of the reverted state are available locally, channels and repositories are not needed
+                pinnedArtifacts.copyTo(savedState.getName(), mavenSessionManager.getProvisioningRepo());
+                mavenSessionManager.setOffline(true);
+                prosperoConfig = new ProsperoConfig(Collections.emptyList(), Collections.emptyList());
+            }
             final GalleonEnvironment galleonEnv = GalleonEnvironment
                     .builder(installation, prosperoConfig, mavenSessionManager)
                     .setConsole(console)
@@ -75,6 +95,10 @@ public class InstallationHistoryAction {
             } catch (UnresolvedMavenArtifactException e) {
                 throw new ArtifactResolutionException(e, prosperoConfig.getRemoteRepositories(), mavenSessionManager.isOffline());
             }
+
+            // the index is not part of the history, it has to match the reverted files
+            metadata.recordInstalledArtifacts();
+            metadata.pinArtifacts(mavenSessionManager.getProvisioningRepo());
         } finally {
             System.clearProperty(MAVEN_REPO_LOCAL);
             metadata.close();
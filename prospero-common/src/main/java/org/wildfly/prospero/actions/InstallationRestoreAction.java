@@ -28,9 +28,11 @@ import org.wildfly.prospero.api.exceptions.MetadataException;
 import org.wildfly.prospero.galleon.GalleonUtils;
 import org.wildfly.prospero.galleon.ChannelMavenArtifactRepositoryManager;
 import org.wildfly.prospero.model.ProsperoConfig;
+import org.wildfly.prospero.promotion.ArtifactBundle;
 import org.wildfly.prospero.wfchannel.MavenSessionManager;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.config.ProvisioningConfig;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -54,6 +56,13 @@ public class InstallationRestoreAction {
             throw Messages.MESSAGES.installationDirAlreadyExists(installDir);
         }
 
+        // artifacts exported with the metadata are copied into the local repository, so they don't have to be downloaded
+        try (ArtifactBundle bundle = ArtifactBundle.open(metadataBundleZip)) {
+            if (!bundle.getArtifactList().isEmpty()) {
+                bundle.copyArtifacts(mavenSessionManager.getProvisioningRepo());
+            }
+        }
+
         try (final InstallationMetadata metadataBundle = InstallationMetadata.importMetadata(metadataBundleZip)) {
             final ProsperoConfig prosperoConfig = metadataBundle.getProsperoConfig();
             final GalleonEnvironment galleonEnv = GalleonEnvironment
@@ -61,9 +70,10 @@ public class InstallationRestoreAction {
                     .setConsole(console)
                     .setRestoreManifest(metadataBundle.getManifest())
                     .build();
+            final ProvisioningConfig provisioningConfig = metadataBundle.getGalleonProvisioningConfig();
 
             try {
-                GalleonUtils.executeGalleon(options -> galleonEnv.getProvisioningManager().provision(metadataBundle.getGalleonProvisioningConfig(), options),
+                GalleonUtils.executeGalleon(options -> galleonEnv.getProvisioningManager().provision(provisioningConfig, options),
                         mavenSessionManager.getProvisioningRepo().toAbsolutePath());
             } catch (UnresolvedMavenArtifactException e) {
                 throw new ArtifactResolutionException(e, prosperoConfig.getRemoteRepositories(), mavenSessionManager.isOffline());
@@ -77,6 +87,7 @@ public class InstallationRestoreAction {
             throws MetadataException {
         try (final InstallationMetadata installationMetadata = new InstallationMetadata(installDir, maven.resolvedChannel(), channelRefs, repositories)) {
             installationMetadata.recordProvision(true);
+            installationMetadata.pinArtifacts(mavenSessionManager.getProvisioningRepo());
         }
     }
 }
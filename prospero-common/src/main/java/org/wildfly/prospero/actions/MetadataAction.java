@@ -68,7 +68,7 @@ public class MetadataAction {
      * Retrieves maven remote repositories used by an installation.
      */
     public List<RepositoryRef> getRepositories() throws MetadataException {
-        try (final InstallationMetadata installationMetadata = new InstallationMetadata(installation)) {
+        try (final InstallationMetadata installationMetadata = InstallationMetadata.readOnly(installation)) {
             ProsperoConfig prosperoConfig = installationMetadata.getProsperoConfig();
             return prosperoConfig.getRepositories();
         }
@@ -78,7 +78,7 @@ public class MetadataAction {
      * Retrieves channels used by an installation.
      */
     public List<ChannelRef> getChannels() throws MetadataException {
-        try (final InstallationMetadata installationMetadata = new InstallationMetadata(installation)) {
+        try (final InstallationMetadata installationMetadata = InstallationMetadata.readOnly(installation)) {
             ProsperoConfig prosperoConfig = installationMetadata.getProsperoConfig();
             return prosperoConfig.getChannels();
         }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.actions;
+
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.jboss.galleon.layout.FeaturePackUpdatePlan;
+import org.jboss.galleon.progresstracking.ProgressCallback;
+import org.jboss.galleon.progresstracking.ProgressTracker;
+import org.jboss.logging.Logger;
+import org.wildfly.prospero.api.ArtifactChange;
+import org.wildfly.prospero.api.ProgressEvent;
+import org.wildfly.prospero.api.ProgressListener;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+
+/**
+ * Non-interactive {@link Console} of operations run by {@link AsyncActions}. Translates Galleon progress and artifact
+ * downloads into {@link ProgressEvent}s and stops the operation at those points once its future is done,
+ * e.g. cancelled or timed out.
+ */
+class ProgressConsole extends AbstractTransferListener implements Console {
+
+    private static final Logger logger = Logger.getLogger(ProgressConsole.class);
+
+    private final String operation;
+    private final Future<?> future;
+    private final ProgressListener listener;
+    private volatile List<ArtifactChange> changes = Collections.emptyList();
+
+    ProgressConsole(String operation, Future<?> future, ProgressListener listener) {
+        this.operation = operation;
+        this.future = future;
+        this.listener = listener;
+    }
+
+    void checkCancelled() {
+        if (future.isDone()) {
+            throw new CancellationException("Operation " + operation + " was cancelled");
+        }
+    }
+
+    void publish(String stage, ProgressEvent.Type type, String item, long processed, long total) {
+        try {
+            listener.onEvent(new ProgressEvent(operation, stage, type, item, processed, total));
+        } catch (RuntimeException e) {
+            // a failing listener must not break the operation
+            logger.warn("Progress listener failed to process an event of " + operation, e);
+        }
+    }
+
+    List<ArtifactChange> getChanges() {
+        return changes;
+    }
+
+    @Override
+    public void installationComplete() {
+        // the future is completed once the whole operation is done
+    }
+
+    @Override
+    public ProgressCallback<?> getProgressCallback(String id) {
+        return new ProgressCallback<Object>() {
+            @Override
+            public void starting(ProgressTracker<Object> tracker) {
+                checkCancelled();
+                publish(id, ProgressEvent.Type.STARTED, null, 0, tracker.getTotalVolume());
+            }
+
+            @Override
+            public void processing(ProgressTracker<Object> tracker) {
+                checkCancelled();
+            }
+
+            @Override
+            public void pulse(ProgressTracker<Object> tracker) {
+                checkCancelled();
+                publish(id, ProgressEvent.Type.PROGRESS, null, tracker.getProcessedVolume(), tracker.getTotalVolume());
+            }
+
+            @Override
+            public void complete(ProgressTracker<Object> tracker) {
+                publish(id, ProgressEvent.Type.COMPLETED, null, tracker.getProcessedVolume(), tracker.getTotalVolume());
+            }
+        };
+    }
+
+    @Override
+    public void updatesFound(Collection<FeaturePackUpdatePlan> updates, List<ArtifactChange> changes) {
+        this.changes = changes;
+    }
+
+    @Override
+    public boolean confirmUpdates() {
+        return true;
+    }
+
+    @Override
+    public boolean confirm(String prompt, String accepted, String cancelled) {
+        return true;
+    }
+
+    @Override
+    public void updatesComplete() {
+        // the future is completed once the whole operation is done
+    }
+
+    @Override
+    public void println(String text) {
+        logger.debug(text);
+    }
+
+    @Override
+    public void println(String text, String... args) {
+        logger.debugf(text, (Object[]) args);
+    }
+
+    @Override
+    public void error(String message, String... args) {
+        logger.warnf(message, (Object[]) args);
+    }
+
+    @Override
+    public void transferInitiated(TransferEvent event) throws TransferCancelledException {
+        checkTransferCancelled();
+        publish(ProgressEvent.DOWNLOAD, ProgressEvent.Type.STARTED, resourceName(event), 0,
+                event.getResource().getContentLength());
+    }
+
+    @Override
+    public void transferProgressed(TransferEvent event) throws TransferCancelledException {
+        checkTransferCancelled();
+    }
+
+    @Override
+    public void transferSucceeded(TransferEvent event) {
+        publish(ProgressEvent.DOWNLOAD, ProgressEvent.Type.COMPLETED, resourceName(event), event.getTransferredBytes(),
+                event.getResource().getContentLength());
+    }
+
+    @Override
+    public void transferFailed(TransferEvent event) {
+        publish(ProgressEvent.DOWNLOAD, ProgressEvent.Type.FAILED, resourceName(event), event.getTransferredBytes(),
+                event.getResource().getContentLength());
+    }
+
+    private void checkTransferCancelled() throws TransferCancelledException {
+        if (future.isDone()) {
+            throw new TransferCancelledException();
+        }
+    }
+
+    private static String resourceName(TransferEvent event) {
+        return event.getResource().getRepositoryUrl() + event.getResource().getResourceName();
+    }
+}
@@ -19,9 +19,10 @@ package org.wildfly.prospero.actions;
 
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.deployment.DeploymentException;
+import org.eclipse.aether.repository.Authentication;
 import org.eclipse.aether.repository.RemoteRepository;
-import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.jboss.galleon.ProvisioningException;
 import org.wildfly.channel.ArtifactCoordinate;
 import org.wildfly.channel.maven.ChannelCoordinate;
@@ -35,6 +36,7 @@ import org.wildfly.prospero.wfchannel.MavenSessionManager;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Objects;
 
 public class PromoteArtifactBundleAction {
@@ -46,6 +48,14 @@ public class PromoteArtifactBundleAction {
     }
 
     public void promote(Path archive, URL targetRepository, ChannelRef coordinate) throws ProvisioningException, ArtifactPromoteException {
+        promote(archive, targetRepository, coordinate, null);
+    }
+
+    /**
+     * @param authentication - credentials used to deploy to the target repository, or null to deploy anonymously
+     */
+    public void promote(Path archive, URL targetRepository, ChannelRef coordinate, Authentication authentication)
+            throws ProvisioningException, ArtifactPromoteException {
         Objects.requireNonNull(archive);
         Objects.requireNonNull(targetRepository);
         Objects.requireNonNull(coordinate);
@@ -54,22 +64,24 @@ public class PromoteArtifactBundleAction {
             throw new IllegalArgumentException("Channel reference has to use Maven GA.");
         }
 
-        try (final ArtifactBundle extracted = ArtifactBundle.extract(archive)) {
+        try (final ArtifactBundle bundle = ArtifactBundle.open(archive)) {
             console.println(Messages.MESSAGES.promotingArtifacts(targetRepository));
-            for (ArtifactCoordinate artifact : extracted.getArtifactList()) {
+            for (ArtifactCoordinate artifact : bundle.getArtifactList()) {
                 console.println("  * " + String.format("%s:%s:%s", artifact.getGroupId(), artifact.getArtifactId(), artifact.getVersion()));
             }
             final MavenSessionManager msm = new MavenSessionManager();
-            final RepositorySystem system = msm.newRepositorySystem();
+            final RepositorySystem system = msm.getRepositorySystem();
             final DefaultRepositorySystemSession session = msm.newRepositorySystemSession(system);
 
-            RemoteRepository sourceRepo = new RemoteRepository.Builder("source-repo", "default", extracted.getRepository().toUri().toURL().toString()).build();
-            RemoteRepository targetRepo = new RemoteRepository.Builder("target-repo", "default", targetRepository.toString()).build();
+            final List<Artifact> artifacts = bundle.resolveArtifacts();
+            RemoteRepository targetRepo = new RemoteRepository.Builder("target-repo", "default", targetRepository.toString())
+                    .setAuthentication(authentication)
+                    .build();
 
             final ArtifactPromoter promoter = new ArtifactPromoter(system, session, targetRepo);
             try {
-                promoter.promote(extracted.getArtifactList(), new ChannelCoordinate(coordinate.getGav().split(":")[0], coordinate.getGav().split(":")[1]), sourceRepo);
-            } catch (IOException | ArtifactResolutionException | DeploymentException e) {
+                promoter.promote(artifacts, new ChannelCoordinate(coordinate.getGav().split(":")[0], coordinate.getGav().split(":")[1]));
+            } catch (IOException | DeploymentException e) {
                 throw new ArtifactPromoteException("Unable to promote artifacts to " + targetRepository, e);
             }
         } catch (IOException e) {
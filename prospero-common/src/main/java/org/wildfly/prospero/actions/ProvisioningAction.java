@@ -137,6 +137,7 @@ public class ProvisioningAction {
 
         try (final InstallationMetadata installationMetadata = new InstallationMetadata(home, channel, channelRefs, repositories)) {
             installationMetadata.recordProvision(true);
+            installationMetadata.pinArtifacts(mavenSessionManager.getProvisioningRepo());
         }
     }
 
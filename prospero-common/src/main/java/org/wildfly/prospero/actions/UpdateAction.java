@@ -17,22 +17,42 @@
 
 package org.wildfly.prospero.actions;
 
+import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.installation.InstallRequest;
+import org.eclipse.aether.installation.InstallationException;
+import org.jboss.galleon.layout.ProvisioningPlan;
+import org.jboss.logging.Logger;
+import org.wildfly.channel.Channel;
+import org.wildfly.channel.Stream;
 import org.wildfly.channel.UnresolvedMavenArtifactException;
+import org.wildfly.prospero.Messages;
+import org.wildfly.prospero.api.ArtifactChange;
 import org.wildfly.prospero.api.InstallationMetadata;
 import org.wildfly.prospero.api.exceptions.MetadataException;
 import org.wildfly.prospero.api.exceptions.ArtifactResolutionException;
 import org.wildfly.prospero.api.exceptions.OperationException;
 import org.wildfly.prospero.galleon.GalleonEnvironment;
 import org.wildfly.prospero.galleon.GalleonUtils;
+import org.wildfly.prospero.installation.InstalledArtifactsScanner;
+import org.wildfly.prospero.model.InstalledArtifact;
+import org.wildfly.prospero.model.InstalledArtifactsIndex;
 import org.wildfly.prospero.model.ProsperoConfig;
 import org.wildfly.prospero.model.RepositoryRef;
+import org.wildfly.prospero.promotion.ArtifactBundle;
 import org.wildfly.prospero.updates.UpdateFinder;
 import org.wildfly.prospero.updates.UpdateSet;
 import org.wildfly.prospero.wfchannel.MavenSessionManager;
@@ -41,12 +61,18 @@ import org.jboss.galleon.ProvisioningManager;
 
 public class UpdateAction implements AutoCloseable {
 
-    private final InstallationMetadata metadata;
+    private static final Logger logger = Logger.getLogger(UpdateAction.class);
+
+    private final Path installDir;
+    private InstallationMetadata metadata;
 
     private final Console console;
     private final MavenSessionManager mavenSessionManager;
-    private final GalleonEnvironment galleonEnv;
+    private GalleonEnvironment galleonEnv;
     private final ProsperoConfig prosperoConfig;
+    // set if the update is applied from an update bundle
+    private final Path updateBundle;
+    private final Channel bundleManifest;
 
     public UpdateAction(Path installDir, MavenSessionManager mavenSessionManager, Console console) throws ProvisioningException, OperationException {
         this(installDir, mavenSessionManager, console, Collections.emptyList());
@@ -56,18 +82,109 @@ public class UpdateAction implements AutoCloseable {
     // TODO: evaluate in GA - replace by repository:add / custom channels?
     public UpdateAction(Path installDir, MavenSessionManager mavenSessionManager, Console console, List<URL> additionalRepositories)
             throws ProvisioningException, OperationException {
-        this.metadata = new InstallationMetadata(installDir);
+        this.installDir = installDir;
+        // the exclusive lock is acquired only when the updates are applied, so that updates can be listed concurrently
+        this.metadata = InstallationMetadata.readOnly(installDir);
+
+        try {
+            this.prosperoConfig = addTemporaryRepositories(additionalRepositories);
+            this.updateBundle = null;
+            this.bundleManifest = null;
+            galleonEnv = GalleonEnvironment
+                    .builder(installDir, prosperoConfig, mavenSessionManager)
+                    .setConsole(console)
+                    .build();
+        } catch (ProvisioningException | OperationException | RuntimeException e) {
+            metadata.close();
+            throw e;
+        }
+        this.mavenSessionManager = mavenSessionManager;
+        this.console = console;
+    }
+
+    /**
+     * Applies an update bundle created by {@link UpdateBundleAction} without accessing remote repositories. Artifacts
+     * not changed by the update are taken from the installation itself or from the local repository.
+     * <p>
+     * The bundle's artifacts are installed in the local repository only once the update is confirmed.
+     */
+    public UpdateAction(Path installDir, Path updateBundle, MavenSessionManager mavenSessionManager, Console console)
+            throws ProvisioningException, OperationException {
+        this.installDir = installDir;
+        this.metadata = InstallationMetadata.readOnly(installDir);
+
+        try {
+            this.updateBundle = updateBundle;
+            this.bundleManifest = readUpdateBundle(updateBundle);
+            // the bundle manifest pins all artifact versions, channels don't need to be resolved
+            this.prosperoConfig = new ProsperoConfig(Collections.emptyList(), metadata.getProsperoConfig().getRepositories());
+        } catch (OperationException | RuntimeException e) {
+            metadata.close();
+            throw e;
+        }
+        this.mavenSessionManager = mavenSessionManager;
+        this.console = console;
+    }
+
+    private static Channel readUpdateBundle(Path updateBundle) throws MetadataException {
+        try (ArtifactBundle bundle = ArtifactBundle.open(updateBundle)) {
+            final Optional<Channel> manifest = bundle.getManifest();
+            if (manifest.isEmpty()) {
+                throw Messages.MESSAGES.notAnUpdateBundle(updateBundle);
+            }
+            return manifest.get();
+        } catch (IOException e) {
+            throw Messages.MESSAGES.unableToApplyUpdateBundle(updateBundle, e);
+        }
+    }
+
+    private void installUpdateBundle() throws ProvisioningException, OperationException {
+        mavenSessionManager.setOffline(true);
+        final RepositorySystem system = mavenSessionManager.getRepositorySystem();
+        final DefaultRepositorySystemSession session = mavenSessionManager.newRepositorySystemSession(system);
+
+        try (ArtifactBundle bundle = ArtifactBundle.open(updateBundle)) {
+            final InstallRequest request = new InstallRequest();
+            final Set<String> bundled = new HashSet<>();
+            for (Artifact artifact : bundle.resolveArtifacts()) {
+                request.addArtifact(artifact);
+                bundled.add(artifact.getGroupId() + ":" + artifact.getArtifactId());
+            }
+
+            final Optional<InstalledArtifactsIndex> installed = metadata.getInstalledArtifacts();
+            if (installed.isPresent()) {
+                for (InstalledArtifact installedArtifact : installed.get().getArtifacts()) {
+                    final Artifact artifact = installedArtifact.toArtifact();
+                    final boolean unchanged = bundleManifest.findStreamFor(artifact.getGroupId(), artifact.getArtifactId())
+                            .map(s -> artifact.getVersion().equals(s.getVersion()))
+                            .orElse(false);
+                    if (!unchanged || bundled.contains(artifact.getGroupId() + ":" + artifact.getArtifactId())) {
+                        continue;
+                    }
+                    final Path file = installDir.resolve(installedArtifact.getPath());
+                    if (!InstalledArtifactsScanner.isUnmodified(file, installedArtifact)) {
+                        logger.warnf("%s has been modified since it was installed, it will be resolved from the local repository instead",
+                                installedArtifact.getPath());
+                        continue;
+                    }
+                    request.addArtifact(artifact.setFile(file.toFile()));
+                }
+            }
+
+            // has to happen before the bundle is closed, as that removes the files copied out of the archive
+            system.install(session, request);
+        } catch (IOException | InstallationException e) {
+            throw Messages.MESSAGES.unableToApplyUpdateBundle(updateBundle, e);
+        }
 
-        this.prosperoConfig = addTemporaryRepositories(additionalRepositories);
         galleonEnv = GalleonEnvironment
                 .builder(installDir, prosperoConfig, mavenSessionManager)
                 .setConsole(console)
+                .setRestoreManifest(bundleManifest)
                 .build();
-        this.mavenSessionManager = mavenSessionManager;
-        this.console = console;
     }
 
-    private ProsperoConfig addTemporaryRepositories(List<URL> additionalRepositories) {
+    private ProsperoConfig addTemporaryRepositories(List<URL> additionalRepositories) throws MetadataException {
         final ProsperoConfig prosperoConfig = metadata.getProsperoConfig();
         int i = 0;
         final Set<String> existingRepos = prosperoConfig.getRepositories().stream().map(RepositoryRef::getUrl).collect(Collectors.toSet());
@@ -79,7 +196,7 @@ public class UpdateAction implements AutoCloseable {
         return prosperoConfig;
     }
 
-    public void doUpdateAll(boolean confirmed) throws ProvisioningException, MetadataException, ArtifactResolutionException {
+    public void doUpdateAll(boolean confirmed) throws ProvisioningException, OperationException {
         final UpdateSet updateSet = findUpdates();
 
         console.updatesFound(updateSet.getFpUpdates().getUpdates(), updateSet.getArtifactUpdates());
@@ -91,22 +208,46 @@ public class UpdateAction implements AutoCloseable {
             return;
         }
 
+        lockForUpdate();
+
+        if (updateBundle != null) {
+            installUpdateBundle();
+        }
+
         applyUpdates();
 
         metadata.recordProvision(false);
+        metadata.pinArtifacts(mavenSessionManager.getProvisioningRepo());
 
         console.updatesComplete();
     }
 
-    public void listUpdates() throws ArtifactResolutionException, ProvisioningException {
+    private void lockForUpdate() throws MetadataException {
+        final Channel manifest = metadata.getManifest();
+        metadata.close();
+        metadata = new InstallationMetadata(installDir);
+        // the installation could have been changed while the updates were found
+        if (!new HashSet<>(manifest.getStreams()).equals(new HashSet<>(metadata.getManifest().getStreams()))) {
+            throw Messages.MESSAGES.installationChangedConcurrently(installDir);
+        }
+    }
+
+    public void listUpdates() throws ArtifactResolutionException, ProvisioningException, MetadataException {
         final UpdateSet updateSet = findUpdates();
 
         console.updatesFound(updateSet.getFpUpdates().getUpdates(), updateSet.getArtifactUpdates());
     }
 
-    protected UpdateSet findUpdates() throws ArtifactResolutionException, ProvisioningException {
-        try (final UpdateFinder updateFinder = new UpdateFinder(galleonEnv.getChannelSession(), galleonEnv.getProvisioningManager())) {
-            return updateFinder.findUpdates(metadata.getArtifacts());
+    protected UpdateSet findUpdates() throws ArtifactResolutionException, ProvisioningException, MetadataException {
+        if (bundleManifest != null) {
+            return new UpdateSet(ProvisioningPlan.builder(), compareWithBundle());
+        }
+        final Integer maxParallelDownloads = mavenSessionManager.getDownloadSettings().getMaxParallelDownloads();
+        final int parallelism = maxParallelDownloads == null ? UpdateFinder.UPDATES_SEARCH_PARALLELISM : maxParallelDownloads;
+        try (final UpdateFinder updateFinder = new UpdateFinder(galleonEnv.getChannelSession(), galleonEnv.getProvisioningManager(),
+                parallelism)) {
+            galleonEnv.getMetadataPrefetcher().prefetch(metadata.getArtifacts());
+            return updateFinder.findUpdates(metadata.getArtifacts(), console.getUpdateListener());
         }
     }
 
@@ -119,7 +260,30 @@ public class UpdateAction implements AutoCloseable {
             throw new ArtifactResolutionException(e, prosperoConfig.getRemoteRepositories(), mavenSessionManager.isOffline());
         }
 
-        metadata.setChannel(galleonEnv.getRepositoryManager().resolvedChannel());
+        metadata.setChannel(bundleManifest != null ? bundleManifest : galleonEnv.getRepositoryManager().resolvedChannel());
+    }
+
+    private List<ArtifactChange> compareWithBundle() throws MetadataException {
+        final List<ArtifactChange> changes = new ArrayList<>();
+        final Channel manifest = metadata.getManifest();
+        for (Stream stream : manifest.getStreams()) {
+            final Optional<Stream> updated = bundleManifest.findStreamFor(stream.getGroupId(), stream.getArtifactId());
+            if (updated.isEmpty()) {
+                changes.add(new ArtifactChange(toArtifact(stream), null));
+            } else if (!updated.get().getVersion().equals(stream.getVersion())) {
+                changes.add(new ArtifactChange(toArtifact(stream), toArtifact(updated.get())));
+            }
+        }
+        for (Stream stream : bundleManifest.getStreams()) {
+            if (manifest.findStreamFor(stream.getGroupId(), stream.getArtifactId()).isEmpty()) {
+                changes.add(new ArtifactChange(null, toArtifact(stream)));
+            }
+        }
+        return changes;
+    }
+
+    private static Artifact toArtifact(Stream stream) {
+        return new DefaultArtifact(stream.getGroupId(), stream.getArtifactId(), "jar", stream.getVersion());
     }
 
     @Override
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.actions;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.wildfly.channel.ArtifactCoordinate;
+import org.wildfly.channel.Channel;
+import org.wildfly.channel.ChannelSession;
+import org.wildfly.channel.MavenArtifact;
+import org.wildfly.channel.Stream;
+import org.wildfly.channel.UnresolvedMavenArtifactException;
+import org.wildfly.channel.maven.VersionResolverFactory;
+import org.wildfly.prospero.api.ArtifactChange;
+import org.wildfly.prospero.api.InstallationMetadata;
+import org.wildfly.prospero.api.exceptions.ArtifactResolutionException;
+import org.wildfly.prospero.api.exceptions.MetadataException;
+import org.wildfly.prospero.api.exceptions.OperationException;
+import org.wildfly.prospero.model.ChannelRef;
+import org.wildfly.prospero.promotion.ArtifactBundle;
+import org.wildfly.prospero.wfchannel.ChannelRefMapper;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates update bundles for installations without access to Maven repositories. The bundle contains only artifacts
+ * that changed between the installation's manifest and the target channel, the installation's feature packs and the
+ * manifest of the updated installation.
+ */
+public class UpdateBundleAction {
+
+    private final MavenSessionManager mavenSessionManager;
+    private final List<RemoteRepository> repositories;
+
+    public UpdateBundleAction(MavenSessionManager mavenSessionManager, List<RemoteRepository> repositories) {
+        this.mavenSessionManager = mavenSessionManager;
+        this.repositories = repositories;
+    }
+
+    /**
+     * @param installation - metadata of the installation that will be updated, e.g. imported from an exported metadata bundle
+     * @param targetChannel - the channel the installation should be updated to
+     * @param archive - target file
+     * @return changes included in the bundle. If empty, the bundle is not created.
+     */
+    public List<ArtifactChange> createBundle(InstallationMetadata installation, ChannelRef targetChannel, Path archive)
+            throws OperationException, IOException {
+        Objects.requireNonNull(installation);
+        Objects.requireNonNull(targetChannel);
+        Objects.requireNonNull(archive);
+
+        final Channel manifest = installation.getManifest();
+        final Set<String> featurePacks = featurePackGAs(installation);
+
+        final RepositorySystem system = mavenSessionManager.getRepositorySystem();
+        final DefaultRepositorySystemSession session = mavenSessionManager.newRepositorySystemSession(system);
+        final VersionResolverFactory factory = new VersionResolverFactory(system, session, repositories);
+        final List<Channel> channels = new ChannelRefMapper(factory).mapToChannel(Collections.singletonList(targetChannel));
+
+        final List<ArtifactChange> changes = new ArrayList<>();
+        final List<ArtifactCoordinate> bundled = new ArrayList<>();
+        final List<Stream> streams = new ArrayList<>();
+        try (ChannelSession channelSession = new ChannelSession(channels, factory)) {
+            for (Stream stream : manifest.getStreams()) {
+                final String ga = stream.getGroupId() + ":" + stream.getArtifactId();
+                // manifest doesn't record extensions, feature packs are the only non-jar artifacts
+                final String extension = featurePacks.contains(ga) ? "zip" : "jar";
+                final Artifact current = new DefaultArtifact(stream.getGroupId(), stream.getArtifactId(), extension, stream.getVersion());
+
+                final String latestVersion;
+                try {
+                    latestVersion = channelSession.findLatestMavenArtifactVersion(stream.getGroupId(), stream.getArtifactId(),
+                            extension, null, null);
+                } catch (UnresolvedMavenArtifactException e) {
+                    changes.add(new ArtifactChange(current, null));
+                    continue;
+                }
+
+                final boolean changed = latestVersion != null && !latestVersion.equals(stream.getVersion());
+                final String version = changed ? latestVersion : stream.getVersion();
+                if (changed) {
+                    changes.add(new ArtifactChange(current, new DefaultArtifact(stream.getGroupId(), stream.getArtifactId(), extension, version)));
+                }
+                // Galleon needs all feature packs to apply the update, even if they didn't change
+                if (changed || featurePacks.contains(ga)) {
+                    bundled.add(new ArtifactCoordinate(stream.getGroupId(), stream.getArtifactId(), extension, "", version));
+                }
+                streams.add(new Stream(stream.getGroupId(), stream.getArtifactId(), version));
+            }
+
+            if (changes.isEmpty()) {
+                return changes;
+            }
+
+            final List<Artifact> artifacts = channelSession.resolveDirectMavenArtifacts(bundled).stream()
+                    .map(UpdateBundleAction::toArtifact)
+                    .collect(Collectors.toList());
+
+            final Channel updated = new Channel(manifest.getName(), manifest.getDescription(), manifest.getVendor(),
+                    manifest.getChannelRequirements(), streams);
+            ArtifactBundle.createUpdateArchive(artifacts, updated, archive.toFile());
+        } catch (UnresolvedMavenArtifactException e) {
+            throw new ArtifactResolutionException(e, repositories, mavenSessionManager.isOffline());
+        }
+        return changes;
+    }
+
+    static Set<String> featurePackGAs(InstallationMetadata installation) throws MetadataException {
+        return installation.getGalleonProvisioningConfig().getFeaturePackDeps().stream()
+                .map(FeaturePackConfig::getLocation)
+                .map(fpl -> fpl.getProducerName().split(":"))
+                .filter(parts -> parts.length > 1)
+                .map(parts -> parts[0] + ":" + parts[1])
+                .collect(Collectors.toSet());
+    }
+
+    private static Artifact toArtifact(MavenArtifact artifact) {
+        return new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), artifact.getClassifier(),
+                artifact.getExtension(), artifact.getVersion()).setFile(artifact.getFile());
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.actions;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.wildfly.prospero.Messages;
+import org.wildfly.prospero.api.ArtifactDrift;
+import org.wildfly.prospero.api.InstallationMetadata;
+import org.wildfly.prospero.api.exceptions.MetadataException;
+import org.wildfly.prospero.installation.InstallationVerifier;
+import org.wildfly.prospero.model.InstalledArtifactsIndex;
+
+/**
+ * Checks that artifact files in the installation were not changed since they were provisioned.
+ */
+public class VerifyAction {
+
+    private final Path installation;
+
+    public VerifyAction(Path installation) {
+        this.installation = installation;
+    }
+
+    public List<ArtifactDrift> verify(boolean fast) throws MetadataException {
+        try (final InstallationMetadata metadata = InstallationMetadata.readOnly(installation)) {
+            final Optional<InstalledArtifactsIndex> index = metadata.getInstalledArtifacts();
+            if (index.isEmpty()) {
+                throw Messages.MESSAGES.noInstalledArtifactsIndex(installation);
+            }
+
+            return new InstallationVerifier(installation).verify(index.get(), metadata.getManifest(), fast);
+        } catch (IOException e) {
+            throw new MetadataException("Unable to verify installed artifacts", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.api;
+
+import java.util.Objects;
+
+/**
+ * Difference between an installed artifact file and the state recorded when the installation was provisioned.
+ */
+public class ArtifactDrift {
+
+    public enum Type {
+        MISSING,
+        MODIFIED,
+        UNEXPECTED_VERSION
+    }
+
+    private final Type type;
+    private final String gav;
+    private final String path;
+    private final String expected;
+    private final String actual;
+
+    public ArtifactDrift(Type type, String gav, String path, String expected, String actual) {
+        this.type = type;
+        this.gav = gav;
+        this.path = path;
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getGav() {
+        return gav;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getExpected() {
+        return expected;
+    }
+
+    public String getActual() {
+        return actual;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ArtifactDrift that = (ArtifactDrift) o;
+        return type == that.type && Objects.equals(gav, that.gav) && Objects.equals(path, that.path)
+                && Objects.equals(expected, that.expected) && Objects.equals(actual, that.actual);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, gav, path, expected, actual);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s\t%s\t%s\t%s\t%s", type, gav, path,
+                expected == null ? "" : expected, actual == null ? "" : actual);
+    }
+}
@@ -18,36 +18,51 @@
 package org.wildfly.prospero.api;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.wildfly.prospero.Messages;
 import org.wildfly.prospero.api.exceptions.MetadataException;
+import org.wildfly.prospero.installation.InstallationLock;
+import org.wildfly.prospero.installation.InstalledArtifactsScanner;
+import org.wildfly.prospero.installation.PinnedArtifacts;
 import org.wildfly.prospero.installation.git.GitStorage;
 import org.wildfly.prospero.model.ChannelRef;
+import org.wildfly.prospero.model.DownloadSettings;
+import org.wildfly.prospero.model.InstalledArtifactsIndex;
 import org.wildfly.prospero.model.ManifestYamlSupport;
 import org.wildfly.prospero.model.ProsperoConfig;
 import org.wildfly.prospero.model.RepositoryRef;
+import org.wildfly.prospero.promotion.ArtifactBundle;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.repository.RemoteRepository;
+import org.jboss.galleon.ProvisioningDescriptionException;
 import org.jboss.galleon.ProvisioningException;
 import org.jboss.galleon.xml.ProvisioningXmlParser;
 import org.wildfly.channel.Channel;
+import org.wildfly.channel.ChannelMapper;
+import org.wildfly.channel.InvalidChannelException;
 import org.wildfly.channel.Stream;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
+import javax.xml.stream.XMLStreamException;
+
 public class InstallationMetadata implements AutoCloseable {
 
     public static final String METADATA_DIR = ".installation";
@@ -58,51 +73,91 @@ public class InstallationMetadata implements AutoCloseable {
     public static final String PROSPERO_CONFIG_FILE_NAME = "installer-config.yaml";
     public static final String PROVISIONING_FILE_NAME = "provisioning.xml";
     public static final String GALLEON_INSTALLATION_DIR = ".galleon";
+    public static final String INSTALLED_ARTIFACTS_FILE_NAME = "installed-artifacts.yaml";
     private final Path manifestFile;
     private final Path readmeFile;
     private final Path prosperoConfigFile;
     private final Path provisioningFile;
+    private final Path installedArtifactsFile;
     private Channel manifest;
     private org.jboss.galleon.config.ProvisioningConfig galleonProvisioningConfig;
     private List<ChannelRef> channelRefs;
     private List<RemoteRepository> repositories;
-    private final GitStorage gitStorage;
+    private DownloadSettings downloads;
+    private GitStorage gitStorage;
+    private InstallationLock lock;
     private final Path base;
+    private final boolean readOnly;
+
+    /**
+     * Metadata imported from a bundle is not backed by files, it can be read only.
+     */
+    private InstallationMetadata(Path bundle, Channel manifest, ProsperoConfig prosperoConfig,
+                                 org.jboss.galleon.config.ProvisioningConfig provisioningConfig) {
+        this(bundle, true);
+        this.manifest = manifest;
+        this.channelRefs = prosperoConfig.getChannels();
+        this.repositories = prosperoConfig.getRemoteRepositories();
+        this.downloads = prosperoConfig.getDownloads();
+        this.galleonProvisioningConfig = provisioningConfig;
+    }
 
-    private InstallationMetadata(Path manifestFile, Path prosperoConfigFile, Path provisioningFile) throws MetadataException {
-        this.base = manifestFile.getParent();
+    private InstallationMetadata(Path base, boolean readOnly) {
+        this.base = base;
         this.gitStorage = null;
-        this.manifestFile = manifestFile;
+        this.readOnly = readOnly;
+        this.manifestFile = base.resolve(METADATA_DIR).resolve(InstallationMetadata.MANIFEST_FILE_NAME);
         this.readmeFile = base.resolve(METADATA_DIR).resolve(InstallationMetadata.README_FILE_NAME);
-        this.prosperoConfigFile = prosperoConfigFile;
-        this.provisioningFile = provisioningFile;
+        this.prosperoConfigFile = base.resolve(METADATA_DIR).resolve(InstallationMetadata.PROSPERO_CONFIG_FILE_NAME);
+        this.provisioningFile = base.resolve(GALLEON_INSTALLATION_DIR).resolve(InstallationMetadata.PROVISIONING_FILE_NAME);
+        this.installedArtifactsFile = base.resolve(METADATA_DIR).resolve(InstallationMetadata.INSTALLED_ARTIFACTS_FILE_NAME);
+    }
 
-        doInit(manifestFile, prosperoConfigFile, provisioningFile);
+    /**
+     * Opens the installation metadata for reading only. Metadata files are parsed on first access and
+     * the history repository is opened only if revisions or changes are requested.
+     * <p>
+     * Holds a shared {@link InstallationLock} until closed, so that the installation can't be modified in the meantime.
+     */
+    public static InstallationMetadata readOnly(Path base) throws MetadataException {
+        final InstallationMetadata metadata = new InstallationMetadata(base, true);
+        // nothing to protect if there is no installation yet
+        if (Files.isDirectory(base.resolve(METADATA_DIR))) {
+            metadata.lock = InstallationLock.shared(base);
+        }
+        return metadata;
     }
 
+    /**
+     * Opens the installation metadata for modification. Holds an exclusive {@link InstallationLock} until closed.
+     */
     public InstallationMetadata(Path base) throws MetadataException {
-        this(base, new GitStorage(base));
+        this(base, null);
     }
 
     protected InstallationMetadata(Path base, GitStorage gitStorage) throws MetadataException {
-        this.base = base;
-        this.gitStorage = gitStorage;
-        this.manifestFile = base.resolve(METADATA_DIR).resolve(InstallationMetadata.MANIFEST_FILE_NAME);
-        this.readmeFile = base.resolve(METADATA_DIR).resolve(InstallationMetadata.README_FILE_NAME);
-        this.prosperoConfigFile = base.resolve(METADATA_DIR).resolve(InstallationMetadata.PROSPERO_CONFIG_FILE_NAME);
-        this.provisioningFile = base.resolve(GALLEON_INSTALLATION_DIR).resolve(InstallationMetadata.PROVISIONING_FILE_NAME);
+        this(base, false);
+        this.lock = InstallationLock.exclusive(base);
+        try {
+            this.gitStorage = gitStorage == null ? new GitStorage(base) : gitStorage;
 
-        doInit(manifestFile, prosperoConfigFile, provisioningFile);
+            doInit();
+        } catch (MetadataException | RuntimeException e) {
+            lock.close();
+            throw e;
+        }
     }
 
     public InstallationMetadata(Path base, Channel manifest, List<ChannelRef> channelRefs,
                                 List<RemoteRepository> repositories) throws MetadataException {
-        this.base = base;
-        this.gitStorage = new GitStorage(base);
-        this.manifestFile = base.resolve(METADATA_DIR).resolve(InstallationMetadata.MANIFEST_FILE_NAME);
-        this.readmeFile = base.resolve(METADATA_DIR).resolve(InstallationMetadata.README_FILE_NAME);
-        this.prosperoConfigFile = base.resolve(METADATA_DIR).resolve(InstallationMetadata.PROSPERO_CONFIG_FILE_NAME);
-        this.provisioningFile = base.resolve(GALLEON_INSTALLATION_DIR).resolve(InstallationMetadata.PROVISIONING_FILE_NAME);
+        this(base, false);
+        this.lock = InstallationLock.exclusive(base);
+        try {
+            this.gitStorage = new GitStorage(base);
+        } catch (MetadataException | RuntimeException e) {
+            lock.close();
+            throw e;
+        }
 
         this.manifest = manifest;
         this.channelRefs = channelRefs;
@@ -110,24 +165,38 @@ public class InstallationMetadata implements AutoCloseable {
         try {
             this.galleonProvisioningConfig = ProvisioningXmlParser.parse(provisioningFile);
         } catch (ProvisioningException e) {
+            close();
             throw new MetadataException("Error when parsing installation metadata", e);
         }
     }
 
-    private void doInit(Path manifestFile, Path provisionConfig, Path provisioningFile) throws MetadataException {
+    private void doInit() throws MetadataException {
+        loadManifest();
+        loadProsperoConfig();
+        loadGalleonProvisioningConfig();
+    }
+
+    private void loadManifest() throws MetadataException {
         try {
             this.manifest = ManifestYamlSupport.parse(manifestFile.toFile());
         } catch (IOException e) {
             throw Messages.MESSAGES.unableToParseConfiguration(manifestFile.toString(), e);
         }
+    }
+
+    private void loadProsperoConfig() throws MetadataException {
         try {
-            final ProsperoConfig prosperoConfig = ProsperoConfig.readConfig(provisionConfig);
+            final ProsperoConfig prosperoConfig = ProsperoConfig.readConfig(prosperoConfigFile);
             this.channelRefs = prosperoConfig.getChannels();
             this.repositories = prosperoConfig.getRepositories()
                     .stream().map(r -> r.toRemoteRepository()).collect(Collectors.toList());
+            this.downloads = prosperoConfig.getDownloads();
         } catch (IOException e) {
-            throw Messages.MESSAGES.unableToParseConfiguration(provisionConfig.toString(), e);
+            throw Messages.MESSAGES.unableToParseConfiguration(prosperoConfigFile.toString(), e);
         }
+    }
+
+    private void loadGalleonProvisioningConfig() throws MetadataException {
         try {
             this.galleonProvisioningConfig = ProvisioningXmlParser.parse(provisioningFile);
         } catch (ProvisioningException e) {
@@ -136,42 +205,60 @@ public class InstallationMetadata implements AutoCloseable {
     }
 
     public static InstallationMetadata importMetadata(Path location) throws IOException, MetadataException {
-        Path manifestFile = null;
-        Path provisionConfigFile = null;
-        Path provisioningFile = null;
+        Channel manifest = null;
+        ProsperoConfig prosperoConfig = null;
+        org.jboss.galleon.config.ProvisioningConfig provisioningConfig = null;
 
-        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(location.toFile()))) {
+        // entries are parsed directly from the archive, parsers must not close the shared zip stream
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(location))) {
             ZipEntry entry;
             while ((entry = zis.getNextEntry()) != null) {
+                final String entryPath = location + "!/" + entry.getName();
 
                 if (entry.getName().equals(MANIFEST_FILE_NAME)) {
-                    manifestFile = Files.createTempFile("manifest", "yaml");
-                    Files.copy(zis, manifestFile, StandardCopyOption.REPLACE_EXISTING);
-                    manifestFile.toFile().deleteOnExit();
+                    try {
+                        manifest = ChannelMapper.fromString(new String(zis.readAllBytes(), StandardCharsets.UTF_8)).get(0);
+                    } catch (InvalidChannelException | IndexOutOfBoundsException e) {
+                        throw Messages.MESSAGES.unableToParseConfiguration(entryPath, e);
+                    }
                 }
 
                 if (entry.getName().equals(PROSPERO_CONFIG_FILE_NAME)) {
-                    provisionConfigFile = Files.createTempFile("channels", "yaml");
-                    Files.copy(zis, provisionConfigFile, StandardCopyOption.REPLACE_EXISTING);
-                    provisionConfigFile.toFile().deleteOnExit();
+                    try {
+                        prosperoConfig = ProsperoConfig.readConfig(CloseShieldInputStream.wrap(zis));
+                    } catch (IOException e) {
+                        throw Messages.MESSAGES.unableToParseConfiguration(entryPath, e);
+                    }
                 }
 
                 if (entry.getName().equals(PROVISIONING_FILE_NAME)) {
-                    provisioningFile = Files.createTempFile("provisioning", "xml");
-                    Files.copy(zis, provisioningFile, StandardCopyOption.REPLACE_EXISTING);
-                    provisioningFile.toFile().deleteOnExit();
+                    try (Reader reader = new InputStreamReader(CloseShieldInputStream.wrap(zis), StandardCharsets.UTF_8)) {
+                        provisioningConfig = ProvisioningXmlParser.getInstance().parse(reader);
+                    } catch (XMLStreamException | ProvisioningDescriptionException e) {
+                        throw Messages.MESSAGES.unableToParseConfiguration(entryPath, e);
+                    }
                 }
             }
         }
 
-        if (manifestFile == null || provisionConfigFile == null || provisioningFile == null) {
+        if (manifest == null || prosperoConfig == null || provisioningConfig == null) {
             throw new IllegalArgumentException("Provided metadata bundle is missing one or more entries");
         }
 
-        return new InstallationMetadata(manifestFile, provisionConfigFile, provisioningFile);
+        return new InstallationMetadata(location, manifest, prosperoConfig, provisioningConfig);
     }
 
     public Path exportMetadataBundle(Path location) throws IOException {
+        return exportMetadataBundle(location, Collections.emptyList());
+    }
+
+    /**
+     * Exports the metadata together with artifacts, e.g. the installation's resolved artifacts. The artifacts are
+     * stored in the same layout as a customization bundle, see {@link ArtifactBundle}.
+     *
+     * @param artifacts - artifacts with files to be included in the bundle, can be empty
+     */
+    public Path exportMetadataBundle(Path location, List<? extends Artifact> artifacts) throws IOException {
         final File file = location.toFile();
 
         try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(file))) {
@@ -204,19 +291,30 @@ public class InstallationMetadata implements AutoCloseable {
                 }
             }
             zos.closeEntry();
+
+            if (!artifacts.isEmpty()) {
+                ArtifactBundle.writeArtifacts(artifacts, zos);
+            }
         }
         return file.toPath();
     }
 
-    public Channel getManifest() {
+    public Channel getManifest() throws MetadataException {
+        if (manifest == null && readOnly) {
+            loadManifest();
+        }
         return manifest;
     }
 
-    public org.jboss.galleon.config.ProvisioningConfig getGalleonProvisioningConfig() {
+    public org.jboss.galleon.config.ProvisioningConfig getGalleonProvisioningConfig() throws MetadataException {
+        if (galleonProvisioningConfig == null && readOnly) {
+            loadGalleonProvisioningConfig();
+        }
         return galleonProvisioningConfig;
     }
 
     public void recordProvision(boolean overrideProsperoConfig) throws MetadataException {
+        checkWritable();
         try {
             ManifestYamlSupport.write(this.manifest, this.manifestFile);
         } catch (IOException e) {
@@ -235,24 +333,83 @@ public class InstallationMetadata implements AutoCloseable {
             writeProsperoConfig();
         }
 
+        writeInstalledArtifacts();
+
         gitStorage.record();
     }
 
+    /**
+     * Re-creates the index of installed artifact files, e.g. after the installation was reverted to a previous state.
+     */
+    public void recordInstalledArtifacts() throws MetadataException {
+        checkWritable();
+        writeInstalledArtifacts();
+    }
+
+    private void writeInstalledArtifacts() throws MetadataException {
+        InstalledArtifactsIndex previous = null;
+        if (Files.exists(installedArtifactsFile)) {
+            try {
+                previous = InstalledArtifactsIndex.read(installedArtifactsFile);
+            } catch (IOException e) {
+                // the index is re-created from scratch
+                previous = null;
+            }
+        }
+        try {
+            final InstalledArtifactsIndex index = new InstalledArtifactsScanner(base).scan(manifest, previous);
+            index.write(installedArtifactsFile.toFile());
+        } catch (IOException e) {
+            throw new MetadataException("Unable to record installed artifacts", e);
+        }
+    }
+
+    /**
+     * Index of artifact files installed in the server, recorded during the last provisioning operation.
+     *
+     * @return the index or {@code Optional.empty()} if the installation doesn't have one
+     */
+    public Optional<InstalledArtifactsIndex> getInstalledArtifacts() throws MetadataException {
+        if (!Files.exists(installedArtifactsFile)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(InstalledArtifactsIndex.read(installedArtifactsFile));
+        } catch (IOException e) {
+            throw Messages.MESSAGES.unableToParseConfiguration(installedArtifactsFile.toString(), e);
+        }
+    }
+
     private void writeProsperoConfig() throws MetadataException {
         try {
             final ProsperoConfig prosperoConfig = new ProsperoConfig(this.channelRefs,
-                    repositories.stream().map(r -> new RepositoryRef(r.getId(), r.getUrl())).collect(Collectors.toList()));
+                    repositories.stream().map(r -> new RepositoryRef(r.getId(), r.getUrl())).collect(Collectors.toList()),
+                    downloads);
             prosperoConfig.writeConfig(this.prosperoConfigFile.toFile());
         } catch (IOException e) {
             throw new MetadataException("Unable to save channel list in installation", e);
         }
     }
 
+    private void checkWritable() {
+        if (readOnly) {
+            throw Messages.MESSAGES.metadataOpenedReadOnly(base);
+        }
+    }
+
+    private GitStorage getGitStorage() throws MetadataException {
+        if (gitStorage == null && readOnly) {
+            gitStorage = new GitStorage(base);
+        }
+        return gitStorage;
+    }
+
     public List<SavedState> getRevisions() throws MetadataException {
-        return gitStorage.getRevisions();
+        return getGitStorage().getRevisions();
     }
 
     public InstallationMetadata rollback(SavedState savedState) throws MetadataException {
+        checkWritable();
         // checkout previous version
         // record as rollback operation
         gitStorage.revert(savedState);
@@ -261,24 +418,42 @@ public class InstallationMetadata implements AutoCloseable {
         return new InstallationMetadata(base);
     }
 
+    /**
+     * Keeps the artifacts of the latest saved state available for offline rollback, see {@link PinnedArtifacts}.
+     *
+     * @param sourceRepository - repository the installation's artifacts were resolved into
+     */
+    public void pinArtifacts(Path sourceRepository) throws MetadataException {
+        final List<SavedState> revisions = getRevisions();
+        if (!revisions.isEmpty()) {
+            new PinnedArtifacts(base).pin(revisions.get(0).getName(), getManifest(), sourceRepository);
+        }
+    }
+
+    public void compactHistory() throws MetadataException {
+        checkWritable();
+        gitStorage.compact();
+    }
+
     public List<ArtifactChange> getChangesSince(SavedState savedState) throws MetadataException {
-        return gitStorage.getChanges(savedState);
+        return getGitStorage().getChanges(savedState);
     }
 
     public void setChannel(Channel resolvedChannel) {
+        checkWritable();
         manifest = resolvedChannel;
     }
 
-    public List<Artifact> getArtifacts() {
-        return manifest.getStreams().stream().map(s-> streamToArtifact(s)).collect(Collectors.toList());
+    public List<Artifact> getArtifacts() throws MetadataException {
+        return getManifest().getStreams().stream().map(s-> streamToArtifact(s)).collect(Collectors.toList());
     }
 
     private DefaultArtifact streamToArtifact(Stream s) {
         return new DefaultArtifact(s.getGroupId(), s.getArtifactId(), "jar", s.getVersion());
     }
 
-    public Artifact find(Artifact gav) {
-        for (Stream stream : manifest.getStreams()) {
+    public Artifact find(Artifact gav) throws MetadataException {
+        for (Stream stream : getManifest().getStreams()) {
             if (stream.getGroupId().equals(gav.getGroupId()) && stream.getArtifactId().equals(gav.getArtifactId())) {
                 return streamToArtifact(stream);
             }
@@ -286,13 +461,19 @@ public class InstallationMetadata implements AutoCloseable {
         return null;
     }
 
-    public ProsperoConfig getProsperoConfig() {
-        return new ProsperoConfig(new ArrayList<>(channelRefs), repositories.stream().map(RepositoryRef::new).collect(Collectors.toList()));
+    public ProsperoConfig getProsperoConfig() throws MetadataException {
+        if (channelRefs == null && readOnly) {
+            loadProsperoConfig();
+        }
+        return new ProsperoConfig(new ArrayList<>(channelRefs), repositories.stream().map(RepositoryRef::new).collect(Collectors.toList()),
+                downloads);
     }
 
     public void updateProsperoConfig(ProsperoConfig config) throws MetadataException {
+        checkWritable();
         this.channelRefs = new ArrayList<>(config.getChannels());
         this.repositories = config.getRepositories().stream().map(RepositoryRef::toRemoteRepository).collect(Collectors.toList());
+        this.downloads = config.getDownloads();
 
         writeProsperoConfig();
 
@@ -309,5 +490,8 @@ public class InstallationMetadata implements AutoCloseable {
                 Messages.MESSAGES.unableToCloseStore(e);
             }
         }
+        if (lock != null) {
+            lock.close();
+        }
     }
 }
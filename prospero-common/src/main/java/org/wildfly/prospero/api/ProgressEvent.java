@@ -0,0 +1,95 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.api;
+
+import java.util.Objects;
+
+/**
+ * Structured progress of an operation started by {@link org.wildfly.prospero.actions.AsyncActions}.
+ */
+public class ProgressEvent {
+
+    public enum Type { STARTED, PROGRESS, COMPLETED, FAILED, CANCELLED }
+
+    /**
+     * Stage of artifact downloads. Other stages are named after the Galleon provisioning phases,
+     * e.g. {@code LAYOUT_BUILD}, {@code PACKAGES}, {@code CONFIGS} or {@code JBMODULES}.
+     */
+    public static final String DOWNLOAD = "DOWNLOAD";
+
+    private final String operation;
+    private final String stage;
+    private final Type type;
+    private final String item;
+    private final long processed;
+    private final long total;
+
+    public ProgressEvent(String operation, String stage, Type type, String item, long processed, long total) {
+        this.operation = Objects.requireNonNull(operation);
+        this.stage = stage;
+        this.type = Objects.requireNonNull(type);
+        this.item = item;
+        this.processed = processed;
+        this.total = total;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return stage of the operation, or null if the event concerns the whole operation
+     */
+    public String getStage() {
+        return stage;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return item being processed, e.g. the downloaded resource, or null
+     */
+    public String getItem() {
+        return item;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * @return total volume of the stage, or -1 if not known
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "ProgressEvent{" +
+                "operation='" + operation + '\'' +
+                ", stage='" + stage + '\'' +
+                ", type=" + type +
+                ", item='" + item + '\'' +
+                ", processed=" + processed +
+                ", total=" + total +
+                '}';
+    }
+}
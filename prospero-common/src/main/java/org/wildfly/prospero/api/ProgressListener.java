@@ -15,15 +15,12 @@
  * limitations under the License.
  */
 
-package org.wildfly.prospero.model;
+package org.wildfly.prospero.api;
 
-public class XmlException extends Exception {
+@FunctionalInterface
+public interface ProgressListener {
 
-    public XmlException(String message, Exception e) {
-        super(message, e);
-    }
+    ProgressListener NO_OP = event -> {};
 
-    public XmlException(String message) {
-        super(message);
-    }
+    void onEvent(ProgressEvent event);
 }
@@ -78,6 +78,9 @@ public class ArtifactResolutionException extends OperationException {
     }
 
     public Set<ArtifactCoordinate> failedArtifacts() {
+        if (!(getCause() instanceof UnresolvedMavenArtifactException)) {
+            return Set.of();
+        }
         return Set.copyOf(((UnresolvedMavenArtifactException)getCause()).getUnresolvedArtifacts());
     }
 }
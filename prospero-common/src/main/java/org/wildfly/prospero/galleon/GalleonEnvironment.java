@@ -29,6 +29,7 @@ import org.wildfly.prospero.actions.Console;
 import org.wildfly.prospero.api.exceptions.OperationException;
 import org.wildfly.prospero.model.ChannelRef;
 import org.wildfly.prospero.model.ProsperoConfig;
+import org.wildfly.prospero.updates.MetadataPrefetcher;
 import org.wildfly.prospero.wfchannel.ChannelRefMapper;
 import org.wildfly.prospero.wfchannel.MavenSessionManager;
 
@@ -43,17 +44,20 @@ public class GalleonEnvironment {
     private final ChannelMavenArtifactRepositoryManager repositoryManager;
     private final ChannelSession channelSession;
     private final List<ChannelRef> channelRefs;
+    private final MetadataPrefetcher metadataPrefetcher;
 
     private GalleonEnvironment(Builder builder) throws ProvisioningException, OperationException {
         Optional<Console> console = Optional.ofNullable(builder.console);
         Optional<Channel> restoreManifest = Optional.ofNullable(builder.manifest);
         channelRefs = builder.prosperoConfig.getChannels();
 
-        final RepositorySystem system = builder.mavenSessionManager.newRepositorySystem();
+        builder.mavenSessionManager.setDownloadSettings(builder.prosperoConfig.getDownloads());
+        final RepositorySystem system = builder.mavenSessionManager.getRepositorySystem();
         final DefaultRepositorySystemSession session = builder.mavenSessionManager.newRepositorySystemSession(system);
         final VersionResolverFactory factory = new VersionResolverFactory(system, session, builder.prosperoConfig.getRemoteRepositories());
         final List<Channel> channels = new ChannelRefMapper(factory).mapToChannel(builder.prosperoConfig.getChannels());
         channelSession = new ChannelSession(channels, factory);
+        metadataPrefetcher = new MetadataPrefetcher(system, session, builder.prosperoConfig.getRemoteRepositories());
         if (restoreManifest.isEmpty()) {
             repositoryManager = new ChannelMavenArtifactRepositoryManager(channelSession);
         } else {
@@ -82,6 +86,10 @@ public class GalleonEnvironment {
         return channelSession;
     }
 
+    public MetadataPrefetcher getMetadataPrefetcher() {
+        return metadataPrefetcher;
+    }
+
     public List<ChannelRef> getChannelRefs() {
         return channelRefs;
     }
@@ -19,19 +19,19 @@ package org.wildfly.prospero.galleon.inspect;
 
 import org.jboss.logging.Logger;
 import org.wildfly.prospero.api.InstallationMetadata;
+import org.wildfly.prospero.api.exceptions.MetadataException;
 import org.wildfly.prospero.api.exceptions.ProvisioningRuntimeException;
-import org.wildfly.prospero.model.XmlException;
-import org.wildfly.prospero.model.XmlSupport;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.jboss.galleon.ProvisioningException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.BufferedReader;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
@@ -40,18 +40,29 @@ import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
-
-class GalleonPackInspector extends XmlSupport {
+class GalleonPackInspector {
 
     private static final Logger logger = Logger.getLogger(GalleonPackInspector.class);
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final ThreadLocal<XMLInputFactory> XML_INPUT_FACTORY = ThreadLocal.withInitial(() -> {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    });
 
     private final InstallationMetadata installationMetadata;
     private final Path installedModules;
+    private Map<String, Artifact> installedArtifacts;
 
     public GalleonPackInspector(InstallationMetadata installationMetadata, Path modulesDir) {
         this.installationMetadata = installationMetadata;
@@ -59,53 +70,100 @@ class GalleonPackInspector extends XmlSupport {
     }
 
     public List<Artifact> getAllInstalledArtifacts(List<Path> resolvedFeaturePacks) throws ProvisioningException {
-        List<Artifact> res = new ArrayList<>();
-        for (Path fpPath : resolvedFeaturePacks) {
-            final ArrayList<Artifact> artifactsFromFeaturePack = getArtifactsFromFeaturePack(fpPath);
+        installedArtifacts = readInstalledArtifacts();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(PARALLELISM);
+        final List<FileSystem> fileSystems = Collections.synchronizedList(new ArrayList<>());
+        try {
+            final List<Future<FeaturePackContent>> featurePacks = new ArrayList<>();
+            for (Path fpPath : resolvedFeaturePacks) {
+                featurePacks.add(executor.submit(() -> openFeaturePack(fpPath, fileSystems)));
+            }
+
+            final List<Future<List<Artifact>>> templates = new ArrayList<>();
+            for (Future<FeaturePackContent> future : featurePacks) {
+                final FeaturePackContent featurePack = await(future);
+                for (Path moduleFile : featurePack.moduleFiles) {
+                    templates.add(executor.submit(() -> parseTemplateArtifacts(featurePack.versionProperties, moduleFile)));
+                }
+            }
+
+            final List<Artifact> res = new ArrayList<>();
+            for (Future<List<Artifact>> future : templates) {
+                res.addAll(await(future));
+            }
+            return res;
+        } finally {
+            executor.shutdownNow();
+            synchronized (fileSystems) {
+                for (FileSystem fileSystem : fileSystems) {
+                    try {
+                        fileSystem.close();
+                    } catch (IOException e) {
+                        logger.debug("Unable to close feature pack " + fileSystem, e);
+                    }
+                }
+            }
+        }
+    }
 
-            res.addAll(artifactsFromFeaturePack);
+    private Map<String, Artifact> readInstalledArtifacts() throws ProvisioningException {
+        final Map<String, Artifact> artifacts = new HashMap<>();
+        try {
+            for (Artifact artifact : installationMetadata.getArtifacts()) {
+                artifacts.putIfAbsent(artifact.getGroupId() + ":" + artifact.getArtifactId(), artifact);
+            }
+        } catch (MetadataException e) {
+            throw new ProvisioningException("Unable to read installation manifest", e);
         }
-        return res;
+        return artifacts;
     }
 
-    private ArrayList<Artifact> getArtifactsFromFeaturePack(Path featurePack) throws ProvisioningException {
-        ArrayList<Artifact> res = new ArrayList<>();
-        try (FileSystem fileSystem = FileSystems.newFileSystem(featurePack, this.getClass().getClassLoader())) {
+    private <T> T await(Future<T> future) throws ProvisioningException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProvisioningException("Interrupted while inspecting feature packs", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ProvisioningException) {
+                throw (ProvisioningException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ProvisioningException("Unable to inspect feature packs", e.getCause());
+        }
+    }
 
-            List<Path> moduleFiles = findModuleTemplates(fileSystem);
+    private FeaturePackContent openFeaturePack(Path featurePack, List<FileSystem> openFileSystems) throws ProvisioningException {
+        try {
+            // closed by the caller once all templates are parsed
+            final FileSystem fileSystem = FileSystems.newFileSystem(featurePack, this.getClass().getClassLoader());
+            openFileSystems.add(fileSystem);
 
+            final List<Path> moduleFiles = findModuleTemplates(fileSystem);
             final Map<String, String> versionProperties = readProperties(fileSystem.getPath("resources/wildfly/artifact-versions.properties"));
 
-            final Path tempModulesDirectory = Files.createTempDirectory("temp-modules");
-            tempModulesDirectory.toFile().deleteOnExit();
-
-            for (Path moduleFile : moduleFiles) {
-                // unzip the template to be able to read it
-                final Path copy = Files.copy(moduleFile, tempModulesDirectory, REPLACE_EXISTING);
-                parseTemplateArtifacts(res, versionProperties, moduleFile, copy.toFile());
-            }
+            return new FeaturePackContent(moduleFiles, versionProperties);
         } catch (IOException e) {
             throw new ProvisioningException("Unable to parse feature pack " + featurePack, e);
         }
-        return res;
-
     }
 
-    private void parseTemplateArtifacts(ArrayList<Artifact> res, Map<String, String> versionProperties, Path moduleFile, File template) throws ProvisioningException {
-        final NodeList nodes;
+    private List<Artifact> parseTemplateArtifacts(Map<String, String> versionProperties, Path moduleFile) throws ProvisioningException {
+        final List<String> names;
         try {
-            final Document document = readDocument(template);
-            nodes = nodesFromXPath(document, "//resources/artifact");
-        } catch (XmlException e) {
+            names = readArtifactPropertyNames(moduleFile);
+        } catch (IOException | XMLStreamException e) {
             throw new ProvisioningException("Unable to parse modules template " + moduleFile, e);
         }
 
         final Path modulesRoot = findModulesRoot(moduleFile);
         final Path relativeModulePath = modulesRoot.relativize(moduleFile.getParent());
 
-        for (int i = 0; i < nodes.getLength(); i++) {
-            final String name = getArtifactPropertyName(nodes, i);
-
+        final List<Artifact> res = new ArrayList<>();
+        for (String name : names) {
             if (!versionProperties.containsKey(name)) {
                 // ignore, try next one
                 logger.debug("Artifact not found: " + name);
@@ -123,6 +181,41 @@ class GalleonPackInspector extends XmlSupport {
                 findInstalledArtifacts(res, relativeModulePath, artifact, fileName);
             }
         }
+        return res;
+    }
+
+    private List<String> readArtifactPropertyNames(Path moduleFile) throws IOException, XMLStreamException {
+        final List<String> names = new ArrayList<>();
+        try (InputStream is = Files.newInputStream(moduleFile)) {
+            final XMLStreamReader reader = XML_INPUT_FACTORY.get().createXMLStreamReader(is);
+            try {
+                boolean inResources = false;
+                int depth = 0;
+                int resourcesDepth = -1;
+                while (reader.hasNext()) {
+                    final int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        final String element = reader.getLocalName();
+                        if (element.equals("resources")) {
+                            inResources = true;
+                            resourcesDepth = depth;
+                        } else if (inResources && depth == resourcesDepth + 1 && element.equals("artifact")) {
+                            names.add(toPropertyName(reader.getAttributeValue(null, "name")));
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (depth == resourcesDepth) {
+                            inResources = false;
+                            resourcesDepth = -1;
+                        }
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return names;
     }
 
     private Path findModulesRoot(Path moduleFile) {
@@ -139,16 +232,17 @@ class GalleonPackInspector extends XmlSupport {
         return tmp;
     }
 
-    private String getArtifactPropertyName(NodeList nodes, int i) {
-        Element e = (Element) nodes.item(i);
-        String name = e.getAttribute("name");
+    private String toPropertyName(String name) {
+        if (name == null) {
+            return "";
+        }
         name = name.replace("${", "");
         name = name.replace("}", "");
         return name;
     }
 
     private Artifact getInstalledVersion(Artifact artifact) {
-        final Artifact installedVersion = installationMetadata.find(artifact);
+        final Artifact installedVersion = installedArtifacts.get(artifact.getGroupId() + ":" + artifact.getArtifactId());
         if (installedVersion != null && !artifact.getVersion().equals(installedVersion.getVersion())) {
             artifact = artifact.setVersion(installedVersion.getVersion());
         }
@@ -165,7 +259,7 @@ class GalleonPackInspector extends XmlSupport {
         return fileName;
     }
 
-    private void findInstalledArtifacts(ArrayList<Artifact> res, Path relativeModulePath, Artifact artifact, String fileName) {
+    private void findInstalledArtifacts(List<Artifact> res, Path relativeModulePath, Artifact artifact, String fileName) {
         final Path artifactFile = installedModules.resolve(relativeModulePath.toString()).resolve(fileName);
         if (artifactFile.toFile().exists()) {
             res.add(artifact.setFile(artifactFile.toFile()));
@@ -208,4 +302,14 @@ class GalleonPackInspector extends XmlSupport {
         }
         return propsMap;
     }
+
+    private static class FeaturePackContent {
+        private final List<Path> moduleFiles;
+        private final Map<String, String> versionProperties;
+
+        FeaturePackContent(List<Path> moduleFiles, Map<String, String> versionProperties) {
+            this.moduleFiles = moduleFiles;
+            this.versionProperties = versionProperties;
+        }
+    }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.installation;
+
+import org.wildfly.prospero.Messages;
+import org.wildfly.prospero.api.InstallationMetadata;
+import org.wildfly.prospero.api.exceptions.MetadataException;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reader/writer lock of an installation, shared between processes through a file lock on {@link #LOCK_FILE_NAME}.
+ * Any number of shared locks can be held at the same time, an exclusive lock excludes all other locks.
+ * <p>
+ * Within a JVM, a thread holding the exclusive lock can acquire further shared or exclusive locks. A thread holding
+ * only a shared lock cannot acquire the exclusive lock. Other processes are kept out until all locks acquired under
+ * an exclusive lock are released.
+ */
+public class InstallationLock implements AutoCloseable {
+
+    public static final String LOCK_FILE_NAME = ".lock";
+    public static final long DEFAULT_LOCK_TIMEOUT = Long.getLong("prospero.lock.timeout", 60);
+    private static final long POLL_INTERVAL_MS = 100;
+    // each lock file can be locked only once per JVM, the locks share the file lock.
+    // An entry is removed once no thread holds or waits for its lock.
+    private static final Map<Path, LockFile> LOCK_FILES = new HashMap<>();
+    private static volatile long lockTimeout = DEFAULT_LOCK_TIMEOUT;
+
+    private final LockFile lockFile;
+    private final boolean exclusive;
+    private boolean released;
+
+    private InstallationLock(LockFile lockFile, boolean exclusive) {
+        this.lockFile = lockFile;
+        this.exclusive = exclusive;
+    }
+
+    public static InstallationLock shared(Path installationDir) throws MetadataException {
+        return acquire(installationDir, false, lockTimeout, TimeUnit.SECONDS);
+    }
+
+    public static InstallationLock exclusive(Path installationDir) throws MetadataException {
+        return acquire(installationDir, true, lockTimeout, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Sets how long {@link #shared(Path)} and {@link #exclusive(Path)} wait for a lock held by another process.
+     * Defaults to the {@code prospero.lock.timeout} system property or 60 seconds.
+     */
+    public static void setLockTimeout(long seconds) {
+        if (seconds < 0) {
+            throw new IllegalArgumentException("Lock timeout can't be negative: " + seconds);
+        }
+        lockTimeout = seconds;
+    }
+
+    public static long getLockTimeout() {
+        return lockTimeout;
+    }
+
+    /**
+     * @throws MetadataException if the lock can't be acquired within {@code timeout}
+     */
+    public static InstallationLock acquire(Path installationDir, boolean exclusive, long timeout, TimeUnit unit)
+            throws MetadataException {
+        final Path path = lockFilePath(installationDir);
+        final LockFile lockFile;
+        synchronized (LOCK_FILES) {
+            lockFile = LOCK_FILES.computeIfAbsent(path, LockFile::new);
+            lockFile.users++;
+        }
+        try {
+            lockFile.acquire(exclusive, System.nanoTime() + unit.toNanos(timeout), installationDir, unit.toSeconds(timeout));
+        } catch (MetadataException | RuntimeException e) {
+            unuse(lockFile);
+            throw e;
+        }
+        return new InstallationLock(lockFile, exclusive);
+    }
+
+    private static void unuse(LockFile lockFile) {
+        synchronized (LOCK_FILES) {
+            if (--lockFile.users == 0) {
+                LOCK_FILES.remove(lockFile.path, lockFile);
+            }
+        }
+    }
+
+    private static Path lockFilePath(Path installationDir) {
+        return installationDir.resolve(InstallationMetadata.METADATA_DIR).resolve(LOCK_FILE_NAME).toAbsolutePath().normalize();
+    }
+
+    // visible for testing
+    static boolean isTracked(Path installationDir) {
+        synchronized (LOCK_FILES) {
+            return LOCK_FILES.containsKey(lockFilePath(installationDir));
+        }
+    }
+
+    public boolean isExclusive() {
+        return exclusive;
+    }
+
+    @Override
+    public void close() {
+        if (!released) {
+            released = true;
+            lockFile.release(exclusive);
+            unuse(lockFile);
+        }
+    }
+
+    private static class LockFile {
+        private final Path path;
+        // threads holding or waiting for this lock, guarded by LOCK_FILES
+        private int users;
+        // guarded by this
+        private final Map<Thread, Integer> readers = new HashMap<>();
+        private Thread writer;
+        private int writerHolds;
+        private FileChannel channel;
+        private FileLock fileLock;
+
+        LockFile(Path path) {
+            this.path = path;
+        }
+
+        synchronized void acquire(boolean exclusive, long deadline, Path installationDir, long timeoutSeconds) throws MetadataException {
+            final Thread current = Thread.currentThread();
+            if (exclusive && writer != current && readers.containsKey(current)) {
+                throw new IllegalStateException("Shared lock of " + installationDir + " can't be upgraded to an exclusive lock");
+            }
+
+            try {
+                while (true) {
+                    if (writer == current) {
+                        if (exclusive) {
+                            writerHolds++;
+                        } else {
+                            readers.merge(current, 1, Integer::sum);
+                        }
+                        return;
+                    }
+                    if (exclusive && writer == null && readers.isEmpty() && tryLockFile(false)) {
+                        writer = current;
+                        writerHolds = 1;
+                        return;
+                    }
+                    if (!exclusive && writer == null && (fileLock != null || tryLockFile(true))) {
+                        readers.merge(current, 1, Integer::sum);
+                        return;
+                    }
+
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw Messages.MESSAGES.installationLocked(installationDir, timeoutSeconds);
+                    }
+                    // wakes up when released within this JVM, polls for locks held by other processes
+                    wait(Math.max(1, Math.min(POLL_INTERVAL_MS, TimeUnit.NANOSECONDS.toMillis(remaining))));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Messages.MESSAGES.installationLocked(installationDir, timeoutSeconds);
+            } catch (IOException e) {
+                closeChannel();
+                throw Messages.MESSAGES.unableToLockInstallation(installationDir, e);
+            }
+        }
+
+        synchronized void release(boolean exclusive) {
+            final Thread current = Thread.currentThread();
+            if (exclusive) {
+                if (writer == current && --writerHolds == 0) {
+                    writer = null;
+                }
+            } else {
+                readers.computeIfPresent(current, (t, holds) -> holds > 1 ? holds - 1 : null);
+            }
+
+            // if the writer thread still holds shared locks, the exclusive file lock is kept until they are released.
+            // Downgrading it would leave a window for another process to take the file lock in between.
+            if (writer == null && readers.isEmpty()) {
+                closeChannel();
+            }
+            notifyAll();
+        }
+
+        private boolean tryLockFile(boolean shared) throws IOException {
+            if (channel == null) {
+                Files.createDirectories(path.getParent());
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            fileLock = channel.tryLock(0, Long.MAX_VALUE, shared);
+            return fileLock != null;
+        }
+
+        private void closeChannel() {
+            try {
+                if (channel != null) {
+                    // releases the file lock as well
+                    channel.close();
+                }
+            } catch (IOException e) {
+                // nothing to do, the lock is released with the process at the latest
+            }
+            channel = null;
+            fileLock = null;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.installation;
+
+import org.wildfly.channel.Channel;
+import org.wildfly.channel.Stream;
+import org.wildfly.prospero.api.ArtifactDrift;
+import org.wildfly.prospero.model.InstalledArtifact;
+import org.wildfly.prospero.model.InstalledArtifactsIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Compares artifact files in an installation with the recorded {@link InstalledArtifactsIndex}.
+ */
+public class InstallationVerifier {
+
+    private final Path base;
+
+    public InstallationVerifier(Path base) {
+        this.base = base;
+    }
+
+    /**
+     * @param fast if {@code true}, files are compared only by size and modification time, otherwise their content
+     *             is hashed and compared with the recorded checksum
+     * @return detected differences ordered by the artifact path
+     */
+    public List<ArtifactDrift> verify(InstalledArtifactsIndex index, Channel manifest, boolean fast) throws IOException {
+        final Map<String, String> expectedVersions = new HashMap<>();
+        for (Stream stream : manifest.getStreams()) {
+            expectedVersions.put(stream.getGroupId() + ":" + stream.getArtifactId(), stream.getVersion());
+        }
+
+        try {
+            return index.getArtifacts().parallelStream()
+                    .map(artifact -> verify(artifact, expectedVersions, fast))
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparing(ArtifactDrift::getPath))
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private ArtifactDrift verify(InstalledArtifact artifact, Map<String, String> expectedVersions, boolean fast) {
+        final String[] gav = artifact.getGav().split(":");
+        final String expectedVersion = expectedVersions.get(gav[0] + ":" + gav[1]);
+        if (expectedVersion != null && !expectedVersion.equals(gav[2])) {
+            return new ArtifactDrift(ArtifactDrift.Type.UNEXPECTED_VERSION, artifact.getGav(), artifact.getPath(), expectedVersion, gav[2]);
+        }
+
+        final Path file = base.resolve(artifact.getPath());
+        if (!Files.isRegularFile(file)) {
+            return new ArtifactDrift(ArtifactDrift.Type.MISSING, artifact.getGav(), artifact.getPath(), null, null);
+        }
+
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attributes.size() != artifact.getSize()) {
+                return modified(artifact, Long.toString(artifact.getSize()), Long.toString(attributes.size()));
+            }
+            if (fast) {
+                final long lastModified = attributes.lastModifiedTime().toMillis();
+                return lastModified == artifact.getLastModified() ? null
+                        : modified(artifact, Long.toString(artifact.getLastModified()), Long.toString(lastModified));
+            }
+
+            final String sha256 = InstalledArtifactsScanner.sha256(file);
+            return sha256.equals(artifact.getSha256()) ? null : modified(artifact, artifact.getSha256(), sha256);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ArtifactDrift modified(InstalledArtifact artifact, String expected, String actual) {
+        return new ArtifactDrift(ArtifactDrift.Type.MODIFIED, artifact.getGav(), artifact.getPath(), expected, actual);
+    }
+}
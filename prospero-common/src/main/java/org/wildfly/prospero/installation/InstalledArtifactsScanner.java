@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.installation;
+
+import org.apache.commons.codec.binary.Hex;
+import org.jboss.logging.Logger;
+import org.wildfly.channel.Channel;
+import org.wildfly.channel.Stream;
+import org.wildfly.prospero.model.InstalledArtifact;
+import org.wildfly.prospero.model.InstalledArtifactsIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Matches jar files in the installation's {@code modules} directory to the streams of the installation manifest.
+ */
+public class InstalledArtifactsScanner {
+
+    private static final Logger logger = Logger.getLogger(InstalledArtifactsScanner.class);
+    public static final String MODULES_DIR = "modules";
+    private static final String JAR_SUFFIX = ".jar";
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private final Path base;
+
+    public InstalledArtifactsScanner(Path base) {
+        this.base = base;
+    }
+
+    /**
+     * Builds the index of artifacts installed in the server. Entries of the {@code previous} index are re-used
+     * without hashing the file again if the file's size and modification time did not change.
+     *
+     * @param manifest manifest of the installation
+     * @param previous index recorded for previous state of the installation, can be {@code null}
+     */
+    public InstalledArtifactsIndex scan(Channel manifest, InstalledArtifactsIndex previous) throws IOException {
+        final Path modules = base.resolve(MODULES_DIR);
+        if (!Files.isDirectory(modules)) {
+            return new InstalledArtifactsIndex(Collections.emptyList());
+        }
+
+        final Map<String, Stream> fileNames = new HashMap<>();
+        for (Stream stream : manifest.getStreams()) {
+            if (stream.getVersion() != null) {
+                fileNames.putIfAbsent(stream.getArtifactId() + "-" + stream.getVersion(), stream);
+            }
+        }
+
+        final List<Path> jars;
+        try (java.util.stream.Stream<Path> files = Files.walk(modules)) {
+            jars = files.filter(p -> p.getFileName().toString().endsWith(JAR_SUFFIX)).collect(Collectors.toList());
+        }
+
+        final Map<String, InstalledArtifact> previousEntries = previous == null ? Collections.emptyMap() : previous.byPath();
+        try {
+            final List<InstalledArtifact> artifacts = jars.parallelStream()
+                    .map(jar -> toInstalledArtifact(jar, fileNames, previousEntries))
+                    .filter(a -> a != null)
+                    .collect(Collectors.toCollection(ArrayList::new));
+            return new InstalledArtifactsIndex(artifacts);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private InstalledArtifact toInstalledArtifact(Path jar, Map<String, Stream> fileNames, Map<String, InstalledArtifact> previousEntries) {
+        final String name = jar.getFileName().toString();
+        final String baseName = name.substring(0, name.length() - JAR_SUFFIX.length());
+
+        Stream stream = fileNames.get(baseName);
+        String classifier = null;
+        int separator = baseName.length();
+        while (stream == null && (separator = baseName.lastIndexOf('-', separator - 1)) > 0) {
+            stream = fileNames.get(baseName.substring(0, separator));
+            classifier = baseName.substring(separator + 1);
+        }
+        if (stream == null) {
+            logger.debug("No manifest stream matches installed file " + jar);
+            return null;
+        }
+
+        final String gav = InstalledArtifact.toGav(stream.getGroupId(), stream.getArtifactId(), stream.getVersion(), classifier);
+        final String relativePath = toRelativePath(jar);
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+            final long size = attributes.size();
+            final long lastModified = attributes.lastModifiedTime().toMillis();
+
+            final InstalledArtifact recorded = previousEntries.get(relativePath);
+            if (recorded != null && recorded.getGav().equals(gav) && recorded.getSize() == size && recorded.getLastModified() == lastModified) {
+                return recorded;
+            }
+
+            return new InstalledArtifact(gav, relativePath, size, lastModified, sha256(jar));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks that the file still has the checksum recorded when it was installed.
+     */
+    public static boolean isUnmodified(Path file, InstalledArtifact installedArtifact) throws IOException {
+        return installedArtifact.getSha256() != null && Files.isRegularFile(file)
+                && installedArtifact.getSha256().equals(sha256(file));
+    }
+
+    /**
+     * Calculates SHA-256 checksum of the file reading it in large chunks.
+     */
+    public static String sha256(Path file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final ByteBuffer buffer = BUFFER.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private String toRelativePath(Path file) {
+        final List<String> segments = new ArrayList<>();
+        for (Path segment : base.relativize(file)) {
+            segments.add(segment.toString());
+        }
+        return String.join("/", segments);
+    }
+}
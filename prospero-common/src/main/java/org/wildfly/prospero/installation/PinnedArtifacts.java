@@ -0,0 +1,269 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.installation;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.jboss.logging.Logger;
+import org.wildfly.channel.Channel;
+import org.wildfly.channel.Stream;
+import org.wildfly.prospero.api.InstallationMetadata;
+import org.wildfly.prospero.api.exceptions.MetadataException;
+import org.wildfly.prospero.model.YamlSupport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps copies of the artifacts used by the last saved states of the installation in a repository within the installation
+ * metadata. The copies are removed only when their state is no longer one of the last {@link #PINNED_STATES}, so that the
+ * installation can be reverted to those states without access to the Maven repositories.
+ */
+public class PinnedArtifacts {
+
+    private static final Logger logger = Logger.getLogger(PinnedArtifacts.class);
+
+    public static final String PINNED_REPOSITORY_DIR = "pinned-repository";
+    public static final String PINNED_STATES_FILE_NAME = "pinned-states.yaml";
+    public static final int PINNED_STATES = Integer.getInteger("prospero.history.pinned.states", 3);
+    private static final TypeReference<LinkedHashMap<String, PinnedState>> STATES_TYPE = new TypeReference<>() {};
+
+    private final Path repository;
+    private final Path statesFile;
+    private final int pinnedStates;
+
+    public PinnedArtifacts(Path installationDir) {
+        this(installationDir, PINNED_STATES);
+    }
+
+    /**
+     * @param pinnedStates - number of the latest states to keep artifacts for. If not positive, no artifacts are kept.
+     */
+    public PinnedArtifacts(Path installationDir, int pinnedStates) {
+        final Path metadataDir = installationDir.resolve(InstallationMetadata.METADATA_DIR);
+        this.repository = metadataDir.resolve(PINNED_REPOSITORY_DIR);
+        this.statesFile = metadataDir.resolve(PINNED_STATES_FILE_NAME);
+        this.pinnedStates = pinnedStates;
+    }
+
+    public Path getRepository() {
+        return repository;
+    }
+
+    /**
+     * Copies artifacts of the {@code manifest} streams from {@code sourceRepository} and records them as used by {@code state}.
+     * Artifacts used only by states older than the last pinned states are removed.
+     *
+     * @param state - name of the saved state the manifest belongs to
+     * @param manifest - manifest of the saved state
+     * @param sourceRepository - repository the artifacts were resolved into, with Maven repository layout
+     */
+    public void pin(String state, Channel manifest, Path sourceRepository) throws MetadataException {
+        final LinkedHashMap<String, PinnedState> states = readStates();
+        if (pinnedStates > 0) {
+            final List<String> files = new ArrayList<>();
+            boolean complete = true;
+            try {
+                for (Stream stream : manifest.getStreams()) {
+                    final List<String> streamFiles = copyArtifactFiles(stream, sourceRepository);
+                    complete &= !streamFiles.isEmpty();
+                    files.addAll(streamFiles);
+                }
+            } catch (IOException e) {
+                throw new MetadataException("Unable to pin artifacts of the installation", e);
+            }
+            states.remove(state);
+            states.put(state, new PinnedState(complete, files));
+        }
+
+        final Iterator<String> oldest = states.keySet().iterator();
+        while (states.size() > Math.max(pinnedStates, 0)) {
+            oldest.next();
+            oldest.remove();
+        }
+
+        writeStates(states);
+        evictUnpinned(states);
+    }
+
+    /**
+     * @param state - full or abbreviated name of a saved state
+     */
+    public boolean isPinned(String state) throws MetadataException {
+        return findState(readStates(), state).isPresent();
+    }
+
+    /**
+     * @param state - full or abbreviated name of a saved state
+     * @return {@code true} if artifacts of all streams of the state are pinned, so that the state can be restored offline
+     */
+    public boolean isComplete(String state) throws MetadataException {
+        final Map<String, PinnedState> states = readStates();
+        return findState(states, state).map(key -> states.get(key).isComplete()).orElse(false);
+    }
+
+    /**
+     * Copies artifacts pinned for {@code state} into a repository with Maven layout, e.g. a local repository used for provisioning.
+     *
+     * @param state - full or abbreviated name of a saved state
+     */
+    public void copyTo(String state, Path targetRepository) throws MetadataException {
+        final Map<String, PinnedState> states = readStates();
+        final String key = findState(states, state)
+                .orElseThrow(() -> new MetadataException("Artifacts of state " + state + " are not pinned"));
+        try {
+            for (String file : states.get(key).getFiles()) {
+                final Path target = targetRepository.resolve(file);
+                Files.createDirectories(target.getParent());
+                Files.copy(repository.resolve(file), target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new MetadataException("Unable to copy pinned artifacts of the installation", e);
+        }
+    }
+
+    private List<String> copyArtifactFiles(Stream stream, Path sourceRepository) throws IOException {
+        final String dir = stream.getGroupId().replace('.', '/') + "/" + stream.getArtifactId() + "/" + stream.getVersion();
+        final Path sourceDir = sourceRepository.resolve(dir);
+        if (!Files.isDirectory(sourceDir)) {
+            logger.debugf("Artifact %s:%s:%s not found in %s, it won't be pinned", stream.getGroupId(),
+                    stream.getArtifactId(), stream.getVersion(), sourceRepository);
+            return List.of();
+        }
+
+        // the manifest doesn't record extensions and classifiers, pin every file of the artifact version
+        final String prefix = stream.getArtifactId() + "-" + stream.getVersion();
+        final List<Path> artifactFiles;
+        try (java.util.stream.Stream<Path> list = Files.list(sourceDir)) {
+            artifactFiles = list
+                    .filter(Files::isRegularFile)
+                    .filter(p -> isArtifactFile(p.getFileName().toString(), prefix))
+                    .collect(Collectors.toList());
+        }
+
+        final List<String> files = new ArrayList<>();
+        for (Path artifactFile : artifactFiles) {
+            final String file = dir + "/" + artifactFile.getFileName();
+            final Path target = repository.resolve(file);
+            if (!Files.exists(target) || Files.size(target) != Files.size(artifactFile)) {
+                Files.createDirectories(target.getParent());
+                Files.copy(artifactFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static boolean isArtifactFile(String name, String prefix) {
+        return name.startsWith(prefix)
+                && !name.endsWith(".sha1") && !name.endsWith(".md5")
+                && !name.endsWith(".lastUpdated") && !name.endsWith(".pom");
+    }
+
+    private void evictUnpinned(Map<String, PinnedState> states) throws MetadataException {
+        if (!Files.isDirectory(repository)) {
+            return;
+        }
+        final Set<Path> pinned = new HashSet<>();
+        states.values().forEach(s -> s.getFiles().forEach(f -> pinned.add(repository.resolve(f))));
+
+        // delete files first, then folders left empty, deepest first
+        try (java.util.stream.Stream<Path> walk = Files.walk(repository)) {
+            final List<Path> paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            for (Path path : paths) {
+                if (Files.isRegularFile(path) && !pinned.contains(path)) {
+                    Files.delete(path);
+                } else if (Files.isDirectory(path) && !path.equals(repository) && isEmpty(path)) {
+                    Files.delete(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new MetadataException("Unable to remove unpinned artifacts of the installation", e);
+        }
+    }
+
+    private static boolean isEmpty(Path dir) throws IOException {
+        try (java.util.stream.Stream<Path> list = Files.list(dir)) {
+            return list.findAny().isEmpty();
+        }
+    }
+
+    private static Optional<String> findState(Map<String, PinnedState> states, String state) {
+        return states.keySet().stream()
+                .filter(key -> key.startsWith(state) || state.startsWith(key))
+                .findFirst();
+    }
+
+    private LinkedHashMap<String, PinnedState> readStates() throws MetadataException {
+        if (!Files.exists(statesFile)) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return YamlSupport.reader(STATES_TYPE).readValue(statesFile.toFile());
+        } catch (IOException e) {
+            throw new MetadataException("Unable to read pinned states of the installation", e);
+        }
+    }
+
+    private void writeStates(Map<String, PinnedState> states) throws MetadataException {
+        try {
+            Files.createDirectories(statesFile.getParent());
+            YamlSupport.writer().writeValue(statesFile.toFile(), states);
+        } catch (IOException e) {
+            throw new MetadataException("Unable to write pinned states of the installation", e);
+        }
+    }
+
+    /**
+     * Files pinned for a saved state. The state is incomplete if some of its artifacts weren't available to be pinned.
+     */
+    @JsonPropertyOrder({"complete", "files"})
+    static class PinnedState {
+        private final boolean complete;
+        private final List<String> files;
+
+        @JsonCreator
+        PinnedState(@JsonProperty(value = "complete") boolean complete,
+                    @JsonProperty(value = "files") List<String> files) {
+            this.complete = complete;
+            this.files = files == null ? List.of() : files;
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+
+        public List<String> getFiles() {
+            return files;
+        }
+    }
+}
@@ -26,17 +26,22 @@ import org.wildfly.prospero.model.ManifestYamlSupport;
 import org.apache.commons.io.FileUtils;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.jgit.api.GarbageCollectCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.ProgressMonitor;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.jboss.logging.Logger;
 import org.wildfly.channel.Channel;
 import org.wildfly.channel.Stream;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -45,16 +50,34 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class GitStorage implements AutoCloseable {
 
+    private static final Logger logger = Logger.getLogger(GitStorage.class);
+
     public static final String GIT_HISTORY_USER = "Wildfly Installer";
     public static final PersonIdent GIT_HISTORY_COMMITTER = new PersonIdent(GIT_HISTORY_USER, "");
+    // number of loose objects after which the history is packed in the background
+    public static final int LOOSE_OBJECTS_THRESHOLD = Integer.getInteger("prospero.history.gc.threshold", 500);
+    // time the JVM exit waits for the background packing to finish before cancelling it
+    private static final Duration MAINTENANCE_EXIT_TIMEOUT = Duration.ofSeconds(Long.getLong("prospero.history.gc.exit-timeout", 10));
     private final Git git;
+    private final int looseObjectsThreshold;
     private Path base;
 
     public GitStorage(Path base) throws MetadataException {
+        this(base, LOOSE_OBJECTS_THRESHOLD);
+    }
+
+    GitStorage(Path base, int looseObjectsThreshold) throws MetadataException {
         this.base = base.resolve(InstallationMetadata.METADATA_DIR);
+        this.looseObjectsThreshold = looseObjectsThreshold;
         try {
             git = initGit();
         } catch (GitAPIException | IOException e) {
@@ -92,6 +115,8 @@ public class GitStorage implements AutoCloseable {
         } catch (IOException | GitAPIException e) {
             throw new MetadataException("Unable to write history of installation", e);
         }
+
+        compactIfNeeded();
     }
 
     public void recordConfigChange() throws MetadataException {
@@ -101,6 +126,8 @@ public class GitStorage implements AutoCloseable {
         } catch (GitAPIException e) {
             throw new MetadataException("Unable to write history of installation", e);
         }
+
+        compactIfNeeded();
     }
 
     public void revert(SavedState savedState) throws MetadataException {
@@ -114,6 +141,46 @@ public class GitStorage implements AutoCloseable {
         } catch (GitAPIException e) {
             throw new MetadataException("Unable to write history of installation", e);
         }
+
+        compactIfNeeded();
+    }
+
+    /**
+     * Packs the history repository and removes unreachable objects.
+     */
+    public void compact() throws MetadataException {
+        try (Git maintenance = Git.open(base.toFile())) {
+            maintenance.gc().call();
+        } catch (IOException | GitAPIException e) {
+            throw new MetadataException("Unable to compact history of installation", e);
+        }
+    }
+
+    private void compactIfNeeded() {
+        // uses a separate handle, so the task is not affected by this storage being closed. Packing doesn't need
+        // the installation lock, unreachable objects are pruned only after JGit's expiry period.
+        final Path gitDir = base;
+        final int threshold = looseObjectsThreshold;
+        HistoryMaintenance.schedule(() -> {
+            try (Git maintenance = Git.open(gitDir.toFile())) {
+                final GarbageCollectCommand gc = maintenance.gc().setProgressMonitor(HistoryMaintenance.MONITOR);
+                final Number looseObjects = (Number) gc.getStatistics().get("numberOfLooseObjects");
+                if (looseObjects != null && looseObjects.longValue() > threshold) {
+                    gc.call();
+                }
+            } catch (IOException | GitAPIException | JGitInternalException e) {
+                logger.debug("Unable to compact history of installation " + gitDir, e);
+            }
+        });
+    }
+
+    /**
+     * Waits for the history packing scheduled by this JVM. Packing still in progress after the timeout is cancelled.
+     *
+     * @return {@code true} if all scheduled packing finished in time
+     */
+    static boolean awaitMaintenance(Duration timeout) {
+        return HistoryMaintenance.await(timeout);
     }
 
     public List<ArtifactChange> getChanges(SavedState savedState) throws MetadataException {
@@ -202,4 +269,79 @@ public class GitStorage implements AutoCloseable {
             git.close();
         }
     }
+
+    /**
+     * Packs history repositories on a daemon thread, so that an operation doesn't wait for it. When the JVM exits,
+     * packing in progress is given {@link #MAINTENANCE_EXIT_TIMEOUT} to finish and is cancelled after that. JGit then
+     * removes its temporary files instead of leaving a partially written pack behind.
+     */
+    private static final class HistoryMaintenance {
+
+        private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+            final Thread thread = new Thread(r, "installation-history-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private static volatile boolean cancelled;
+        private static final ProgressMonitor MONITOR = new ProgressMonitor() {
+            @Override
+            public void start(int totalTasks) {
+            }
+
+            @Override
+            public void beginTask(String title, int totalWork) {
+            }
+
+            @Override
+            public void update(int completed) {
+            }
+
+            @Override
+            public void endTask() {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled;
+            }
+        };
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> await(MAINTENANCE_EXIT_TIMEOUT),
+                    "installation-history-gc-shutdown"));
+        }
+
+        static void schedule(Runnable task) {
+            EXECUTOR.execute(task);
+        }
+
+        static boolean await(Duration timeout) {
+            // the executor runs tasks in order, the marker completes after all previously scheduled tasks
+            final Future<?> marker = EXECUTOR.submit(() -> {});
+            try {
+                marker.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                cancelled = true;
+                try {
+                    // give the cancelled task a moment to remove its temporary files
+                    marker.get(1, TimeUnit.SECONDS);
+                } catch (TimeoutException | ExecutionException ex) {
+                    logger.debug("Packing of installation history didn't stop", ex);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    if (marker.isDone()) {
+                        cancelled = false;
+                    }
+                }
+                return false;
+            } catch (ExecutionException e) {
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
 }
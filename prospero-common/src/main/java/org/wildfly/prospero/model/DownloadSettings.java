@@ -0,0 +1,122 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Limits applied to artifact downloads, stored in the {@code downloads} section of the installer configuration.
+ * Unset values mean no limit (or the resolver default). System properties override the configured values.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class DownloadSettings {
+
+    public static final String MAX_PARALLEL_DOWNLOADS_PROPERTY = "prospero.downloads.parallel";
+    public static final String BANDWIDTH_LIMIT_PROPERTY = "prospero.downloads.bandwidth";
+    public static final String REPOSITORY_LIMIT_PROPERTY_PREFIX = "prospero.downloads.parallel.";
+
+    public static final DownloadSettings UNLIMITED = new DownloadSettings(null, null, null);
+
+    private final Integer maxParallelDownloads;
+    private final Map<String, Integer> repositoryLimits;
+    private final Long bandwidthLimit;
+
+    @JsonCreator
+    public DownloadSettings(@JsonProperty(value = "maxParallelDownloads") Integer maxParallelDownloads,
+                            @JsonProperty(value = "repositoryLimits") Map<String, Integer> repositoryLimits,
+                            @JsonProperty(value = "bandwidthLimit") Long bandwidthLimit) {
+        this.maxParallelDownloads = maxParallelDownloads;
+        this.repositoryLimits = repositoryLimits == null ? Collections.emptyMap() : repositoryLimits;
+        this.bandwidthLimit = bandwidthLimit;
+    }
+
+    /**
+     * Maximum number of artifacts downloaded at the same time, across all repositories.
+     */
+    public Integer getMaxParallelDownloads() {
+        return maxParallelDownloads;
+    }
+
+    /**
+     * Maximum number of artifacts downloaded at the same time from a repository, by repository id.
+     */
+    public Map<String, Integer> getRepositoryLimits() {
+        return repositoryLimits;
+    }
+
+    /**
+     * Maximum total download rate in bytes per second.
+     */
+    public Long getBandwidthLimit() {
+        return bandwidthLimit;
+    }
+
+    /**
+     * Applies the {@code prospero.downloads.*} system properties on top of the configured settings.
+     *
+     * @param configured settings from the installer configuration, can be {@code null}
+     */
+    public static DownloadSettings withOverrides(DownloadSettings configured) {
+        final DownloadSettings base = configured == null ? UNLIMITED : configured;
+
+        final Map<String, Integer> repositoryLimits = new HashMap<>(base.repositoryLimits);
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(REPOSITORY_LIMIT_PROPERTY_PREFIX)) {
+                final Integer limit = Integer.getInteger(name);
+                if (limit != null) {
+                    repositoryLimits.put(name.substring(REPOSITORY_LIMIT_PROPERTY_PREFIX.length()), limit);
+                }
+            }
+        }
+
+        return new DownloadSettings(Integer.getInteger(MAX_PARALLEL_DOWNLOADS_PROPERTY, base.maxParallelDownloads),
+                repositoryLimits,
+                Long.getLong(BANDWIDTH_LIMIT_PROPERTY, base.bandwidthLimit));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DownloadSettings that = (DownloadSettings) o;
+        return Objects.equals(maxParallelDownloads, that.maxParallelDownloads)
+                && Objects.equals(repositoryLimits, that.repositoryLimits)
+                && Objects.equals(bandwidthLimit, that.bandwidthLimit);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(maxParallelDownloads, repositoryLimits, bandwidthLimit);
+    }
+
+    @Override
+    public String toString() {
+        return "DownloadSettings{" +
+                "maxParallelDownloads=" + maxParallelDownloads +
+                ", repositoryLimits=" + repositoryLimits +
+                ", bandwidthLimit=" + bandwidthLimit +
+                '}';
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+import java.util.Objects;
+
+/**
+ * Artifact file installed in the server together with the data needed to detect changes to it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"gav", "path", "size", "lastModified", "sha256"})
+public class InstalledArtifact {
+
+    private final String gav;
+    private final String path;
+    private final long size;
+    private final long lastModified;
+    private final String sha256;
+
+    @JsonCreator
+    public InstalledArtifact(@JsonProperty(value = "gav") String gav,
+                             @JsonProperty(value = "path") String path,
+                             @JsonProperty(value = "size") long size,
+                             @JsonProperty(value = "lastModified") long lastModified,
+                             @JsonProperty(value = "sha256") String sha256) {
+        this.gav = gav;
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.sha256 = sha256;
+    }
+
+    public String getGav() {
+        return gav;
+    }
+
+    /**
+     * @return path of the artifact file relative to the installation root, using {@code /} as separator
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    @JsonIgnore
+    public Artifact toArtifact() {
+        final String[] parts = gav.split(":");
+        final String classifier = parts.length > 3 ? parts[3] : "";
+        return new DefaultArtifact(parts[0], parts[1], classifier, "jar", parts[2]);
+    }
+
+    public static String toGav(String groupId, String artifactId, String version, String classifier) {
+        final String gav = groupId + ":" + artifactId + ":" + version;
+        return classifier == null || classifier.isEmpty() ? gav : gav + ":" + classifier;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        InstalledArtifact that = (InstalledArtifact) o;
+        return size == that.size && lastModified == that.lastModified && Objects.equals(gav, that.gav)
+                && Objects.equals(path, that.path) && Objects.equals(sha256, that.sha256);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(gav, path, size, lastModified, sha256);
+    }
+
+    @Override
+    public String toString() {
+        return "InstalledArtifact{" +
+                "gav='" + gav + '\'' +
+                ", path='" + path + '\'' +
+                ", size=" + size +
+                ", sha256='" + sha256 + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class InstalledArtifactsIndex {
+
+    private final List<InstalledArtifact> artifacts;
+
+    @JsonCreator
+    public InstalledArtifactsIndex(@JsonProperty(value = "artifacts") List<InstalledArtifact> artifacts) {
+        final List<InstalledArtifact> sorted = new ArrayList<>(artifacts == null ? Collections.emptyList() : artifacts);
+        sorted.sort(Comparator.comparing(InstalledArtifact::getPath));
+        this.artifacts = Collections.unmodifiableList(sorted);
+    }
+
+    public List<InstalledArtifact> getArtifacts() {
+        return artifacts;
+    }
+
+    @JsonIgnore
+    public Map<String, InstalledArtifact> byPath() {
+        final Map<String, InstalledArtifact> map = new HashMap<>();
+        for (InstalledArtifact artifact : artifacts) {
+            map.put(artifact.getPath(), artifact);
+        }
+        return map;
+    }
+
+    public void write(File indexFile) throws IOException {
+        YamlSupport.writer().writeValue(indexFile, this);
+    }
+
+    public static InstalledArtifactsIndex read(Path path) throws IOException {
+        return YamlSupport.reader(InstalledArtifactsIndex.class).readValue(path.toFile());
+    }
+}
@@ -21,8 +21,6 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.eclipse.aether.repository.RemoteRepository;
 
 import java.io.File;
@@ -33,6 +31,9 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 public class KnownFeaturePack {
+
+    private static final TypeReference<List<KnownFeaturePack>> PACKS_TYPE = new TypeReference<>() {};
+
     private String name;
     private String location;
     private List<String> channelGavs;
@@ -53,13 +54,11 @@ public class KnownFeaturePack {
     }
 
     public static void write(List<KnownFeaturePack> packs, File configFile) throws IOException {
-        new ObjectMapper(new YAMLFactory()).writeValue(configFile, packs);
+        YamlSupport.writer().writeValue(configFile, packs);
     }
 
     public static List<KnownFeaturePack> readConfig(URL url) throws IOException {
-        final YAMLFactory yamlFactory = new YAMLFactory();
-        final ObjectMapper objectMapper = new ObjectMapper(yamlFactory);
-        return objectMapper.readValue(url, new TypeReference<List<KnownFeaturePack>>(){});
+        return YamlSupport.reader(PACKS_TYPE).readValue(url);
     }
 
     public String getName() {
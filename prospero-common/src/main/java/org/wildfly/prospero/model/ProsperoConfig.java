@@ -21,14 +21,13 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.wildfly.prospero.Messages;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
@@ -38,12 +37,19 @@ import java.util.stream.Collectors;
 public class ProsperoConfig {
     private final List<ChannelRef> channels;
     private final List<RepositoryRef> repositories;
+    private final DownloadSettings downloads;
+
+    public ProsperoConfig(List<ChannelRef> channels, List<RepositoryRef> repositories) {
+        this(channels, repositories, null);
+    }
 
     @JsonCreator
     public ProsperoConfig(@JsonProperty(value = "channels") List<ChannelRef> channels,
-                          @JsonProperty(value = "repositories") List<RepositoryRef> repositories) {
+                          @JsonProperty(value = "repositories") List<RepositoryRef> repositories,
+                          @JsonProperty(value = "downloads") DownloadSettings downloads) {
         this.channels = channels;
         this.repositories = repositories;
+        this.downloads = downloads;
     }
 
     public List<ChannelRef> getChannels() {
@@ -54,6 +60,13 @@ public class ProsperoConfig {
         return repositories;
     }
 
+    /**
+     * Download limits configured for the installation, {@code null} if not configured.
+     */
+    public DownloadSettings getDownloads() {
+        return downloads;
+    }
+
     public void addChannel(ChannelRef channelRef) {
         // Check that neither GAV nor URL of added channel is equal to GAVs or URLs of existing channels.
         if (StringUtils.isNotBlank(channelRef.getGav())) {
@@ -122,13 +135,17 @@ public class ProsperoConfig {
     }
 
     public void writeConfig(File configFile) throws IOException {
-        ProsperoConfig toWrite = new ProsperoConfig(this.getChannels().stream().map(ChannelRef::new).collect(Collectors.toList()), this.getRepositories());
-        new ObjectMapper(new YAMLFactory()).writeValue(configFile, toWrite);
+        ProsperoConfig toWrite = new ProsperoConfig(this.getChannels().stream().map(ChannelRef::new).collect(Collectors.toList()), this.getRepositories(),
+                this.getDownloads());
+        YamlSupport.writer().writeValue(configFile, toWrite);
     }
 
     public static ProsperoConfig readConfig(Path path) throws IOException {
-        final ObjectMapper objectMapper = new ObjectMapper(new YAMLFactory());
-        return objectMapper.readValue(path.toFile(), ProsperoConfig.class);
+        return YamlSupport.reader(ProsperoConfig.class).readValue(path.toFile());
+    }
+
+    public static ProsperoConfig readConfig(InputStream is) throws IOException {
+        return YamlSupport.reader(ProsperoConfig.class).readValue(is);
     }
 
     @JsonIgnore
@@ -17,21 +17,37 @@
 
 package org.wildfly.prospero.promotion;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
 import org.wildfly.channel.ArtifactCoordinate;
+import org.wildfly.channel.Channel;
+import org.wildfly.channel.ChannelMapper;
+import org.wildfly.channel.InvalidChannelException;
+import org.wildfly.prospero.Messages;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -42,12 +58,25 @@ public class ArtifactBundle implements AutoCloseable {
     public static final String BUNDLE_REPO_FOLDER = "repository";
     public static final String FS = "/";
     public static final String ARTIFACT_LIST_YAML = "artifact-list.yaml";
+    public static final String MANIFEST_YAML = "manifest.yaml";
     private final Path extracted;
+    // set only if the bundle is read directly from the archive
+    private final FileSystem zipFs;
+    private Path workDir;
     private List<ArtifactCoordinate> artifactCoordinates;
 
     private ArtifactBundle(Path extracted) throws IOException {
-        this.extracted = extracted;
-        this.artifactCoordinates = CustomArtifactList.readFrom(extracted.resolve(ARTIFACT_LIST_YAML)).getArtifactCoordinates();
+        this(extracted, null);
+    }
+
+    private ArtifactBundle(Path root, FileSystem zipFs) throws IOException {
+        this.extracted = root;
+        this.zipFs = zipFs;
+        final Path artifactList = root.resolve(ARTIFACT_LIST_YAML);
+        // exported installation metadata doesn't have to contain any artifacts
+        this.artifactCoordinates = Files.exists(artifactList) || zipFs == null
+                ? CustomArtifactList.readFrom(artifactList).getArtifactCoordinates()
+                : Collections.emptyList();
     }
 
     public List<ArtifactCoordinate> getArtifactList() {
@@ -55,13 +84,119 @@ public class ArtifactBundle implements AutoCloseable {
     }
 
 
+    /**
+     * The manifest of an update bundle.
+     *
+     * @return manifest or empty if the bundle doesn't contain one
+     */
+    public Optional<Channel> getManifest() throws IOException {
+        final Path manifestFile = extracted.resolve(MANIFEST_YAML);
+        if (!Files.exists(manifestFile)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(ChannelMapper.fromString(Files.readString(manifestFile)).get(0));
+        } catch (InvalidChannelException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The repository folder of the bundle. If the bundle was {@link #open(Path) opened} rather than extracted,
+     * the path belongs to the archive's zip {@code FileSystem}.
+     */
     public Path getRepository() {
         return extracted.resolve(BUNDLE_REPO_FOLDER);
     }
 
+    /**
+     * Locates the listed artifacts in the bundle and verifies them against their SHA-1 checksums.
+     * Artifacts of an opened bundle are copied out of the archive and verified in a single pass, as the deployment
+     * needs them as files. Nothing else in the archive is extracted.
+     *
+     * @return artifacts with files set
+     * @throws IOException if an artifact is missing, lies outside the bundle repository or doesn't match its checksum
+     */
+    public List<Artifact> resolveArtifacts() throws IOException {
+        return resolveArtifacts(zipFs == null ? null : getWorkDir());
+    }
+
+    /**
+     * Copies the listed artifacts into a folder with Maven repository layout, e.g. a local Maven repository, verifying
+     * them against their SHA-1 checksums on the way.
+     *
+     * @return artifacts with files set to the copies
+     */
+    public List<Artifact> copyArtifacts(Path targetRepository) throws IOException {
+        return resolveArtifacts(Objects.requireNonNull(targetRepository));
+    }
+
+    private List<Artifact> resolveArtifacts(Path targetRepository) throws IOException {
+        final Path repository = getRepository();
+        final List<Artifact> artifacts = new ArrayList<>(artifactCoordinates.size());
+        for (ArtifactCoordinate coordinate : artifactCoordinates) {
+            final String extension = (coordinate.getExtension() == null || coordinate.getExtension().isEmpty()) ? "jar" : coordinate.getExtension();
+            final Artifact artifact = new DefaultArtifact(coordinate.getGroupId(), coordinate.getArtifactId(),
+                    coordinate.getClassifier(), extension, coordinate.getVersion());
+            final String relativePath = repositoryPath(artifact);
+            final Path entry = checkContained(repository, repository.resolve(relativePath));
+            if (!Files.isRegularFile(entry)) {
+                throw Messages.MESSAGES.bundleArtifactNotFound(relativePath);
+            }
+
+            final File file;
+            final MessageDigest digest = DigestUtils.getSha1Digest();
+            if (targetRepository == null) {
+                file = entry.toFile();
+                try (InputStream is = Files.newInputStream(entry)) {
+                    DigestUtils.updateDigest(digest, is);
+                }
+            } else {
+                final Path target = checkContained(targetRepository, targetRepository.resolve(relativePath));
+                Files.createDirectories(target.getParent());
+                try (InputStream is = new DigestInputStream(Files.newInputStream(entry), digest)) {
+                    Files.copy(is, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                file = target.toFile();
+            }
+
+            final Path checksumEntry = entry.resolveSibling(entry.getFileName() + ".sha1");
+            if (Files.exists(checksumEntry)) {
+                final String expected = Files.readString(checksumEntry).trim();
+                final String actual = Hex.encodeHexString(digest.digest());
+                if (!expected.equalsIgnoreCase(actual)) {
+                    throw Messages.MESSAGES.bundleChecksumMismatch(relativePath, expected, actual);
+                }
+            }
+
+            artifacts.add(artifact.setFile(file));
+        }
+        return artifacts;
+    }
+
     @Override
-    public void close() {
-        FileUtils.deleteQuietly(extracted.toFile());
+    public void close() throws IOException {
+        if (zipFs != null) {
+            zipFs.close();
+            if (workDir != null) {
+                FileUtils.deleteQuietly(workDir.toFile());
+            }
+        } else {
+            FileUtils.deleteQuietly(extracted.toFile());
+        }
+    }
+
+    /**
+     * Opens the bundle through a zip {@code FileSystem} without extracting it.
+     */
+    public static ArtifactBundle open(Path archivePath) throws IOException {
+        final FileSystem zipFs = FileSystems.newFileSystem(archivePath, (ClassLoader) null);
+        try {
+            return new ArtifactBundle(zipFs.getPath(FS), zipFs);
+        } catch (IOException | RuntimeException e) {
+            zipFs.close();
+            throw e;
+        }
     }
 
     public static ArtifactBundle extract(Path archivePath) throws IOException {
@@ -86,59 +221,130 @@ public class ArtifactBundle implements AutoCloseable {
         }
 
         try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(archive))) {
-            zos.putNextEntry(new ZipEntry(ARTIFACT_LIST_YAML));
-            final CustomArtifactList artifactList = new CustomArtifactList(artifacts.stream().map(a-> CustomArtifact.from(a)).collect(Collectors.toList()));
-            final String listYaml = artifactList.writeToString();
-            zos.write(listYaml.getBytes(StandardCharsets.UTF_8), 0, listYaml.length());
-
-            zos.putNextEntry(new ZipEntry(BUNDLE_REPO_FOLDER + FS));
-            for (Artifact artifact : artifacts) {
-                String entry = BUNDLE_REPO_FOLDER + FS;
-                for (String dir : artifact.getGroupId().split("\\.")) {
-                    entry += dir + FS;
-                    zos.putNextEntry(new ZipEntry(entry));
-                }
-                entry += artifact.getArtifactId() + FS;
-                zos.putNextEntry(new ZipEntry(entry));
-                entry += artifact.getVersion() + FS;
-                zos.putNextEntry(new ZipEntry(entry));
-                entry += artifact.getFile().getName();
-                String fileName = entry;
-                zos.putNextEntry(new ZipEntry(fileName));
-
-                try(FileInputStream fis = new FileInputStream(artifact.getFile())) {
-                    byte[] buffer = new byte[1024];
-                    int len;
-                    while ((len = fis.read(buffer)) > 0) {
-                        zos.write(buffer, 0, len);
-                    }
-                }
+            writeArtifacts(artifacts, zos);
+        }
 
-                entry = fileName + ".md5";
-                zos.putNextEntry(new ZipEntry(entry));
-                final String md5 = DigestUtils.md5Hex(new FileInputStream(artifact.getFile()));
-                zos.write(md5.getBytes(), 0, md5.getBytes().length);
+        return archive.toPath();
+    }
 
-                entry = fileName + ".sha1";
-                zos.putNextEntry(new ZipEntry(entry));
-                final String sha1 = DigestUtils.sha1Hex(new FileInputStream(artifact.getFile()));
-                zos.write(sha1.getBytes(), 0, sha1.getBytes().length);
-            }
+    /**
+     * Creates a bundle with the same layout as a customization bundle, that in addition contains the manifest
+     * the installation should be updated to.
+     *
+     * @param artifacts - artifacts that changed compared to the installation, can be empty
+     * @param manifest - the manifest of the updated installation
+     * @param archive - target file
+     */
+    public static Path createUpdateArchive(List<? extends Artifact> artifacts, Channel manifest, File archive) throws IOException {
+        Objects.requireNonNull(artifacts);
+        Objects.requireNonNull(manifest);
+        Objects.requireNonNull(archive);
+
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(archive))) {
+            zos.putNextEntry(new ZipEntry(MANIFEST_YAML));
+            zos.write(ChannelMapper.toYaml(manifest).getBytes(StandardCharsets.UTF_8));
+
+            writeArtifacts(artifacts, zos);
         }
 
         return archive.toPath();
     }
 
+    /**
+     * Writes the {@link #ARTIFACT_LIST_YAML} and the artifact files with their checksums into {@link #BUNDLE_REPO_FOLDER}
+     * of the archive, using Maven repository layout.
+     */
+    public static void writeArtifacts(List<? extends Artifact> artifacts, ZipOutputStream zos) throws IOException {
+        zos.putNextEntry(new ZipEntry(ARTIFACT_LIST_YAML));
+        final CustomArtifactList artifactList = new CustomArtifactList(artifacts.stream().map(a-> CustomArtifact.from(a)).collect(Collectors.toList()));
+        final String listYaml = artifactList.writeToString();
+        zos.write(listYaml.getBytes(StandardCharsets.UTF_8));
+
+        writeRepository(artifacts, zos);
+    }
+
+    private static void writeRepository(List<? extends Artifact> artifacts, ZipOutputStream zos) throws IOException {
+        // artifacts can share parent folders, each folder entry has to be written only once
+        final Set<String> folders = new HashSet<>();
+        zos.putNextEntry(new ZipEntry(BUNDLE_REPO_FOLDER + FS));
+        for (Artifact artifact : artifacts) {
+            String entry = BUNDLE_REPO_FOLDER + FS;
+            for (String dir : artifact.getGroupId().split("\\.")) {
+                entry += dir + FS;
+                putFolderEntry(zos, folders, entry);
+            }
+            entry += artifact.getArtifactId() + FS;
+            putFolderEntry(zos, folders, entry);
+            entry += artifact.getVersion() + FS;
+            putFolderEntry(zos, folders, entry);
+            // use the repository layout name, unless the artifact doesn't specify an extension
+            entry += artifact.getExtension().isEmpty() ? artifact.getFile().getName() : fileName(artifact);
+            String fileName = entry;
+            zos.putNextEntry(new ZipEntry(fileName));
+
+            // compute checksums while copying, so that the file is read only once
+            final MessageDigest md5 = DigestUtils.getMd5Digest();
+            final MessageDigest sha1 = DigestUtils.getSha1Digest();
+            try (InputStream is = new DigestInputStream(new DigestInputStream(new FileInputStream(artifact.getFile()), md5), sha1)) {
+                is.transferTo(zos);
+            }
+
+            zos.putNextEntry(new ZipEntry(fileName + ".md5"));
+            zos.write(Hex.encodeHexString(md5.digest()).getBytes(StandardCharsets.US_ASCII));
+
+            zos.putNextEntry(new ZipEntry(fileName + ".sha1"));
+            zos.write(Hex.encodeHexString(sha1.digest()).getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private static void putFolderEntry(ZipOutputStream zos, Set<String> folders, String entry) throws IOException {
+        if (folders.add(entry)) {
+            zos.putNextEntry(new ZipEntry(entry));
+        }
+    }
+
+    private Path getWorkDir() throws IOException {
+        if (workDir == null) {
+            workDir = Files.createTempDirectory("customization");
+        }
+        return workDir;
+    }
+
+    private static String repositoryPath(Artifact artifact) {
+        return artifact.getGroupId().replace('.', '/') + FS
+                + artifact.getArtifactId() + FS
+                + artifact.getVersion() + FS
+                + fileName(artifact);
+    }
+
+    private static String fileName(Artifact artifact) {
+        final StringBuilder sb = new StringBuilder()
+                .append(artifact.getArtifactId()).append('-').append(artifact.getVersion());
+        if (!artifact.getClassifier().isEmpty()) {
+            sb.append('-').append(artifact.getClassifier());
+        }
+        return sb.append('.').append(artifact.getExtension()).toString();
+    }
+
+    private static Path checkContained(Path root, Path path) throws IOException {
+        final Path normalized = path.normalize();
+        if (!normalized.startsWith(root.normalize())) {
+            throw Messages.MESSAGES.invalidBundleEntry(root.relativize(path).toString());
+        }
+        return normalized;
+    }
+
     private static Path unzipArchive(File archivePath) throws IOException {
         final Path extracted = Files.createTempDirectory("customization");
         try (ZipInputStream zis = new ZipInputStream(new FileInputStream(archivePath))) {
 
             ZipEntry entry;
             while ((entry = zis.getNextEntry()) != null) {
+                final Path target = checkContained(extracted, extracted.resolve(entry.getName()));
                 if (entry.isDirectory()) {
-                    Files.createDirectories(extracted.resolve(entry.getName()));
+                    Files.createDirectories(target);
                 } else {
-                    Files.copy(zis, extracted.resolve(entry.getName()), StandardCopyOption.REPLACE_EXISTING);
+                    Files.copy(zis, target, StandardCopyOption.REPLACE_EXISTING);
                 }
             }
         }
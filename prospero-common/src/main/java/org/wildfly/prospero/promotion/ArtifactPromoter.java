@@ -17,13 +17,18 @@
 
 package org.wildfly.prospero.promotion;
 
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
 import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryException;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.deployment.DeployRequest;
 import org.eclipse.aether.deployment.DeploymentException;
+import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.resolution.ArtifactResult;
@@ -37,22 +42,45 @@ import org.wildfly.channel.ChannelMapper;
 import org.wildfly.channel.Stream;
 import org.wildfly.channel.maven.ChannelCoordinate;
 import org.wildfly.channel.maven.VersionResolverFactory;
+import org.wildfly.channel.version.VersionMatcher;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 public class ArtifactPromoter {
 
     private static final Logger log = Logger.getLogger(ArtifactPromoter.class);
+    // artifacts are resolved and deployed in batches of this size, several batches at a time
+    static final int BATCH_SIZE = 100;
+    // smaller batches for remote repositories, as artifacts in one batch are uploaded one after another
+    static final int REMOTE_BATCH_SIZE = 10;
+    private static final int BATCH_PARALLELISM = 4;
+    private static final int DEPLOY_ATTEMPTS = 3;
+    private static final long DEPLOY_RETRY_DELAY_MS = 500;
+    private static final List<String> SUPPORTED_PROTOCOLS = Arrays.asList("file", "http", "https");
 
     private RepositorySystem system;
     private DefaultRepositorySystemSession session;
@@ -63,8 +91,8 @@ public class ArtifactPromoter {
         this.session = session;
         this.targetRepository = targetRepository;
 
-        if (!targetRepository.getProtocol().equals("file")) {
-            throw new IllegalArgumentException("Promoting to non-file repositories is not currently supported");
+        if (!SUPPORTED_PROTOCOLS.contains(targetRepository.getProtocol())) {
+            throw new IllegalArgumentException("Promoting to " + targetRepository.getProtocol() + " repositories is not supported");
         }
     }
 
@@ -77,9 +105,29 @@ public class ArtifactPromoter {
             return;
         }
 
-        final List<ArtifactResult> results = resolveArtifactsFromBundle(artifacts, sourceRepository);
+        final List<Artifact> resolved = resolveArtifactsFromBundle(artifacts, sourceRepository).stream()
+                .map(ArtifactResult::getArtifact)
+                .collect(Collectors.toList());
+
+        promote(resolved, coordinate);
+    }
+
+    /**
+     * Deploys artifacts that are already available locally and adds them to the customization channel.
+     *
+     * @param artifacts - artifacts with files set
+     * @param coordinate - GA of the customization channel
+     */
+    public void promote(List<Artifact> artifacts, ChannelCoordinate coordinate) throws DeploymentException, IOException {
+        Objects.requireNonNull(artifacts);
+        Objects.requireNonNull(coordinate);
+
+        if (artifacts.isEmpty()) {
+            log.debug("No artifacts to promote");
+            return;
+        }
 
-        deployResolvedArtifacts(results);
+        deployResolvedArtifacts(artifacts);
 
         List<Stream> streams = artifacts.stream()
                 .map(a->new Stream(a.getGroupId(), a.getArtifactId(), a.getVersion()))
@@ -94,11 +142,55 @@ public class ArtifactPromoter {
 
         final Channel channel = resolveDeployedChannel(coordinate, version);
 
-        if (!channel.getStreams().addAll(streams)) {
+        final Optional<Channel> merged = mergeStreams(channel, streams);
+        if (merged.isEmpty()) {
             return;
         }
 
-        deployChannel(coordinate, version, channel);
+        deployChannel(coordinate, version, merged.get());
+    }
+
+    /*
+     * Merges promoted streams into the channel, keeping a single stream per GA with the newest version. Streams are
+     * ordered by groupId and artifactId, so that subsequent channel versions can be compared easily.
+     * Returns empty Optional if the merge didn't change the channel.
+     */
+    private Optional<Channel> mergeStreams(Channel channel, List<Stream> promoted) {
+        final Map<String, Stream> index = new HashMap<>();
+        int existing = 0;
+        for (Stream stream : channel.getStreams()) {
+            existing++;
+            index.merge(stream.getGroupId() + ":" + stream.getArtifactId(), stream, ArtifactPromoter::newer);
+        }
+        boolean changed = index.size() != existing;
+
+        for (Stream stream : promoted) {
+            final String ga = stream.getGroupId() + ":" + stream.getArtifactId();
+            final Stream current = index.get(ga);
+            if (current == null || newer(current, stream) != current) {
+                index.put(ga, stream);
+                changed = true;
+            }
+        }
+
+        if (!changed) {
+            return Optional.empty();
+        }
+
+        final List<Stream> streams = new ArrayList<>(index.values());
+        streams.sort(Comparator.comparing(Stream::getGroupId).thenComparing(Stream::getArtifactId));
+        return Optional.of(new Channel(channel.getName(), channel.getDescription(), channel.getVendor(),
+                channel.getChannelRequirements(), streams));
+    }
+
+    private static Stream newer(Stream current, Stream candidate) {
+        if (candidate.getVersion() == null) {
+            return current;
+        }
+        if (current.getVersion() == null) {
+            return candidate;
+        }
+        return VersionMatcher.COMPARATOR.compare(candidate.getVersion(), current.getVersion()) > 0 ? candidate : current;
     }
 
     private List<ArtifactResult> resolveArtifactsFromBundle(List<ArtifactCoordinate> artifacts, RemoteRepository sourceRepository) throws ArtifactResolutionException {
@@ -111,15 +203,233 @@ public class ArtifactPromoter {
             return new ArtifactRequest(mavenArtifact, repositories, null);
         }).collect(Collectors.toList());
 
-        return system.resolveArtifacts(session, requests);
+        return inBatches(toBatches(requests, ArtifactRequest::getArtifact, BATCH_SIZE),
+                batch -> system.resolveArtifacts(session, batch), ArtifactResolutionException.class);
     }
 
-    private void deployResolvedArtifacts(List<ArtifactResult> results) throws DeploymentException {
-        log.debugf("Deploying %s artifacts from custom bundle to %s", results.size(), targetRepository.getUrl());
+    private void deployResolvedArtifacts(List<Artifact> resolved) throws DeploymentException, IOException {
+        final ChecksumSession checksumSession = isRemoteTarget() ? new ChecksumSession() : null;
+        final int batchSize = isRemoteTarget() ? REMOTE_BATCH_SIZE : BATCH_SIZE;
+        try {
+            // deployed checksums are checked within the batches, so that the checks run in parallel as well
+            inBatches(toBatches(resolved, a -> a, batchSize), batch -> {
+                final List<Artifact> changed = notDeployed(batch, checksumSession);
+                if (!changed.isEmpty()) {
+                    log.debugf("Deploying %s artifacts from custom bundle to %s", changed.size(), targetRepository.getUrl());
+                    deploy(changed);
+                }
+                return changed;
+            }, DeploymentException.class);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if (checksumSession != null) {
+                checksumSession.close();
+            }
+        }
+    }
+
+    private List<Artifact> notDeployed(List<Artifact> batch, ChecksumSession checksumSession) {
+        try {
+            final Map<Artifact, String> remoteChecksums = checksumSession == null ? Collections.emptyMap()
+                    : checksumSession.remoteChecksums(batch);
+            final List<Artifact> changed = new ArrayList<>();
+            for (Artifact artifact : batch) {
+                if (isDeployed(artifact, remoteChecksums)) {
+                    log.debugf("Artifact %s is already present in %s, skipping", artifact, targetRepository.getUrl());
+                } else {
+                    changed.add(artifact);
+                }
+            }
+            return changed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deploy(List<Artifact> artifacts) throws DeploymentException {
         final DeployRequest deployRequest = new DeployRequest();
         deployRequest.setRepository(targetRepository);
-        results.stream().forEach(result -> deployRequest.setArtifacts(Arrays.asList(result.getArtifact())));
-        system.deploy(session, deployRequest);
+        deployRequest.setArtifacts(artifacts);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                system.deploy(session, deployRequest);
+                return;
+            } catch (DeploymentException e) {
+                if (!isRemoteTarget() || attempt >= DEPLOY_ATTEMPTS) {
+                    throw e;
+                }
+                final long delay = DEPLOY_RETRY_DELAY_MS << (attempt - 1);
+                log.debugf(e, "Deployment to %s failed, retrying in %d ms", targetRepository.getUrl(), delay);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private boolean isRemoteTarget() {
+        return !targetRepository.getProtocol().equals("file");
+    }
+
+    private boolean isDeployed(Artifact artifact, Map<Artifact, String> remoteChecksums) throws IOException {
+        if (artifact.isSnapshot() || artifact.getFile() == null) {
+            return false;
+        }
+
+        final String expected;
+        try (InputStream is = Files.newInputStream(artifact.getFile().toPath())) {
+            expected = DigestUtils.sha1Hex(is);
+        }
+
+        if (isRemoteTarget()) {
+            return expected.equalsIgnoreCase(remoteChecksums.get(artifact));
+        }
+
+        final Path deployed = Paths.get(URI.create(targetRepository.getUrl())).resolve(repositoryPath(artifact));
+        if (!Files.exists(deployed)) {
+            return false;
+        }
+        final Path checksumFile = deployed.resolveSibling(deployed.getFileName() + ".sha1");
+        if (Files.exists(checksumFile)) {
+            final String recorded = Files.readString(checksumFile).trim().split("\\s+")[0];
+            return expected.equalsIgnoreCase(recorded);
+        }
+        try (InputStream is = Files.newInputStream(deployed)) {
+            return expected.equals(DigestUtils.sha1Hex(is));
+        }
+    }
+
+    /*
+     * Reads checksums deployed in the target repository. Checksum files are downloaded into a throwaway local
+     * repository, so that a checksum cached by an earlier promotion is never compared instead of the deployed one.
+     */
+    private class ChecksumSession implements AutoCloseable {
+
+        private final Path localRepository;
+        private final DefaultRepositorySystemSession checksumSession;
+        private final RemoteRepository repository;
+
+        ChecksumSession() throws IOException {
+            localRepository = Files.createTempDirectory("promoted-checksums");
+            checksumSession = new DefaultRepositorySystemSession(session);
+            checksumSession.setLocalRepositoryManager(system.newLocalRepositoryManager(checksumSession,
+                    new LocalRepository(localRepository.toFile())));
+            // checksum files have no checksums of their own
+            repository = new RemoteRepository.Builder(targetRepository)
+                    .setPolicy(new RepositoryPolicy(true, RepositoryPolicy.UPDATE_POLICY_ALWAYS, RepositoryPolicy.CHECKSUM_POLICY_IGNORE))
+                    .build();
+        }
+
+        /*
+         * Resolves the checksums of all artifacts in one request. Artifacts without a deployed checksum are left out.
+         */
+        Map<Artifact, String> remoteChecksums(List<Artifact> artifacts) throws IOException {
+            final List<ArtifactRequest> requests = new ArrayList<>();
+            for (Artifact artifact : artifacts) {
+                final Artifact checksum = new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), artifact.getClassifier(),
+                        artifact.getExtension() + ".sha1", artifact.getVersion());
+                requests.add(new ArtifactRequest(checksum, Arrays.asList(repository), null));
+            }
+
+            List<ArtifactResult> results;
+            try {
+                results = system.resolveArtifacts(checksumSession, requests);
+            } catch (ArtifactResolutionException e) {
+                // checksums of artifacts not deployed yet are missing, the rest are still usable
+                results = e.getResults();
+            }
+
+            final Map<Artifact, String> checksums = new HashMap<>();
+            for (int i = 0; i < artifacts.size(); i++) {
+                final ArtifactResult result = results.get(i);
+                if (result.isResolved()) {
+                    checksums.put(artifacts.get(i), Files.readString(result.getArtifact().getFile().toPath()).trim().split("\\s+")[0]);
+                } else {
+                    log.tracef("No checksum found for %s in %s", artifacts.get(i), targetRepository.getUrl());
+                }
+            }
+            return checksums;
+        }
+
+        @Override
+        public void close() {
+            FileUtils.deleteQuietly(localRepository.toFile());
+        }
+    }
+
+    private static String repositoryPath(Artifact artifact) {
+        final String classifier = artifact.getClassifier() == null || artifact.getClassifier().isEmpty() ? "" : "-" + artifact.getClassifier();
+        return artifact.getGroupId().replace('.', '/') + "/" + artifact.getArtifactId() + "/" + artifact.getBaseVersion() + "/"
+                + artifact.getArtifactId() + "-" + artifact.getVersion() + classifier + "." + artifact.getExtension();
+    }
+
+    /*
+     * Splits items into batches of at most batchSize. All versions of the same GA are kept in one batch, so that
+     * concurrent batches never update the same maven-metadata.xml.
+     */
+    private static <T> List<List<T>> toBatches(List<T> items, Function<T, Artifact> toArtifact, int batchSize) {
+        final Map<String, List<T>> byGa = new LinkedHashMap<>();
+        for (T item : items) {
+            final Artifact artifact = toArtifact.apply(item);
+            byGa.computeIfAbsent(artifact.getGroupId() + ":" + artifact.getArtifactId(), k -> new ArrayList<>()).add(item);
+        }
+
+        final List<List<T>> batches = new ArrayList<>();
+        List<T> current = new ArrayList<>();
+        for (List<T> group : byGa.values()) {
+            if (!current.isEmpty() && current.size() + group.size() > batchSize) {
+                batches.add(current);
+                current = new ArrayList<>();
+            }
+            current.addAll(group);
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    private <T, R, E extends RepositoryException> List<R> inBatches(List<List<T>> batches, BatchOperation<T, R, E> operation,
+                                                                  Class<E> exceptionType) throws E {
+        if (batches.size() <= 1) {
+            return batches.isEmpty() ? new ArrayList<>() : operation.execute(batches.get(0));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(BATCH_PARALLELISM, batches.size()));
+        try {
+            final List<Future<List<R>>> futures = new ArrayList<>();
+            for (List<T> batch : batches) {
+                futures.add(executor.submit(() -> operation.execute(batch)));
+            }
+            final List<R> results = new ArrayList<>();
+            for (Future<List<R>> future : futures) {
+                results.addAll(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while promoting artifacts", e);
+        } catch (ExecutionException e) {
+            if (exceptionType.isInstance(e.getCause())) {
+                throw exceptionType.cast(e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Unable to promote artifacts", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchOperation<T, R, E extends RepositoryException> {
+        List<R> execute(List<T> batch) throws E;
     }
 
     private Optional<String> latestAvailableChannelVersion(VersionRangeRequest vr) {
@@ -162,10 +472,7 @@ public class ArtifactPromoter {
                     "channel", "yaml", newVersion, null, tempFile.toFile());
             channelArtifact.setFile(tempFile.toFile());
 
-            final DeployRequest deployRequest = new DeployRequest();
-            deployRequest.setRepository(targetRepository);
-            deployRequest.setArtifacts(Arrays.asList(channelArtifact));
-            system.deploy(session, deployRequest);
+            deploy(Arrays.asList(channelArtifact));
         } finally {
             Files.delete(tempFile);
         }
@@ -20,12 +20,13 @@ package org.wildfly.prospero.promotion;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import org.wildfly.channel.ArtifactCoordinate;
+import org.wildfly.prospero.model.YamlSupport;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -49,19 +50,20 @@ public class CustomArtifactList {
     }
 
     public static CustomArtifactList readFrom(Path path) throws IOException {
-        final ObjectMapper objectMapper = new ObjectMapper(new YAMLFactory());
-        return objectMapper.readValue(path.toUri().toURL(), CustomArtifactList.class);
+        try (InputStream is = Files.newInputStream(path)) {
+            return YamlSupport.reader(CustomArtifactList.class).readValue(is);
+        }
     }
 
     @JsonIgnore
     public void writeTo(Path path) throws IOException {
-        new ObjectMapper(new YAMLFactory()).writeValue(path.toFile(), this);
+        YamlSupport.writer().writeValue(path.toFile(), this);
     }
 
     @JsonIgnore
     public String writeToString() throws IOException {
         final StringWriter stringWriter = new StringWriter();
-        new ObjectMapper(new YAMLFactory()).writeValue(stringWriter, this);
+        YamlSupport.writer().writeValue(stringWriter, this);
         return stringWriter.toString();
     }
 }
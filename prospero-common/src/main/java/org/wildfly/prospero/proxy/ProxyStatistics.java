@@ -0,0 +1,107 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.proxy;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a {@link RepositoryProxy}. Artifacts found in the cache are hits, artifacts that had to be downloaded
+ * from the upstream repositories are misses. Requests waiting for a download started by another request count as hits.
+ */
+public class ProxyStatistics {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder metadataRequests = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesServed = new LongAdder();
+
+    void request() {
+        requests.increment();
+    }
+
+    void hit() {
+        hits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    void metadataRequest() {
+        metadataRequests.increment();
+    }
+
+    void notFound() {
+        notFound.increment();
+    }
+
+    void error() {
+        errors.increment();
+    }
+
+    void served(long bytes) {
+        bytesServed.add(bytes);
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getMetadataRequests() {
+        return metadataRequests.sum();
+    }
+
+    public long getNotFound() {
+        return notFound.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getBytesServed() {
+        return bytesServed.sum();
+    }
+
+    /**
+     * @return share of artifact requests served from the cache, between 0 and 1
+     */
+    public double getHitRate() {
+        final long hits = getHits();
+        final long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("requests=%d, hits=%d, misses=%d, hitRate=%.2f, metadata=%d, notFound=%d, errors=%d, bytesServed=%d",
+                getRequests(), getHits(), getMisses(), getHitRate(), getMetadataRequests(), getNotFound(), getErrors(),
+                getBytesServed());
+    }
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Writer;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.metadata.DefaultMetadata;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.LocalArtifactResult;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.MetadataRequest;
+import org.eclipse.aether.resolution.MetadataResult;
+import org.jboss.logging.Logger;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+
+/**
+ * Maven repository served over HTTP that resolves the requested files from a list of upstream repositories.
+ *
+ * Artifacts are downloaded once into the local repository of the {@link MavenSessionManager} and served from there
+ * afterwards. Concurrent requests for an artifact that is being downloaded wait for that download instead of starting
+ * another one. {@code maven-metadata.xml} is revalidated with the upstream repositories on each request and merged,
+ * checksums are calculated from the served content. Counters are available at {@value #STATS_PATH}.
+ */
+public class RepositoryProxy implements AutoCloseable {
+
+    public static final String STATS_PATH = "/.prospero/stats";
+
+    private static final Logger logger = Logger.getLogger(RepositoryProxy.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String METADATA_FILE = "maven-metadata.xml";
+    private static final String SNAPSHOT = "SNAPSHOT";
+    private static final Pattern TIMESTAMP = Pattern.compile("\\d{8}\\.\\d{6}-\\d+");
+    private static final Map<String, String> CHECKSUMS = Map.of(
+            ".sha1", "SHA-1",
+            ".md5", "MD5",
+            ".sha256", "SHA-256",
+            ".sha512", "SHA-512");
+
+    private final MavenSessionManager mavenSessionManager;
+    private final List<RemoteRepository> repositories;
+    private final RepositorySystem system;
+    private final RepositorySystemSession session;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ProxyStatistics statistics = new ProxyStatistics();
+    private final Map<String, CompletableFuture<File>> downloads = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> metadata = new ConcurrentHashMap<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    public RepositoryProxy(MavenSessionManager mavenSessionManager, List<RemoteRepository> repositories,
+                           InetSocketAddress address) throws IOException {
+        this.mavenSessionManager = mavenSessionManager;
+        this.repositories = new ArrayList<>(repositories);
+        this.system = mavenSessionManager.getRepositorySystem();
+        this.session = mavenSessionManager.newRepositorySystemSession(system);
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newCachedThreadPool(task -> {
+            final Thread thread = new Thread(task, "repository-proxy");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+        logger.debugf("Repository proxy of %s listening on %s", repositories, getUri());
+    }
+
+    public URI getUri() {
+        final InetSocketAddress address = server.getAddress();
+        final String host = address.getAddress().isAnyLocalAddress() ? "localhost" : address.getHostString();
+        return URI.create(String.format("http://%s:%d/", host, address.getPort()));
+    }
+
+    public ProxyStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Blocks until the proxy is closed.
+     */
+    public void awaitTermination() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        stopped.countDown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            statistics.request();
+            final boolean head = "HEAD".equals(exchange.getRequestMethod());
+            if (!head && !"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            final String path = exchange.getRequestURI().getPath();
+            if (STATS_PATH.equals(path)) {
+                send(exchange, JSON.writeValueAsBytes(statistics), head);
+                return;
+            }
+
+            final String relativePath = path.startsWith("/") ? path.substring(1) : path;
+            final String checksumExtension = CHECKSUMS.keySet().stream()
+                    .filter(relativePath::endsWith)
+                    .findFirst()
+                    .orElse(null);
+            final String resourcePath = checksumExtension == null
+                    ? relativePath : relativePath.substring(0, relativePath.length() - checksumExtension.length());
+            if (resourcePath.isEmpty() || Arrays.asList(resourcePath.split("/")).contains("..")) {
+                notFound(exchange);
+                return;
+            }
+
+            if (resourcePath.endsWith("/" + METADATA_FILE)) {
+                final byte[] data = checksumExtension != null && metadata.containsKey(resourcePath)
+                        ? metadata.get(resourcePath) : resolveMetadata(resourcePath);
+                if (data == null) {
+                    notFound(exchange);
+                } else if (checksumExtension != null) {
+                    send(exchange, checksum(checksumExtension, data), head);
+                } else {
+                    send(exchange, data, head);
+                }
+            } else {
+                final File file = resolveArtifact(resourcePath);
+                if (file == null) {
+                    notFound(exchange);
+                } else if (checksumExtension != null) {
+                    send(exchange, checksum(checksumExtension, file), head);
+                } else {
+                    send(exchange, file, head);
+                }
+            }
+        } catch (Exception e) {
+            statistics.error();
+            logger.debugf(e, "Unable to serve %s", exchange.getRequestURI());
+            if (exchange.getResponseCode() == -1) {
+                exchange.sendResponseHeaders(502, -1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private File resolveArtifact(String path) throws ArtifactResolutionException, InterruptedException {
+        final Artifact artifact = parseArtifact(path);
+        if (artifact == null) {
+            return null;
+        }
+        if (!artifact.isSnapshot()) {
+            final LocalArtifactResult local = session.getLocalRepositoryManager()
+                    .find(session, new LocalArtifactRequest(artifact, repositories, null));
+            if (local.isAvailable()) {
+                statistics.hit();
+                return local.getFile();
+            }
+        }
+
+        final CompletableFuture<File> download = new CompletableFuture<>();
+        final CompletableFuture<File> running = downloads.putIfAbsent(path, download);
+        if (running != null) {
+            statistics.hit();
+            return await(running);
+        }
+        try {
+            statistics.miss();
+            final File file = system.resolveArtifact(session, new ArtifactRequest(artifact, repositories, null))
+                    .getArtifact().getFile();
+            download.complete(file);
+            return file;
+        } catch (ArtifactResolutionException e) {
+            download.completeExceptionally(e);
+            if (e.getResult() != null && e.getResult().isMissing()) {
+                return null;
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            downloads.remove(path, download);
+        }
+    }
+
+    private static File await(CompletableFuture<File> download) throws ArtifactResolutionException, InterruptedException {
+        try {
+            return download.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ArtifactResolutionException) {
+                final ArtifactResolutionException cause = (ArtifactResolutionException) e.getCause();
+                if (cause.getResult() != null && cause.getResult().isMissing()) {
+                    return null;
+                }
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private byte[] resolveMetadata(String path) throws IOException, XmlPullParserException {
+        final org.eclipse.aether.metadata.Metadata requested = parseMetadata(path);
+        if (requested == null) {
+            return null;
+        }
+        statistics.metadataRequest();
+        // metadata is checked only once per session, a new session makes sure changes upstream are picked up
+        final RepositorySystemSession metadataSession = mavenSessionManager.newRepositorySystemSession(system);
+        final List<MetadataRequest> requests = new ArrayList<>();
+        for (RemoteRepository repository : repositories) {
+            requests.add(new MetadataRequest(requested, repository, null));
+        }
+
+        Metadata merged = null;
+        for (MetadataResult result : system.resolveMetadata(metadataSession, requests)) {
+            if (!result.isResolved() || result.getMetadata().getFile() == null || !result.getMetadata().getFile().exists()) {
+                continue;
+            }
+            try (InputStream is = Files.newInputStream(result.getMetadata().getFile().toPath())) {
+                final Metadata read = new MetadataXpp3Reader().read(is, false);
+                if (merged == null) {
+                    merged = read;
+                } else {
+                    merged.merge(read);
+                }
+            }
+        }
+        if (merged == null) {
+            metadata.remove(path);
+            return null;
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new MetadataXpp3Writer().write(out, merged);
+        final byte[] data = out.toByteArray();
+        // served to the checksum requests that follow
+        metadata.put(path, data);
+        return data;
+    }
+
+    static Artifact parseArtifact(String path) {
+        final String[] segments = path.split("/");
+        final int length = segments.length;
+        if (length < 4) {
+            return null;
+        }
+        final String fileName = segments[length - 1];
+        final String version = segments[length - 2];
+        final String artifactId = segments[length - 3];
+        final String groupId = String.join(".", Arrays.copyOfRange(segments, 0, length - 3));
+        if (!fileName.startsWith(artifactId + "-")) {
+            return null;
+        }
+
+        String rest = fileName.substring(artifactId.length() + 1);
+        final String fileVersion;
+        if (rest.startsWith(version)) {
+            fileVersion = version;
+        } else if (version.endsWith("-" + SNAPSHOT)) {
+            // timestamped snapshot, e.g. 1.0-20220101.120000-1
+            final String base = version.substring(0, version.length() - SNAPSHOT.length());
+            final Matcher timestamp = TIMESTAMP.matcher(rest);
+            if (!rest.startsWith(base) || !timestamp.region(base.length(), rest.length()).lookingAt()) {
+                return null;
+            }
+            fileVersion = base + timestamp.group();
+        } else {
+            return null;
+        }
+
+        rest = rest.substring(fileVersion.length());
+        String classifier = "";
+        if (rest.startsWith("-")) {
+            final int dot = rest.indexOf('.');
+            if (dot < 0) {
+                return null;
+            }
+            classifier = rest.substring(1, dot);
+            rest = rest.substring(dot);
+        }
+        if (!rest.startsWith(".") || rest.length() == 1) {
+            return null;
+        }
+        return new DefaultArtifact(groupId, artifactId, classifier, rest.substring(1), fileVersion);
+    }
+
+    static org.eclipse.aether.metadata.Metadata parseMetadata(String path) {
+        final String[] segments = path.split("/");
+        final int length = segments.length;
+        if (length < 3) {
+            return null;
+        }
+        final String parent = segments[length - 2];
+        if (parent.endsWith(SNAPSHOT) && length >= 4) {
+            return new DefaultMetadata(String.join(".", Arrays.copyOfRange(segments, 0, length - 3)), segments[length - 3],
+                    parent, METADATA_FILE, org.eclipse.aether.metadata.Metadata.Nature.SNAPSHOT);
+        }
+        return new DefaultMetadata(String.join(".", Arrays.copyOfRange(segments, 0, length - 2)), parent,
+                METADATA_FILE, org.eclipse.aether.metadata.Metadata.Nature.RELEASE_OR_SNAPSHOT);
+    }
+
+    private static byte[] checksum(String extension, byte[] data) {
+        return Hex.encodeHexString(DigestUtils.getDigest(CHECKSUMS.get(extension)).digest(data))
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] checksum(String extension, File file) throws IOException {
+        try (InputStream is = Files.newInputStream(file.toPath())) {
+            return Hex.encodeHexString(DigestUtils.digest(DigestUtils.getDigest(CHECKSUMS.get(extension)), is))
+                    .getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private void notFound(HttpExchange exchange) throws IOException {
+        statistics.notFound();
+        exchange.sendResponseHeaders(404, -1);
+    }
+
+    private void send(HttpExchange exchange, byte[] data, boolean head) throws IOException {
+        if (head) {
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(200, data.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(data);
+        }
+        statistics.served(data.length);
+    }
+
+    private void send(HttpExchange exchange, File file, boolean head) throws IOException {
+        if (head) {
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            exchange.sendResponseHeaders(200, size);
+            // the JDK server does not expose its socket, the file is transferred channel to channel without
+            // being read into the heap as a whole
+            try (OutputStream os = exchange.getResponseBody(); WritableByteChannel target = Channels.newChannel(os)) {
+                long position = 0;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+            statistics.served(size);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.updates;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.metadata.DefaultMetadata;
+import org.eclipse.aether.metadata.Metadata;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.MetadataRequest;
+import org.eclipse.aether.resolution.MetadataResult;
+import org.jboss.logging.Logger;
+
+/**
+ * Downloads {@code maven-metadata.xml} of all given artifacts from all repositories in a single parallel sweep.
+ *
+ * The resolver remembers which metadata were updated during a session, so the version lookups done afterwards with
+ * the same session read the prefetched files from the local repository instead of contacting each repository again.
+ */
+public class MetadataPrefetcher {
+
+    private static final Logger logger = Logger.getLogger(MetadataPrefetcher.class);
+    private static final String MAVEN_METADATA = "maven-metadata.xml";
+
+    private final RepositorySystem system;
+    private final RepositorySystemSession session;
+    private final List<RemoteRepository> repositories;
+
+    public MetadataPrefetcher(RepositorySystem system, RepositorySystemSession session, List<RemoteRepository> repositories) {
+        this.system = system;
+        this.session = session;
+        this.repositories = repositories;
+    }
+
+    /**
+     * @return number of metadata files found in the repositories
+     */
+    public int prefetch(Collection<? extends Artifact> artifacts) {
+        if (session.isOffline() || repositories.isEmpty()) {
+            return 0;
+        }
+        final Set<String> gas = new LinkedHashSet<>();
+        final List<MetadataRequest> requests = new ArrayList<>();
+        for (Artifact artifact : artifacts) {
+            if (!gas.add(artifact.getGroupId() + ":" + artifact.getArtifactId())) {
+                continue;
+            }
+            final Metadata metadata = new DefaultMetadata(artifact.getGroupId(), artifact.getArtifactId(), MAVEN_METADATA,
+                    Metadata.Nature.RELEASE_OR_SNAPSHOT);
+            for (RemoteRepository repository : repositories) {
+                requests.add(new MetadataRequest(metadata, repository, null));
+            }
+        }
+
+        final long start = System.currentTimeMillis();
+        int found = 0;
+        for (MetadataResult result : system.resolveMetadata(session, requests)) {
+            if (result.isResolved()) {
+                found++;
+            } else if (result.getException() != null) {
+                // the lookup will report the error if the metadata is really needed
+                logger.debugf("Unable to prefetch %s: %s", result.getRequest().getMetadata(), result.getException().getMessage());
+            }
+        }
+        logger.debugf("Prefetched %d of %d metadata files in %d ms", found, requests.size(), System.currentTimeMillis() - start);
+        return found;
+    }
+}
@@ -29,13 +29,18 @@ import org.wildfly.prospero.api.ArtifactChange;
 import org.wildfly.prospero.api.exceptions.ArtifactResolutionException;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.Future;
 
 public class UpdateFinder implements AutoCloseable {
 
@@ -46,57 +51,95 @@ public class UpdateFinder implements AutoCloseable {
     private final ExecutorService executorService;
 
     public UpdateFinder(ChannelSession channelSession, ProvisioningManager provisioningManager) {
+        this(channelSession, provisioningManager, UPDATES_SEARCH_PARALLELISM);
+    }
+
+    /**
+     * @param parallelism maximum number of artifacts looked up at the same time
+     */
+    public UpdateFinder(ChannelSession channelSession, ProvisioningManager provisioningManager, int parallelism) {
         this.channelSession = channelSession;
         this.provisioningManager = provisioningManager;
-        this.executorService = Executors.newWorkStealingPool(UPDATES_SEARCH_PARALLELISM);
+        // checks block on metadata I/O, fixed pool of daemon threads rather than a work-stealing pool
+        this.executorService = Executors.newFixedThreadPool(Math.max(1, parallelism), task -> {
+            final Thread thread = new Thread(task, "update-finder");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     public UpdateSet findUpdates(List<Artifact> artifacts) throws ArtifactResolutionException, ProvisioningException {
-        // use parallel executor to speed up the artifact resolution
-        List<CompletableFuture<Optional<ArtifactChange>>> allPackages = new ArrayList<>();
+        return findUpdates(artifacts, UpdateListener.NONE);
+    }
+
+    /**
+     * An artifact that can't be found in the channels is reported as removed. Any other failure of a check is fatal,
+     * the outstanding checks are cancelled and the failure is thrown as {@link ArtifactResolutionException}.
+     *
+     * @param listener notified about each checked artifact as soon as the check completes
+     */
+    public UpdateSet findUpdates(List<Artifact> artifacts, UpdateListener listener) throws ArtifactResolutionException, ProvisioningException {
+        for (Artifact artifact : artifacts) {
+            Objects.requireNonNull(artifact, "Artifacts to check for updates can't be null");
+        }
+        // use parallel executor to speed up the artifact resolution, each artifact is checked in a separate task
+        final CompletionService<Optional<ArtifactChange>> completionService = new ExecutorCompletionService<>(executorService);
+        final List<Future<Optional<ArtifactChange>>> checks = new ArrayList<>();
+        final Map<Future<Optional<ArtifactChange>>, Artifact> checkedArtifacts = new HashMap<>();
+        listener.searchStarted(artifacts.size());
         for (Artifact artifact : artifacts) {
-            final CompletableFuture<Optional<ArtifactChange>> cf = new CompletableFuture<>();
-            executorService.submit(() -> {
-                try {
-                    final Optional<ArtifactChange> found = findUpdates(artifact);
-                    cf.complete(found);
-                } catch (Exception e) {
-                    cf.completeExceptionally(e);
-                }
-            });
-            allPackages.add(cf);
+            final Future<Optional<ArtifactChange>> check = completionService.submit(() -> findUpdates(artifact));
+            checks.add(check);
+            checkedArtifacts.put(check, artifact);
         }
 
+        final List<ArtifactChange> updates = new ArrayList<>();
         try {
-            CompletableFuture.allOf(allPackages.toArray(new CompletableFuture[]{})).join();
-        } catch (CompletionException e) {
+            // wait in completion order, so that a failed check cancels the outstanding ones straight away
+            for (int i = 0; i < checks.size(); i++) {
+                final Future<Optional<ArtifactChange>> completed = completionService.take();
+                listener.artifactChecked(checkedArtifacts.get(completed), completed.get(), i + 1, checks.size());
+            }
+            for (Future<Optional<ArtifactChange>> check : checks) {
+                check.get().ifPresent(updates::add);
+            }
+        } catch (ExecutionException e) {
+            cancel(checks);
             if (e.getCause() instanceof ArtifactResolutionException) {
                 throw (ArtifactResolutionException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             } else {
-                throw e;
+                throw new CompletionException(e.getCause());
             }
+        } catch (InterruptedException e) {
+            cancel(checks);
+            Thread.currentThread().interrupt();
+            throw new ProvisioningException("Interrupted while searching for updates", e);
         }
 
-        final List<ArtifactChange> updates = allPackages.stream()
-                .map(cf ->cf.getNow(Optional.empty()))
-                .flatMap(Optional::stream)
-                .collect(Collectors.toList());
-
         final ProvisioningPlan fpUpdates = findFPUpdates();
-        return new UpdateSet(fpUpdates, updates);
+        final UpdateSet updateSet = new UpdateSet(fpUpdates, updates);
+        listener.searchCompleted(updateSet);
+        return updateSet;
     }
 
-    private Optional<ArtifactChange> findUpdates(Artifact artifact) throws ArtifactResolutionException {
-        if (artifact == null) {
-            throw Messages.MESSAGES.artifactNotFound(artifact.getGroupId(), artifact.getArtifactId(), null);
+    private static void cancel(List<? extends Future<?>> checks) {
+        for (Future<?> check : checks) {
+            check.cancel(true);
         }
+    }
 
+    private Optional<ArtifactChange> findUpdates(Artifact artifact) throws ArtifactResolutionException {
         final String latestVersion;
         try {
             latestVersion = channelSession.findLatestMavenArtifactVersion(artifact.getGroupId(),
                     artifact.getArtifactId(), artifact.getExtension(), artifact.getClassifier(), null);
         } catch (UnresolvedMavenArtifactException e) {
+            // no longer provided by the channels
             return Optional.of(new ArtifactChange(artifact, null));
+        } catch (RuntimeException e) {
+            throw Messages.MESSAGES.unableToCheckUpdates(artifact.getGroupId(), artifact.getArtifactId(), e.getMessage(), e);
         }
         final Artifact latest = new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), artifact.getExtension(), latestVersion);
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.updates;
+
+import java.util.Optional;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.wildfly.prospero.api.ArtifactChange;
+
+/**
+ * Receives the results of {@link UpdateFinder} as soon as each artifact has been checked.
+ *
+ * All methods are called from the thread calling {@link UpdateFinder#findUpdates(java.util.List, UpdateListener)}.
+ */
+public interface UpdateListener {
+
+    UpdateListener NONE = new UpdateListener() {};
+
+    default void searchStarted(int total) {
+    }
+
+    /**
+     * @param change the update of the artifact, empty if the artifact is up to date
+     * @param checked number of artifacts checked so far, including this one
+     * @param total number of artifacts to check
+     */
+    default void artifactChecked(Artifact artifact, Optional<ArtifactChange> change, int checked, int total) {
+    }
+
+    default void searchCompleted(UpdateSet updates) {
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.wfchannel;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.internal.impl.Maven2RepositoryLayoutFactory;
+import org.eclipse.aether.metadata.Metadata;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.layout.RepositoryLayout;
+import org.eclipse.aether.spi.connector.layout.RepositoryLayoutFactory;
+import org.eclipse.aether.transfer.NoRepositoryLayoutException;
+
+/**
+ * Maven 2 repository layout that also knows about {@code .sha256} checksum files.
+ *
+ * The connector computes every checksum listed by the layout while the file is streamed to disk and validates
+ * the first one the repository provides, so adding SHA-256 here verifies artifacts of repositories publishing
+ * only SHA-256 checksums without reading the files again.
+ */
+public class ChecksumRepositoryLayoutFactory implements RepositoryLayoutFactory {
+
+    static final String SHA_256 = "SHA-256";
+    private static final String SHA_1 = "SHA-1";
+
+    private final Maven2RepositoryLayoutFactory delegate = new Maven2RepositoryLayoutFactory();
+
+    @Override
+    public RepositoryLayout newInstance(RepositorySystemSession session, RemoteRepository repository)
+            throws NoRepositoryLayoutException {
+        return new ChecksumRepositoryLayout(delegate.newInstance(session, repository));
+    }
+
+    @Override
+    public float getPriority() {
+        // preferred over the default layout
+        return delegate.getPriority() + 1;
+    }
+
+    private static class ChecksumRepositoryLayout implements RepositoryLayout {
+
+        private final RepositoryLayout delegate;
+
+        ChecksumRepositoryLayout(RepositoryLayout delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public URI getLocation(Artifact artifact, boolean upload) {
+            return delegate.getLocation(artifact, upload);
+        }
+
+        @Override
+        public URI getLocation(Metadata metadata, boolean upload) {
+            return delegate.getLocation(metadata, upload);
+        }
+
+        @Override
+        public List<Checksum> getChecksums(Artifact artifact, boolean upload, URI location) {
+            return withSha256(delegate.getChecksums(artifact, upload, location), upload, location);
+        }
+
+        @Override
+        public List<Checksum> getChecksums(Metadata metadata, boolean upload, URI location) {
+            return withSha256(delegate.getChecksums(metadata, upload, location), upload, location);
+        }
+
+        // SHA-1 stays first, so repositories publishing it don't get an extra request per file
+        private static List<Checksum> withSha256(List<Checksum> checksums, boolean upload, URI location) {
+            if (upload || checksums.isEmpty() || checksums.stream().anyMatch(c -> SHA_256.equals(c.getAlgorithm()))) {
+                return checksums;
+            }
+            final List<Checksum> result = new ArrayList<>(checksums);
+            int index = 0;
+            while (index < result.size() && SHA_1.equals(result.get(index).getAlgorithm())) {
+                index++;
+            }
+            result.add(index, Checksum.forLocation(location, SHA_256));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.wfchannel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.transfer.AbstractTransferListener;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
+import org.wildfly.prospero.model.DownloadSettings;
+
+/**
+ * Applies {@link DownloadSettings} to transfers of the sessions it is registered with.
+ *
+ * Transfers wait in {@code transferInitiated} until a global and a per-repository slot is free and are slowed down
+ * in {@code transferProgressed} to keep the total rate under the bandwidth limit. Both run on the resolver's
+ * download threads, so waiting there delays only the affected transfer.
+ */
+class DownloadScheduler extends AbstractTransferListener {
+
+    private final Semaphore globalSlots;
+    private final Map<String, Integer> repositoryLimits;
+    private final Map<String, Semaphore> repositorySlots = new ConcurrentHashMap<>();
+    private final Map<TransferResource, Semaphore[]> acquired = new ConcurrentHashMap<>();
+    private final long bandwidthLimit;
+    private long nextFreeNanos;
+
+    DownloadScheduler(DownloadSettings settings) {
+        final Integer maxParallel = settings.getMaxParallelDownloads();
+        this.globalSlots = maxParallel == null ? null : new Semaphore(Math.max(1, maxParallel), true);
+        this.repositoryLimits = settings.getRepositoryLimits();
+        this.bandwidthLimit = settings.getBandwidthLimit() == null ? 0 : settings.getBandwidthLimit();
+    }
+
+    @Override
+    public void transferInitiated(TransferEvent event) throws TransferCancelledException {
+        final TransferResource resource = event.getResource();
+        final Semaphore repositorySlot = repositorySlot(resource.getRepositoryId());
+        try {
+            if (globalSlots != null) {
+                globalSlots.acquire();
+            }
+            if (repositorySlot != null) {
+                try {
+                    repositorySlot.acquire();
+                } catch (InterruptedException e) {
+                    release(globalSlots);
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferCancelledException("Interrupted while waiting for a download slot");
+        }
+        acquired.put(resource, new Semaphore[]{globalSlots, repositorySlot});
+    }
+
+    @Override
+    public void transferProgressed(TransferEvent event) throws TransferCancelledException {
+        if (bandwidthLimit <= 0) {
+            return;
+        }
+        final long waitNanos = reserve(event.getDataLength());
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransferCancelledException("Interrupted while throttling the download");
+            }
+        }
+    }
+
+    @Override
+    public void transferSucceeded(TransferEvent event) {
+        releaseSlots(event.getResource());
+    }
+
+    @Override
+    public void transferFailed(TransferEvent event) {
+        releaseSlots(event.getResource());
+    }
+
+    // returns how long the caller has to wait before the reserved bytes fit within the bandwidth limit
+    private synchronized long reserve(int bytes) {
+        final long now = System.nanoTime();
+        if (nextFreeNanos < now) {
+            nextFreeNanos = now;
+        }
+        final long wait = nextFreeNanos - now;
+        nextFreeNanos += TimeUnit.SECONDS.toNanos(bytes) / bandwidthLimit;
+        return wait;
+    }
+
+    private Semaphore repositorySlot(String repositoryId) {
+        final Integer limit = repositoryId == null ? null : repositoryLimits.get(repositoryId);
+        if (limit == null) {
+            return null;
+        }
+        return repositorySlots.computeIfAbsent(repositoryId, id -> new Semaphore(Math.max(1, limit), true));
+    }
+
+    private void releaseSlots(TransferResource resource) {
+        final Semaphore[] slots = acquired.remove(resource);
+        if (slots != null) {
+            for (Semaphore slot : slots) {
+                release(slot);
+            }
+        }
+    }
+
+    private static void release(Semaphore slot) {
+        if (slot != null) {
+            slot.release();
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.apache.commons.io.FileUtils;
 import org.eclipse.aether.repository.LocalRepository;
 import org.jboss.logging.Logger;
 import org.wildfly.prospero.api.exceptions.ProvisioningRuntimeException;
+import org.wildfly.prospero.model.DownloadSettings;
 import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
 import org.eclipse.aether.AbstractRepositoryListener;
 import org.eclipse.aether.DefaultRepositorySystemSession;
@@ -37,9 +38,12 @@ import org.eclipse.aether.impl.DefaultServiceLocator;
 import org.eclipse.aether.installation.InstallRequest;
 import org.eclipse.aether.installation.InstallationException;
 import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
+import org.eclipse.aether.spi.connector.layout.RepositoryLayoutFactory;
 import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transfer.TransferListener;
 import org.eclipse.aether.transport.file.FileTransporterFactory;
 import org.eclipse.aether.transport.http.HttpTransporterFactory;
+import org.eclipse.aether.util.listener.ChainedTransferListener;
 import org.jboss.galleon.ProvisioningException;
 
 public class MavenSessionManager {
@@ -49,8 +53,21 @@ public class MavenSessionManager {
     public static final Path LOCAL_MAVEN_REPO = Paths.get(System.getProperty("user.home"), ".m2", "repository");
     private static final String AETHER_OFFLINE_PROTOCOLS_PROPERTY = "aether.offline.protocols";
     public static final String AETHER_OFFLINE_PROTOCOLS_VALUE = "file";
+    private static final String AETHER_CONNECT_TIMEOUT_PROPERTY = "aether.connector.connectTimeout";
+    private static final String AETHER_REQUEST_TIMEOUT_PROPERTY = "aether.connector.requestTimeout";
+    private static final String AETHER_THREADS_PROPERTY = "aether.connector.basic.threads";
+    private static final String AETHER_METADATA_THREADS_PROPERTY = "aether.metadataResolver.threads";
+    private static final String AETHER_RESUME_PROPERTY = "aether.connector.resumeDownloads";
+    private static final String AETHER_RESUME_THRESHOLD_PROPERTY = "aether.connector.resumeThreshold";
+    public static final String CONNECT_TIMEOUT_PROPERTY = "prospero.http.connect.timeout";
+    public static final String REQUEST_TIMEOUT_PROPERTY = "prospero.http.request.timeout";
+    public static final String RESUME_THRESHOLD_PROPERTY = "prospero.downloads.resume.threshold";
+    private static RepositorySystem repositorySystem;
     private final Path provisioningRepo;
     private boolean offline;
+    private TransferListener transferListener;
+    private DownloadSettings downloadSettings = DownloadSettings.withOverrides(null);
+    private DownloadScheduler downloadScheduler = newDownloadScheduler(downloadSettings);
 
     public MavenSessionManager(Optional<Path> provisioningRepo, boolean offline) throws ProvisioningException {
         this.offline = offline;
@@ -80,11 +97,36 @@ public class MavenSessionManager {
         this(Optional.empty(), false);
     }
 
+    /**
+     * Returns the repository system of this process. It is thread-safe, created on first use and shared by all
+     * session managers afterwards, so callers must not shut it down or register services on it.
+     */
+    public RepositorySystem getRepositorySystem() {
+        return sharedRepositorySystem();
+    }
+
+    /**
+     * @deprecated the repository system is shared, use {@link #getRepositorySystem()}
+     */
+    @Deprecated
     public RepositorySystem newRepositorySystem() {
+        return getRepositorySystem();
+    }
+
+    private static synchronized RepositorySystem sharedRepositorySystem() {
+        if (repositorySystem == null) {
+            repositorySystem = createRepositorySystem();
+        }
+        return repositorySystem;
+    }
+
+    private static RepositorySystem createRepositorySystem() {
         final DefaultServiceLocator locator = MavenRepositorySystemUtils.newServiceLocator();
         locator.addService(RepositoryConnectorFactory.class, BasicRepositoryConnectorFactory.class);
         locator.addService(TransporterFactory.class, HttpTransporterFactory.class);
         locator.addService(TransporterFactory.class, FileTransporterFactory.class);
+        locator.addService(TransporterFactory.class, MetadataCachingTransporterFactory.class);
+        locator.addService(RepositoryLayoutFactory.class, ChecksumRepositoryLayoutFactory.class);
         locator.setErrorHandler(new DefaultServiceLocator.ErrorHandler() {
             @Override
             public void serviceCreationFailed(Class<?> type, Class<?> impl, Throwable exception) {
@@ -114,15 +156,48 @@ public class MavenSessionManager {
         }
         session.setLocalRepositoryManager(system.newLocalRepositoryManager(session, localRepo));
         session.setOffline(offline);
+        // reuse pooled (keep-alive) HTTP connections across sessions
+        session.setCache(new SharedConnectionsCache());
+        setTimeout(session, CONNECT_TIMEOUT_PROPERTY, AETHER_CONNECT_TIMEOUT_PROPERTY);
+        setTimeout(session, REQUEST_TIMEOUT_PROPERTY, AETHER_REQUEST_TIMEOUT_PROPERTY);
+        // interrupted downloads are kept as .part files in the local repository and continued with a range request
+        session.setConfigProperty(AETHER_RESUME_PROPERTY, true);
+        final Long resumeThreshold = Long.getLong(RESUME_THRESHOLD_PROPERTY);
+        if (resumeThreshold != null) {
+            session.setConfigProperty(AETHER_RESUME_THRESHOLD_PROPERTY, resumeThreshold);
+        }
+        if (downloadSettings.getMaxParallelDownloads() != null) {
+            session.setConfigProperty(AETHER_THREADS_PROPERTY, downloadSettings.getMaxParallelDownloads());
+            session.setConfigProperty(AETHER_METADATA_THREADS_PROPERTY, downloadSettings.getMaxParallelDownloads());
+        }
+        final TransferListener listener = ChainedTransferListener.newInstance(downloadScheduler, transferListener);
+        if (listener != null) {
+            session.setTransferListener(listener);
+        }
         return session;
     }
 
+    private static void setTimeout(DefaultRepositorySystemSession session, String property, String aetherProperty) {
+        final Integer timeout = Integer.getInteger(property);
+        if (timeout != null) {
+            session.setConfigProperty(aetherProperty, timeout);
+        }
+    }
+
+    /**
+     * Closes HTTP connections pooled by the sessions. Called on JVM shutdown, long running processes can call it
+     * to release idle connections; new sessions open new connections as needed.
+     */
+    public static void closeConnections() {
+        SharedConnectionsCache.closeConnections();
+    }
+
     private void copyResolvedArtifactsToProvisiongRepository(DefaultRepositorySystemSession session) {
         // hack to work around Galleon provisioning again to generate examples
         // whenever an artifact is resolved by a repository using LOCAL_MAVE_REPO,
         // install the artifact into a temporary provisioningRepo. The provisioningRepo then is used
         // by Galleon to start thin server.
-        final RepositorySystem localCacheBuilder = newRepositorySystem();
+        final RepositorySystem localCacheBuilder = getRepositorySystem();
         final DefaultRepositorySystemSession localCacheBuilderSession = newRepositorySystemSession(localCacheBuilder, false);
         session.setRepositoryListener(new AbstractRepositoryListener() {
             @Override
@@ -153,4 +228,35 @@ public class MavenSessionManager {
     public boolean isOffline() {
         return offline;
     }
+
+    public DownloadSettings getDownloadSettings() {
+        return downloadSettings;
+    }
+
+    /**
+     * Limits downloads of sessions created after this call. The {@code prospero.downloads.*} system properties
+     * take precedence over the {@code configured} values.
+     *
+     * @param configured download settings of the installation, can be {@code null}
+     */
+    public void setDownloadSettings(DownloadSettings configured) {
+        this.downloadSettings = DownloadSettings.withOverrides(configured);
+        this.downloadScheduler = newDownloadScheduler(downloadSettings);
+    }
+
+    private static DownloadScheduler newDownloadScheduler(DownloadSettings settings) {
+        if (settings.getMaxParallelDownloads() == null && settings.getRepositoryLimits().isEmpty()
+                && settings.getBandwidthLimit() == null) {
+            return null;
+        }
+        return new DownloadScheduler(settings);
+    }
+
+    /**
+     * Listener notified about downloads of sessions created after this call. Can cancel the downloads
+     * by throwing {@link org.eclipse.aether.transfer.TransferCancelledException}.
+     */
+    public void setTransferListener(TransferListener transferListener) {
+        this.transferListener = transferListener;
+    }
 }
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.wfchannel;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.aether.ConfigurationProperties;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.AbstractTransporter;
+import org.eclipse.aether.spi.connector.transport.GetTask;
+import org.eclipse.aether.spi.connector.transport.PeekTask;
+import org.eclipse.aether.spi.connector.transport.PutTask;
+import org.eclipse.aether.spi.connector.transport.Transporter;
+import org.eclipse.aether.spi.connector.transport.TransporterFactory;
+import org.eclipse.aether.transfer.NoTransporterException;
+import org.eclipse.aether.transport.http.HttpTransporterFactory;
+import org.eclipse.aether.util.ConfigUtils;
+import org.jboss.logging.Logger;
+
+/**
+ * HTTP transporter that downloads {@code maven-metadata.xml} files (and their checksums) with conditional requests.
+ *
+ * The repositories use the {@code always} update policy, so the metadata is downloaded again on every run. This
+ * transporter keeps the last response together with its {@code ETag} and {@code Last-Modified} headers in the
+ * local repository and revalidates it with {@code If-None-Match}/{@code If-Modified-Since}. An unchanged file costs
+ * a {@code 304} response. All other requests, and repositories requiring authentication, a proxy or custom TLS
+ * settings, are handled by the default HTTP transporter.
+ * <p>
+ * The metadata requests use the session's user agent, HTTP headers and timeouts. They are sent over a separate
+ * connection pool, shared by all sessions of the process.
+ */
+public class MetadataCachingTransporterFactory implements TransporterFactory {
+
+    static final String CACHE_DIR = ".prospero/metadata-cache";
+    private static final String METADATA_FILE = "maven-metadata.xml";
+    private static final String ETAG = "ETag";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    private static final String HTTPS_CIPHER_SUITES = "https.cipherSuites";
+    private static final String HTTPS_PROTOCOLS = "https.protocols";
+    private static final byte[] HEADER_SEPARATOR = "\n\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    // clients differ only in the connect timeout, which can't be set per request
+    private static final Map<Integer, HttpClient> HTTP_CLIENTS = new ConcurrentHashMap<>();
+
+    private final HttpTransporterFactory httpTransporterFactory = new HttpTransporterFactory();
+
+    @Override
+    public Transporter newInstance(RepositorySystemSession session, RemoteRepository repository) throws NoTransporterException {
+        final String protocol = repository.getProtocol();
+        if (!"http".equalsIgnoreCase(protocol) && !"https".equalsIgnoreCase(protocol)
+                || repository.getAuthentication() != null || repository.getProxy() != null
+                || hasCustomTlsSettings(session)) {
+            throw new NoTransporterException(repository);
+        }
+        final Path cacheDir = session.getLocalRepository().getBasedir().toPath().resolve(CACHE_DIR);
+        return new MetadataCachingTransporter(session, repository, cacheDir,
+                httpTransporterFactory.newInstance(session, repository));
+    }
+
+    @Override
+    public float getPriority() {
+        // preferred over the default HTTP transporter
+        return httpTransporterFactory.getPriority() + 1;
+    }
+
+    private static boolean hasCustomTlsSettings(RepositorySystemSession session) {
+        // the default transporter applies these to its sockets, the JDK client doesn't support them
+        return ConfigUtils.getString(session, System.getProperty(HTTPS_CIPHER_SUITES),
+                        "aether.connector." + HTTPS_CIPHER_SUITES) != null
+                || ConfigUtils.getString(session, System.getProperty(HTTPS_PROTOCOLS),
+                        "aether.connector." + HTTPS_PROTOCOLS) != null;
+    }
+
+    private static HttpClient httpClient(int connectTimeout) {
+        return HTTP_CLIENTS.computeIfAbsent(connectTimeout, timeout -> HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(timeout))
+                .build());
+    }
+
+    private static class MetadataCachingTransporter extends AbstractTransporter {
+
+        private static final Logger logger = Logger.getLogger(MetadataCachingTransporter.class);
+
+        private final URI baseUri;
+        private final Path cacheDir;
+        private final Transporter delegate;
+        private final HttpClient httpClient;
+        private final Duration requestTimeout;
+        private final String userAgent;
+        private final Map<?, ?> headers;
+
+        MetadataCachingTransporter(RepositorySystemSession session, RemoteRepository repository, Path cacheDir,
+                                   Transporter delegate) {
+            final String url = repository.getUrl();
+            this.baseUri = URI.create(url.endsWith("/") ? url : url + "/");
+            this.cacheDir = cacheDir;
+            this.delegate = delegate;
+            this.httpClient = httpClient(ConfigUtils.getInteger(session, ConfigurationProperties.DEFAULT_CONNECT_TIMEOUT,
+                    ConfigurationProperties.CONNECT_TIMEOUT + "." + repository.getId(), ConfigurationProperties.CONNECT_TIMEOUT));
+            this.requestTimeout = Duration.ofMillis(ConfigUtils.getInteger(session, ConfigurationProperties.DEFAULT_REQUEST_TIMEOUT,
+                    ConfigurationProperties.REQUEST_TIMEOUT + "." + repository.getId(), ConfigurationProperties.REQUEST_TIMEOUT));
+            this.userAgent = ConfigUtils.getString(session, ConfigurationProperties.DEFAULT_USER_AGENT,
+                    ConfigurationProperties.USER_AGENT);
+            this.headers = ConfigUtils.getMap(session, Collections.emptyMap(),
+                    ConfigurationProperties.HTTP_HEADERS + "." + repository.getId(), ConfigurationProperties.HTTP_HEADERS);
+        }
+
+        @Override
+        public int classify(Throwable error) {
+            if (error instanceof MetadataNotFoundException) {
+                return ERROR_NOT_FOUND;
+            }
+            return delegate.classify(error);
+        }
+
+        @Override
+        protected void implPeek(PeekTask task) throws Exception {
+            delegate.peek(task);
+        }
+
+        @Override
+        protected void implGet(GetTask task) throws Exception {
+            if (!task.getLocation().getPath().contains(METADATA_FILE)) {
+                delegate.get(task);
+                return;
+            }
+
+            final URI uri = baseUri.resolve(task.getLocation());
+            final Path cached = cacheDir.resolve(DigestUtils.sha1Hex(uri.toString()));
+            final Optional<CacheEntry> entry = CacheEntry.read(cached);
+
+            final HttpRequest.Builder request = newRequest(uri);
+            entry.map(e -> e.validators.getProperty(ETAG)).ifPresent(v -> request.header("If-None-Match", v));
+            entry.map(e -> e.validators.getProperty(LAST_MODIFIED)).ifPresent(v -> request.header("If-Modified-Since", v));
+
+            final HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            final byte[] data;
+            if (response.statusCode() == 304 && entry.isPresent()) {
+                data = entry.get().data;
+            } else if (response.statusCode() == 200) {
+                data = response.body();
+                store(response, data, cached);
+            } else if (response.statusCode() == 404) {
+                throw new MetadataNotFoundException(uri);
+            } else {
+                throw new IOException(String.format("Unexpected status %d when downloading %s", response.statusCode(), uri));
+            }
+            utilGet(task, new ByteArrayInputStream(data), true, data.length, false);
+        }
+
+        private HttpRequest.Builder newRequest(URI uri) {
+            final HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(requestTimeout).GET();
+            request.header("User-Agent", userAgent);
+            for (Map.Entry<?, ?> header : headers.entrySet()) {
+                if (header.getKey() instanceof String && header.getValue() instanceof String) {
+                    try {
+                        request.setHeader((String) header.getKey(), (String) header.getValue());
+                    } catch (IllegalArgumentException e) {
+                        // headers controlled by the JDK client, e.g. Connection or Host
+                        logger.debugf("Ignoring HTTP header %s for %s", header.getKey(), uri);
+                    }
+                }
+            }
+            return request;
+        }
+
+        private void store(HttpResponse<?> response, byte[] data, Path cached) throws IOException {
+            final Optional<String> etag = response.headers().firstValue(ETAG);
+            final Optional<String> lastModified = response.headers().firstValue(LAST_MODIFIED);
+            if (etag.isEmpty() && lastModified.isEmpty()) {
+                return;
+            }
+            final Properties validators = new Properties();
+            etag.ifPresent(v -> validators.setProperty(ETAG, v));
+            lastModified.ifPresent(v -> validators.setProperty(LAST_MODIFIED, v));
+            new CacheEntry(validators, data).write(cacheDir, cached);
+        }
+
+        @Override
+        protected void implPut(PutTask task) throws Exception {
+            delegate.put(task);
+        }
+
+        @Override
+        protected void implClose() {
+            delegate.close();
+        }
+    }
+
+    /*
+     * Cached response stored in a single file, the validators as "name: value" lines followed by an empty line and
+     * the content. Concurrent sessions may refresh the same entry, so a reader always sees validators and content
+     * of the same response.
+     */
+    private static class CacheEntry {
+        private final Properties validators;
+        private final byte[] data;
+
+        CacheEntry(Properties validators, byte[] data) {
+            this.validators = validators;
+            this.data = data;
+        }
+
+        static Optional<CacheEntry> read(Path file) {
+            if (!Files.isRegularFile(file)) {
+                return Optional.empty();
+            }
+            try {
+                final byte[] bytes = Files.readAllBytes(file);
+                final int separator = indexOf(bytes, HEADER_SEPARATOR);
+                if (separator < 0) {
+                    return Optional.empty();
+                }
+                final Properties validators = new Properties();
+                final String header = new String(bytes, 0, separator, StandardCharsets.ISO_8859_1);
+                for (String line : header.split("\n")) {
+                    final int colon = line.indexOf(':');
+                    if (colon > 0) {
+                        validators.setProperty(line.substring(0, colon), line.substring(colon + 1).trim());
+                    }
+                }
+                if (validators.isEmpty()) {
+                    return Optional.empty();
+                }
+                return Optional.of(new CacheEntry(validators,
+                        Arrays.copyOfRange(bytes, separator + HEADER_SEPARATOR.length, bytes.length)));
+            } catch (IOException e) {
+                // unreadable entry, download the file again
+                return Optional.empty();
+            }
+        }
+
+        void write(Path cacheDir, Path file) throws IOException {
+            final StringBuilder header = new StringBuilder();
+            for (String name : validators.stringPropertyNames()) {
+                header.append(name).append(": ").append(validators.getProperty(name)).append('\n');
+            }
+            header.append('\n');
+
+            Files.createDirectories(cacheDir);
+            final Path temp = Files.createTempFile(cacheDir, file.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream os = Files.newOutputStream(temp)) {
+                    os.write(header.toString().getBytes(StandardCharsets.ISO_8859_1));
+                    os.write(data);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private static int indexOf(byte[] bytes, byte[] sequence) {
+            outer:
+            for (int i = 0; i <= bytes.length - sequence.length; i++) {
+                for (int j = 0; j < sequence.length; j++) {
+                    if (bytes[i + j] != sequence[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+
+    private static class MetadataNotFoundException extends IOException {
+        MetadataNotFoundException(URI uri) {
+            super("Not found: " + uri);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.wfchannel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+import org.jboss.logging.Logger;
+
+/**
+ * Session cache sharing the state of the HTTP transport between all sessions of the process.
+ *
+ * The HTTP transporter keeps its pooled connection managers in the session cache, so by default every
+ * session (and every session without a cache, every single transfer) opens new connections. Entries under
+ * the transport's key are kept process-wide, all other entries are private to the session.
+ */
+final class SharedConnectionsCache implements RepositoryCache {
+
+    private static final Logger logger = Logger.getLogger(SharedConnectionsCache.class);
+
+    // key used by org.eclipse.aether.transport.http.GlobalState
+    static final String HTTP_STATE_KEY = "org.eclipse.aether.transport.http.GlobalState";
+
+    private static final ConcurrentMap<Object, Object> SHARED = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SharedConnectionsCache::closeConnections));
+    }
+
+    private final RepositoryCache sessionCache = new DefaultRepositoryCache();
+
+    @Override
+    public void put(RepositorySystemSession session, Object key, Object data) {
+        if (HTTP_STATE_KEY.equals(key)) {
+            if (data == null) {
+                SHARED.remove(key);
+            } else {
+                SHARED.put(key, data);
+            }
+        } else {
+            sessionCache.put(session, key, data);
+        }
+    }
+
+    @Override
+    public Object get(RepositorySystemSession session, Object key) {
+        if (HTTP_STATE_KEY.equals(key)) {
+            return SHARED.get(key);
+        }
+        return sessionCache.get(session, key);
+    }
+
+    /**
+     * Shuts down pooled connections. Sessions created afterwards open new ones.
+     */
+    static void closeConnections() {
+        for (Object key : SHARED.keySet()) {
+            final Object state = SHARED.remove(key);
+            if (state instanceof Closeable) {
+                try {
+                    ((Closeable) state).close();
+                } catch (IOException e) {
+                    logger.debug("Unable to close pooled connections", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.actions;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.transfer.TransferCancelledException;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
+import org.jboss.galleon.progresstracking.ProgressCallback;
+import org.jboss.galleon.progresstracking.ProgressTracker;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.wildfly.prospero.api.ProgressEvent;
+import org.wildfly.prospero.api.SavedState;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class AsyncActionsTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final List<Runnable> queued = new ArrayList<>();
+    private final List<ProgressEvent> events = new ArrayList<>();
+    private MavenSessionManager mavenSessionManager;
+
+    @Before
+    public void setUp() throws Exception {
+        mavenSessionManager = new MavenSessionManager(temp.newFolder().toPath());
+    }
+
+    @Test
+    public void operationCancelledBeforeStartIsNotRun() throws Exception {
+        final Path installDir = temp.getRoot().toPath().resolve("installation");
+        final CompletableFuture<Void> future = new AsyncActions(queued::add)
+                .rollback(installDir, new SavedState("abcd1234"), mavenSessionManager, events::add);
+
+        future.cancel(false);
+        queued.forEach(Runnable::run);
+
+        assertThat(future).isCancelled();
+        assertThat(installDir).doesNotExist();
+        assertThat(events).extracting(ProgressEvent::getType).containsExactly(ProgressEvent.Type.CANCELLED);
+    }
+
+    @Test
+    public void failedOperationCompletesExceptionally() throws Exception {
+        final Path installDir = temp.newFolder("installation").toPath();
+        final CompletableFuture<Void> future = new AsyncActions(Runnable::run)
+                .rollback(installDir, new SavedState("abcd1234"), mavenSessionManager, events::add);
+
+        assertThatThrownBy(future::get).isInstanceOf(ExecutionException.class);
+        assertThat(events)
+                .extracting(ProgressEvent::getOperation, ProgressEvent::getType)
+                .containsExactly(
+                        tuple(AsyncActions.ROLLBACK, ProgressEvent.Type.STARTED),
+                        tuple(AsyncActions.ROLLBACK, ProgressEvent.Type.FAILED));
+        // the download listener is removed when the operation finishes
+        final DefaultRepositorySystemSession session = mavenSessionManager.newRepositorySystemSession(
+                mavenSessionManager.getRepositorySystem());
+        assertThat(session.getTransferListener()).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void galleonProgressIsPublishedUntilCancelled() {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        final ProgressConsole console = new ProgressConsole(AsyncActions.UPDATE, future, events::add);
+        final ProgressCallback<Object> callback = (ProgressCallback<Object>) console.getProgressCallback("PACKAGES");
+        final ProgressTracker<Object> tracker = Mockito.mock(ProgressTracker.class);
+        Mockito.when(tracker.getTotalVolume()).thenReturn(10L);
+        Mockito.when(tracker.getProcessedVolume()).thenReturn(4L);
+
+        callback.starting(tracker);
+        callback.pulse(tracker);
+        future.cancel(false);
+
+        assertThatThrownBy(() -> callback.pulse(tracker)).isInstanceOf(CancellationException.class);
+        assertThat(events)
+                .extracting(ProgressEvent::getStage, ProgressEvent::getType, ProgressEvent::getProcessed, ProgressEvent::getTotal)
+                .containsExactly(
+                        tuple("PACKAGES", ProgressEvent.Type.STARTED, 0L, 10L),
+                        tuple("PACKAGES", ProgressEvent.Type.PROGRESS, 4L, 10L));
+    }
+
+    @Test
+    public void downloadsAreCancelled() throws Exception {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        final ProgressConsole console = new ProgressConsole(AsyncActions.UPDATE, future, events::add);
+        final TransferEvent event = new TransferEvent.Builder(new DefaultRepositorySystemSession(),
+                new TransferResource("test", "http://test/", "org/test/foo/1.0.0/foo-1.0.0.jar", null, null))
+                .build();
+
+        console.transferInitiated(event);
+        console.transferProgressed(event);
+        future.cancel(false);
+
+        assertThatThrownBy(() -> console.transferProgressed(event)).isInstanceOf(TransferCancelledException.class);
+        assertThat(events)
+                .extracting(ProgressEvent::getStage, ProgressEvent::getItem)
+                .containsExactly(tuple(ProgressEvent.DOWNLOAD,
+                        "http://test/org/test/foo/1.0.0/foo-1.0.0.jar"));
+    }
+
+    @Test
+    public void failingListenerDoesntBreakOperation() {
+        final ProgressConsole console = new ProgressConsole(AsyncActions.UPDATE, new CompletableFuture<>(), event -> {
+            throw new IllegalStateException("listener failure");
+        });
+
+        console.publish(null, ProgressEvent.Type.STARTED, null, 0, -1);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.actions;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.universe.FeaturePackLocation;
+import org.jboss.galleon.universe.UniverseSpec;
+import org.jboss.galleon.xml.ProvisioningXmlWriter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.channel.Channel;
+import org.wildfly.channel.ChannelMapper;
+import org.wildfly.channel.Stream;
+import org.wildfly.prospero.api.InstallationMetadata;
+import org.wildfly.prospero.model.InstalledArtifact;
+import org.wildfly.prospero.model.InstalledArtifactsIndex;
+import org.wildfly.prospero.promotion.ArtifactBundle;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class InstallationExportActionTest {
+
+    private static final String FOO_JAR = "modules/system/layers/base/org/test/foo/main/foo-1.0.0.jar";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path installDir;
+    private Path repository;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = temp.newFolder("repository").toPath();
+        installDir = temp.newFolder("installation").toPath();
+
+        final Path fp = repository.resolve("org/test/fp/1.0.0/fp-1.0.0.zip");
+        Files.createDirectories(fp.getParent());
+        Files.writeString(fp, "fp1.0.0");
+        Files.writeString(fp.resolveSibling("fp-1.0.0.zip.sha1"), DigestUtils.sha1Hex("fp1.0.0"));
+
+        final Path foo = installDir.resolve(FOO_JAR);
+        Files.createDirectories(foo.getParent());
+        Files.writeString(foo, "installed foo");
+
+        final Path metadataDir = Files.createDirectories(installDir.resolve(InstallationMetadata.METADATA_DIR));
+        Files.writeString(metadataDir.resolve(InstallationMetadata.MANIFEST_FILE_NAME), ChannelMapper.toYaml(
+                new Channel("manifest", null, null, null, Arrays.asList(
+                        new Stream("org.test", "bar", "1.0.0"),
+                        new Stream("org.test", "foo", "1.0.0"),
+                        new Stream("org.test", "fp", "1.0.0")))));
+        Files.writeString(metadataDir.resolve(InstallationMetadata.PROSPERO_CONFIG_FILE_NAME), "channels: []\n"
+                + "repositories:\n"
+                + "- id: test\n"
+                + "  url: " + repository.toUri().toURL() + "\n");
+        new InstalledArtifactsIndex(Collections.singletonList(new InstalledArtifact("org.test:foo:1.0.0", FOO_JAR, 0, 0,
+                DigestUtils.sha256Hex("installed foo"))))
+                .write(metadataDir.resolve(InstallationMetadata.INSTALLED_ARTIFACTS_FILE_NAME).toFile());
+
+        final FeaturePackLocation fpl = new FeaturePackLocation(UniverseSpec.fromString("maven"), "org.test:fp::zip",
+                null, null, "1.0.0");
+        ProvisioningXmlWriter.getInstance().write(ProvisioningConfig.builder().addFeaturePackDep(FeaturePackConfig.forLocation(fpl)).build(),
+                installDir.resolve(InstallationMetadata.GALLEON_INSTALLATION_DIR).resolve(InstallationMetadata.PROVISIONING_FILE_NAME));
+    }
+
+    @Test
+    public void exportWithoutArtifacts() throws Exception {
+        final Path export = temp.getRoot().toPath().resolve("export.zip");
+
+        new InstallationExportAction(installDir).export(export.toString());
+
+        try (ArtifactBundle bundle = ArtifactBundle.open(export)) {
+            assertThat(bundle.getArtifactList()).isEmpty();
+        }
+        assertThat(InstallationMetadata.importMetadata(export).getManifest().getStreams()).hasSize(3);
+    }
+
+    @Test
+    public void exportWithArtifactsIncludesInstalledAndResolvedArtifacts() throws Exception {
+        final Path export = temp.getRoot().toPath().resolve("export.zip");
+
+        exportWithArtifacts(export);
+
+        try (ArtifactBundle bundle = ArtifactBundle.open(export)) {
+            // bar isn't available anywhere and is left out
+            final List<Artifact> artifacts = bundle.resolveArtifacts();
+            assertThat(artifacts)
+                    .extracting(Artifact::getArtifactId, Artifact::getVersion, Artifact::getExtension)
+                    .containsExactlyInAnyOrder(
+                            tuple("foo", "1.0.0", "jar"),
+                            tuple("fp", "1.0.0", "zip"));
+            final Artifact foo = artifacts.stream().filter(a -> a.getArtifactId().equals("foo")).findFirst().get();
+            assertThat(foo.getFile()).hasContent("installed foo");
+        }
+        assertThat(InstallationMetadata.importMetadata(export).getManifest().getStreams()).hasSize(3);
+    }
+
+    @Test
+    public void exportWithArtifactsResolvesModifiedInstalledArtifacts() throws Exception {
+        final Path export = temp.getRoot().toPath().resolve("export.zip");
+        Files.writeString(installDir.resolve(FOO_JAR), "patched foo");
+        final Path foo = repository.resolve("org/test/foo/1.0.0/foo-1.0.0.jar");
+        Files.createDirectories(foo.getParent());
+        Files.writeString(foo, "foo1.0.0");
+        Files.writeString(foo.resolveSibling("foo-1.0.0.jar.sha1"), DigestUtils.sha1Hex("foo1.0.0"));
+
+        exportWithArtifacts(export);
+
+        try (ArtifactBundle bundle = ArtifactBundle.open(export)) {
+            final Artifact exported = bundle.resolveArtifacts().stream()
+                    .filter(a -> a.getArtifactId().equals("foo"))
+                    .findFirst().get();
+            assertThat(exported.getFile()).hasContent("foo1.0.0");
+        }
+    }
+
+    @Test
+    public void exportedArtifactsResolveFromLocalRepositoryWithoutRemote() throws Exception {
+        final Path export = temp.getRoot().toPath().resolve("export.zip");
+        exportWithArtifacts(export);
+        final Path localRepository = temp.newFolder("local-repository").toPath();
+
+        try (ArtifactBundle bundle = ArtifactBundle.open(export)) {
+            bundle.copyArtifacts(localRepository);
+        }
+
+        final MavenSessionManager msm = new MavenSessionManager(Optional.of(localRepository), false);
+        final RepositorySystem system = msm.getRepositorySystem();
+        final RepositorySystemSession session = msm.newRepositorySystemSession(system);
+        final RemoteRepository unavailable = new RemoteRepository.Builder("test", "default",
+                temp.getRoot().toPath().resolve("missing").toUri().toURL().toString()).build();
+        final ArtifactResult result = system.resolveArtifact(session, new ArtifactRequest(
+                new DefaultArtifact("org.test", "fp", "zip", "1.0.0"), Collections.singletonList(unavailable), null));
+
+        assertThat(result.getArtifact().getFile()).hasContent("fp1.0.0");
+    }
+
+    private void exportWithArtifacts(Path export) throws Exception {
+        final MavenSessionManager msm = new MavenSessionManager(Optional.of(temp.newFolder().toPath()), false);
+        new InstallationExportAction(installDir, msm).export(export.toString(), true);
+    }
+}
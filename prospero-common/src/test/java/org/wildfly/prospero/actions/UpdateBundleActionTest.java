@@ -0,0 +1,241 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.actions;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.jboss.galleon.ProvisioningException;
+import org.jboss.galleon.config.FeaturePackConfig;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.universe.FeaturePackLocation;
+import org.jboss.galleon.universe.UniverseSpec;
+import org.jboss.galleon.xml.ProvisioningXmlWriter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.wildfly.channel.Channel;
+import org.wildfly.channel.ChannelMapper;
+import org.wildfly.channel.Stream;
+import org.wildfly.prospero.api.ArtifactChange;
+import org.wildfly.prospero.api.InstallationMetadata;
+import org.wildfly.prospero.api.exceptions.OperationException;
+import org.wildfly.prospero.model.ChannelRef;
+import org.wildfly.prospero.model.InstalledArtifact;
+import org.wildfly.prospero.model.InstalledArtifactsIndex;
+import org.wildfly.prospero.promotion.ArtifactBundle;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UpdateBundleActionTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Mock
+    private Console console;
+
+    private Path installDir;
+    private Path repository;
+    private Path localRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = temp.newFolder("repository").toPath();
+        localRepository = temp.newFolder("local-repository").toPath();
+        installDir = temp.newFolder("installation").toPath();
+
+        deployArtifact("foo", "1.0.1", "jar");
+        deployArtifact("fp", "1.0.0", "zip");
+
+        final Path metadataDir = Files.createDirectories(installDir.resolve(InstallationMetadata.METADATA_DIR));
+        Files.writeString(metadataDir.resolve(InstallationMetadata.MANIFEST_FILE_NAME), ChannelMapper.toYaml(
+                new Channel("manifest", null, null, null, Arrays.asList(
+                        new Stream("org.test", "bar", "1.0.0"),
+                        new Stream("org.test", "baz", "1.0.0"),
+                        new Stream("org.test", "foo", "1.0.0"),
+                        new Stream("org.test", "fp", "1.0.0")))));
+        Files.writeString(metadataDir.resolve(InstallationMetadata.PROSPERO_CONFIG_FILE_NAME), "channels: []\nrepositories: []");
+
+        final FeaturePackLocation fpl = new FeaturePackLocation(UniverseSpec.fromString("maven"), "org.test:fp::zip",
+                null, null, "1.0.0");
+        ProvisioningXmlWriter.getInstance().write(ProvisioningConfig.builder().addFeaturePackDep(FeaturePackConfig.forLocation(fpl)).build(),
+                installDir.resolve(InstallationMetadata.GALLEON_INSTALLATION_DIR).resolve(InstallationMetadata.PROVISIONING_FILE_NAME));
+    }
+
+    @Test
+    public void bundleContainsOnlyChangedArtifactsAndFeaturePacks() throws Exception {
+        final Path archive = temp.getRoot().toPath().resolve("update.zip");
+
+        final List<ArtifactChange> changes = createBundle(targetChannel(), archive);
+
+        assertThat(changes)
+                .extracting(ArtifactChange::getArtifactName, ArtifactChange::getOldVersion, ArtifactChange::getNewVersion)
+                .containsExactlyInAnyOrder(
+                        tuple("org.test:baz", Optional.of("1.0.0"), Optional.empty()),
+                        tuple("org.test:foo", Optional.of("1.0.0"), Optional.of("1.0.1")));
+        try (ArtifactBundle bundle = ArtifactBundle.open(archive)) {
+            assertThat(bundle.resolveArtifacts())
+                    .extracting(a -> a.getArtifactId() + ":" + a.getVersion() + ":" + a.getExtension())
+                    .containsExactlyInAnyOrder("foo:1.0.1:jar", "fp:1.0.0:zip");
+            assertThat(bundle.getManifest().get().getStreams())
+                    .extracting(Stream::getArtifactId, Stream::getVersion)
+                    .containsExactlyInAnyOrder(
+                            tuple("bar", "1.0.0"),
+                            tuple("foo", "1.0.1"),
+                            tuple("fp", "1.0.0"));
+        }
+    }
+
+    @Test
+    public void noBundleIfNothingChanged() throws Exception {
+        final Path archive = temp.getRoot().toPath().resolve("update.zip");
+        final Path channelFile = temp.newFile("unchanged-channel.yaml").toPath();
+        Files.writeString(channelFile, ChannelMapper.toYaml(new Channel("target", null, null, null, Arrays.asList(
+                new Stream("org.test", "bar", "1.0.0"),
+                new Stream("org.test", "baz", "1.0.0"),
+                new Stream("org.test", "foo", "1.0.0"),
+                new Stream("org.test", "fp", "1.0.0")))));
+
+        final List<ArtifactChange> changes = createBundle(new ChannelRef(null, channelFile.toUri().toURL().toString()), archive);
+
+        assertThat(changes).isEmpty();
+        assertThat(archive).doesNotExist();
+    }
+
+    @Test
+    public void listBundleChangesDoesNotInstallArtifacts() throws Exception {
+        final Path archive = temp.getRoot().toPath().resolve("update.zip");
+        createBundle(targetChannel(), archive);
+
+        final MavenSessionManager mavenSessionManager = new MavenSessionManager(Optional.of(localRepository), false);
+        try (UpdateAction updateAction = new UpdateAction(installDir, archive, mavenSessionManager, console)) {
+            updateAction.listUpdates();
+        }
+
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<List<ArtifactChange>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(console).updatesFound(any(), captor.capture());
+        assertThat(captor.getValue())
+                .extracting(ArtifactChange::getArtifactName, ArtifactChange::getNewVersion)
+                .containsExactlyInAnyOrder(
+                        tuple("org.test:baz", Optional.empty()),
+                        tuple("org.test:foo", Optional.of("1.0.1")));
+        assertThat(mavenSessionManager.isOffline()).isFalse();
+        assertThat(localRepository.resolve("org/test/foo/1.0.1/foo-1.0.1.jar")).doesNotExist();
+    }
+
+    @Test
+    public void declinedBundleUpdateDoesNotInstallArtifacts() throws Exception {
+        final Path archive = temp.getRoot().toPath().resolve("update.zip");
+        createBundle(targetChannel(), archive);
+        Mockito.when(console.confirmUpdates()).thenReturn(false);
+
+        final MavenSessionManager mavenSessionManager = new MavenSessionManager(Optional.of(localRepository), false);
+        try (UpdateAction updateAction = new UpdateAction(installDir, archive, mavenSessionManager, console)) {
+            updateAction.doUpdateAll(false);
+        }
+
+        assertThat(localRepository.resolve("org/test/foo/1.0.1/foo-1.0.1.jar")).doesNotExist();
+    }
+
+    @Test
+    public void confirmedBundleUpdateInstallsOnlyUnmodifiedInstalledArtifacts() throws Exception {
+        final Path archive = temp.getRoot().toPath().resolve("update.zip");
+        createBundle(targetChannel(), archive);
+        final Path moduleDir = Files.createDirectories(installDir.resolve("modules/system/layers/base/org/test/main"));
+        Files.writeString(moduleDir.resolve("bar-1.0.0.jar"), "bar1.0.0");
+        new InstalledArtifactsIndex(Collections.singletonList(installedArtifact("bar", "bar1.0.0"))).write(
+                installDir.resolve(InstallationMetadata.METADATA_DIR).resolve(InstallationMetadata.INSTALLED_ARTIFACTS_FILE_NAME).toFile());
+        // a locally patched jar must not be installed as the released artifact
+        Files.writeString(moduleDir.resolve("bar-1.0.0.jar"), "patched");
+
+        final MavenSessionManager mavenSessionManager = new MavenSessionManager(Optional.of(localRepository), false);
+        try (UpdateAction updateAction = new UpdateActionFake(installDir, archive, mavenSessionManager, console)) {
+            updateAction.doUpdateAll(true);
+        }
+
+        assertThat(mavenSessionManager.isOffline()).isTrue();
+        assertThat(localRepository.resolve("org/test/foo/1.0.1/foo-1.0.1.jar")).exists();
+        assertThat(localRepository.resolve("org/test/bar/1.0.0/bar-1.0.0.jar")).doesNotExist();
+    }
+
+    /**
+     * Skips Galleon provisioning, the test installation doesn't contain a real feature pack.
+     */
+    private static class UpdateActionFake extends UpdateAction {
+
+        UpdateActionFake(Path installDir, Path updateBundle, MavenSessionManager mavenSessionManager, Console console)
+                throws ProvisioningException, OperationException {
+            super(installDir, updateBundle, mavenSessionManager, console);
+        }
+
+        @Override
+        protected void applyUpdates() {
+            // no-op
+        }
+    }
+
+    private static InstalledArtifact installedArtifact(String artifactId, String content) {
+        return new InstalledArtifact("org.test:" + artifactId + ":1.0.0",
+                "modules/system/layers/base/org/test/main/" + artifactId + "-1.0.0.jar",
+                content.length(), 0L, DigestUtils.sha256Hex(content));
+    }
+
+    private List<ArtifactChange> createBundle(ChannelRef channel, Path archive) throws Exception {
+        final RemoteRepository remoteRepository = new RemoteRepository.Builder("test", "default",
+                repository.toUri().toURL().toString()).build();
+        final MavenSessionManager mavenSessionManager = new MavenSessionManager(Optional.of(temp.newFolder().toPath()), false);
+        try (InstallationMetadata metadata = InstallationMetadata.readOnly(installDir)) {
+            return new UpdateBundleAction(mavenSessionManager, Collections.singletonList(remoteRepository))
+                    .createBundle(metadata, channel, archive);
+        }
+    }
+
+    private ChannelRef targetChannel() throws Exception {
+        final Path channelFile = temp.newFile("channel.yaml").toPath();
+        Files.writeString(channelFile, ChannelMapper.toYaml(new Channel("target", null, null, null, Arrays.asList(
+                new Stream("org.test", "bar", "1.0.0"),
+                new Stream("org.test", "foo", "1.0.1"),
+                new Stream("org.test", "fp", "1.0.0")))));
+        return new ChannelRef(null, channelFile.toUri().toURL().toString());
+    }
+
+    private void deployArtifact(String artifactId, String version, String extension) throws Exception {
+        final Path file = repository.resolve("org/test").resolve(artifactId).resolve(version)
+                .resolve(artifactId + "-" + version + "." + extension);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, artifactId + version);
+    }
+}
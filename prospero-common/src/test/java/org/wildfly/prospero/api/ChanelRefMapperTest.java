@@ -46,7 +46,7 @@ import static org.junit.Assert.assertEquals;
 public class ChanelRefMapperTest {
 
     private final MavenSessionManager msm = new MavenSessionManager();
-    private final RepositorySystem system = msm.newRepositorySystem();
+    private final RepositorySystem system = msm.getRepositorySystem();
     private final DefaultRepositorySystemSession session = msm.newRepositorySystemSession(system, false);
     @Rule
     public TemporaryFolder temp = new TemporaryFolder();
@@ -120,7 +120,7 @@ public class ChanelRefMapperTest {
 
     private List<Channel> resolveChannel(RemoteRepository testRepo, List<ChannelRef> channels) throws Exception {
         final MavenSessionManager msm = new MavenSessionManager();
-        final RepositorySystem system = msm.newRepositorySystem();
+        final RepositorySystem system = msm.getRepositorySystem();
         final DefaultRepositorySystemSession session = msm.newRepositorySystemSession(system);
         final VersionResolverFactory factory = new VersionResolverFactory(system, session, Arrays.asList(testRepo));
         return new ChannelRefMapper(factory).mapToChannel(channels);
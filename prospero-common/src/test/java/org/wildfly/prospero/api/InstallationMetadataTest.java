@@ -17,6 +17,9 @@
 
 package org.wildfly.prospero.api;
 
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jboss.galleon.config.ProvisioningConfig;
+import org.jboss.galleon.xml.ProvisioningXmlWriter;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -26,20 +29,29 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.wildfly.channel.Channel;
 import org.wildfly.channel.ChannelMapper;
+import org.wildfly.channel.Stream;
+import org.wildfly.prospero.actions.VerifyAction;
 import org.wildfly.prospero.installation.git.GitStorage;
 import org.wildfly.prospero.model.ChannelRef;
+import org.wildfly.prospero.model.InstalledArtifact;
+import org.wildfly.prospero.model.InstalledArtifactsIndex;
+import org.wildfly.prospero.model.ManifestYamlSupport;
 import org.wildfly.prospero.model.ProsperoConfig;
 import org.wildfly.prospero.model.RepositoryRef;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.verify;
 
@@ -128,6 +140,95 @@ public class InstallationMetadataTest {
         assertTrue("README.txt file should exist.", Files.exists(base.resolve(InstallationMetadata.METADATA_DIR).resolve(InstallationMetadata.README_FILE_NAME)));
     }
 
+    @Test
+    public void recordProvisionWritesInstalledArtifactsIndex() throws Exception {
+        base = temp.newFolder().toPath();
+        final Path moduleDir = base.resolve(Paths.get("modules", "system", "layers", "base", "org", "foo", "main"));
+        Files.createDirectories(moduleDir);
+        Files.writeString(moduleDir.resolve("bar-1.2.3.jar"), "content");
+        Files.writeString(moduleDir.resolve("bar-1.2.3-linux.jar"), "native");
+        Files.writeString(moduleDir.resolve("unknown-1.0.jar"), "unknown");
+        installationMetadata = new InstallationMetadata(base,
+                new Channel(null, null, null, null, Arrays.asList(new Stream("org.foo", "bar", "1.2.3", null))),
+                Arrays.asList(new ChannelRef("new:channel", null)),
+                Collections.emptyList()
+        );
+
+        installationMetadata.recordProvision(false);
+
+        final InstalledArtifactsIndex index = installationMetadata.getInstalledArtifacts().get();
+        assertThat(index.getArtifacts())
+                .extracting(InstalledArtifact::getGav, InstalledArtifact::getPath)
+                .containsExactly(
+                        tuple("org.foo:bar:1.2.3:linux", "modules/system/layers/base/org/foo/main/bar-1.2.3-linux.jar"),
+                        tuple("org.foo:bar:1.2.3", "modules/system/layers/base/org/foo/main/bar-1.2.3.jar"));
+        assertEquals(DigestUtils.sha256Hex("content"), index.getArtifacts().get(1).getSha256());
+        assertEquals(7L, index.getArtifacts().get(1).getSize());
+    }
+
+    @Test
+    public void recordInstalledArtifactsReplacesIndexOfRevertedFiles() throws Exception {
+        base = temp.newFolder().toPath();
+        final Path moduleDir = base.resolve(Paths.get("modules", "system", "layers", "base", "org", "foo", "main"));
+        Files.createDirectories(moduleDir);
+        Files.writeString(moduleDir.resolve("bar-1.2.4.jar"), "updated");
+        installationMetadata = new InstallationMetadata(base,
+                new Channel(null, null, null, null, Arrays.asList(new Stream("org.foo", "bar", "1.2.4", null))),
+                Arrays.asList(new ChannelRef("new:channel", null)),
+                Collections.emptyList()
+        );
+        installationMetadata.recordProvision(false);
+
+        // files of the reverted state are provisioned and the manifest is checked out from history
+        Files.delete(moduleDir.resolve("bar-1.2.4.jar"));
+        Files.writeString(moduleDir.resolve("bar-1.2.3.jar"), "content");
+        final Channel reverted = new Channel(null, null, null, null, Arrays.asList(new Stream("org.foo", "bar", "1.2.3", null)));
+        ManifestYamlSupport.write(reverted, base.resolve(InstallationMetadata.METADATA_DIR).resolve(InstallationMetadata.MANIFEST_FILE_NAME));
+        installationMetadata.setChannel(reverted);
+        installationMetadata.recordInstalledArtifacts();
+        installationMetadata.close();
+
+        assertThat(new VerifyAction(base).verify(false)).isEmpty();
+    }
+
+    @Test
+    public void readOnlyMetadataDoesNotOpenHistory() throws Exception {
+        try (final InstallationMetadata readOnly = InstallationMetadata.readOnly(base)) {
+            assertThat(readOnly.getProsperoConfig().getChannels()).containsExactly(new ChannelRef("foo:bar", null));
+        }
+
+        assertFalse(Files.exists(base.resolve(InstallationMetadata.METADATA_DIR).resolve(".git")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void readOnlyMetadataRejectsChanges() throws Exception {
+        try (final InstallationMetadata readOnly = InstallationMetadata.readOnly(base)) {
+            readOnly.updateProsperoConfig(readOnly.getProsperoConfig());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void readOnlyMetadataRejectsCompaction() throws Exception {
+        try (final InstallationMetadata readOnly = InstallationMetadata.readOnly(base)) {
+            readOnly.compactHistory();
+        }
+    }
+
+    @Test
+    public void importParsesExportedBundle() throws Exception {
+        ProvisioningXmlWriter.getInstance().write(ProvisioningConfig.builder().build(),
+                base.resolve(InstallationMetadata.GALLEON_INSTALLATION_DIR).resolve(InstallationMetadata.PROVISIONING_FILE_NAME));
+        final Path bundle = temp.getRoot().toPath().resolve("export.zip");
+        installationMetadata.exportMetadataBundle(bundle);
+
+        try (final InstallationMetadata imported = InstallationMetadata.importMetadata(bundle)) {
+            assertThat(imported.getProsperoConfig().getChannels()).containsExactly(new ChannelRef("foo:bar", null));
+            assertThat(imported.getManifest().getStreams()).isEmpty();
+            assertEquals(ProvisioningConfig.builder().build(), imported.getGalleonProvisioningConfig());
+            assertThrows(IllegalStateException.class, () -> imported.updateProsperoConfig(imported.getProsperoConfig()));
+        }
+    }
+
     private Path mockServer() throws IOException {
         final Path base = temp.newFolder().toPath();
         final Path metadataDir = base.resolve(InstallationMetadata.METADATA_DIR);
@@ -79,7 +79,7 @@ public class GalleonPackInspectorTest {
 
     private ArtifactResult downloadFeaturePack(String coords) throws ProvisioningException, ArtifactResolutionException {
         final MavenSessionManager mavenSessionManager = new MavenSessionManager();
-        final RepositorySystem repositorySystem = mavenSessionManager.newRepositorySystem();
+        final RepositorySystem repositorySystem = mavenSessionManager.getRepositorySystem();
         final DefaultRepositorySystemSession session = mavenSessionManager.newRepositorySystemSession(repositorySystem, true);
 
         final ArtifactRequest request = new ArtifactRequest();
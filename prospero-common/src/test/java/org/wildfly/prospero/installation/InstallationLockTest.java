@@ -0,0 +1,180 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.installation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.prospero.api.InstallationMetadata;
+import org.wildfly.prospero.api.exceptions.MetadataException;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InstallationLockTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path installDir;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        installDir = temp.newFolder().toPath();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void sharedLocksDontBlockEachOther() throws Exception {
+        try (InstallationLock lock = lock(false, 0)) {
+            final Future<Boolean> other = executor.submit(() -> {
+                try (InstallationLock otherLock = lock(false, 0)) {
+                    return otherLock.isExclusive();
+                }
+            });
+
+            assertThat(other.get(5, TimeUnit.SECONDS)).isFalse();
+            assertThat(installDir.resolve(InstallationMetadata.METADATA_DIR).resolve(InstallationLock.LOCK_FILE_NAME)).exists();
+        }
+    }
+
+    @Test
+    public void exclusiveLockTimesOutWhileSharedLockIsHeld() throws Exception {
+        try (InstallationLock lock = lock(false, 0)) {
+            final Future<InstallationLock> other = executor.submit(() -> lock(true, 200));
+
+            assertThatThrownBy(other::get).hasCauseInstanceOf(MetadataException.class);
+        }
+    }
+
+    @Test
+    public void exclusiveLockWaitsForRelease() throws Exception {
+        final InstallationLock lock = lock(true, 0);
+        final Future<Boolean> other = executor.submit(() -> {
+            try (InstallationLock otherLock = lock(false, 5000)) {
+                return otherLock.isExclusive();
+            }
+        });
+        Thread.sleep(200);
+        assertThat(other.isDone()).isFalse();
+
+        lock.close();
+
+        assertThat(other.get(5, TimeUnit.SECONDS)).isFalse();
+    }
+
+    @Test
+    public void exclusiveLockIsReentrant() throws Exception {
+        try (InstallationLock lock = lock(true, 0);
+             InstallationLock nested = lock(true, 0);
+             InstallationLock nestedShared = lock(false, 0)) {
+            assertThat(nested.isExclusive()).isTrue();
+            assertThat(nestedShared.isExclusive()).isFalse();
+        }
+
+        // all released
+        assertThat(executor.submit(() -> {
+            try (InstallationLock otherLock = lock(true, 0)) {
+                return otherLock.isExclusive();
+            }
+        }).get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void lockFileIsForgottenAfterLastRelease() throws Exception {
+        final InstallationLock lock = lock(false, 0);
+        final InstallationLock other = executor.submit(() -> lock(false, 0)).get(5, TimeUnit.SECONDS);
+
+        lock.close();
+        assertThat(InstallationLock.isTracked(installDir)).isTrue();
+        // locks are released by the thread that acquired them
+        executor.submit(other::close).get(5, TimeUnit.SECONDS);
+        assertThat(InstallationLock.isTracked(installDir)).isFalse();
+
+        // failed attempts are not kept either
+        try (InstallationLock exclusive = lock(true, 0)) {
+            assertThatThrownBy(() -> executor.submit(() -> lock(false, 0)).get()).hasCauseInstanceOf(MetadataException.class);
+        }
+        assertThat(InstallationLock.isTracked(installDir)).isFalse();
+    }
+
+    @Test
+    public void sharedLockCantBeUpgraded() throws Exception {
+        try (InstallationLock lock = lock(false, 0)) {
+            assertThatThrownBy(() -> lock(true, 0)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    public void sharedLockAcquiredUnderExclusiveLockExcludesOtherProcesses() throws Exception {
+        final InstallationLock exclusive = lock(true, 0);
+        final InstallationLock shared = lock(false, 0);
+        exclusive.close();
+
+        assertThat(lockableByOtherProcess()).isFalse();
+        // other threads can still read, but not write
+        assertThat(executor.submit(() -> {
+            try (InstallationLock otherLock = lock(false, 0)) {
+                return otherLock.isExclusive();
+            }
+        }).get(5, TimeUnit.SECONDS)).isFalse();
+        assertThatThrownBy(() -> executor.submit(() -> lock(true, 200)).get()).hasCauseInstanceOf(MetadataException.class);
+
+        shared.close();
+
+        assertThat(lockableByOtherProcess()).isTrue();
+    }
+
+    private boolean lockableByOtherProcess() throws Exception {
+        final Path java = Paths.get(System.getProperty("java.home"), "bin", "java");
+        final Process process = new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+                LockProbe.class.getName(), installDir.resolve(InstallationMetadata.METADATA_DIR).resolve(InstallationLock.LOCK_FILE_NAME).toString())
+                .inheritIO()
+                .start();
+        assertThat(process.waitFor(30, TimeUnit.SECONDS)).isTrue();
+        return process.exitValue() == 0;
+    }
+
+    private InstallationLock lock(boolean exclusive, long timeoutMs) throws MetadataException {
+        return InstallationLock.acquire(installDir, exclusive, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public static class LockProbe {
+        public static void main(String[] args) throws Exception {
+            try (FileChannel channel = FileChannel.open(Paths.get(args[0]), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                System.exit(channel.tryLock() != null ? 0 : 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.installation;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.channel.Channel;
+import org.wildfly.channel.Stream;
+import org.wildfly.prospero.api.ArtifactDrift;
+import org.wildfly.prospero.model.InstalledArtifactsIndex;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class InstallationVerifierTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path base;
+    private Path moduleDir;
+    private Channel manifest;
+    private InstalledArtifactsIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        base = temp.newFolder().toPath();
+        moduleDir = base.resolve(Paths.get("modules", "system", "layers", "base", "org", "foo", "main"));
+        Files.createDirectories(moduleDir);
+        Files.writeString(moduleDir.resolve("bar-1.2.3.jar"), "bar");
+        Files.writeString(moduleDir.resolve("baz-1.0.0.jar"), "baz");
+        manifest = new Channel(null, null, null, null, Arrays.asList(
+                new Stream("org.foo", "bar", "1.2.3", null),
+                new Stream("org.foo", "baz", "1.0.0", null)));
+        index = new InstalledArtifactsScanner(base).scan(manifest, null);
+    }
+
+    @Test
+    public void unchangedInstallationHasNoDrift() throws Exception {
+        assertThat(new InstallationVerifier(base).verify(index, manifest, false)).isEmpty();
+        assertThat(new InstallationVerifier(base).verify(index, manifest, true)).isEmpty();
+    }
+
+    @Test
+    public void modifiedAndMissingFilesAreReported() throws Exception {
+        final Path bar = moduleDir.resolve("bar-1.2.3.jar");
+        final long lastModified = Files.getLastModifiedTime(bar).toMillis();
+        Files.writeString(bar, "rab");
+        Files.setLastModifiedTime(bar, FileTime.fromMillis(lastModified));
+        Files.delete(moduleDir.resolve("baz-1.0.0.jar"));
+
+        final List<ArtifactDrift> drifts = new InstallationVerifier(base).verify(index, manifest, false);
+
+        assertThat(drifts)
+                .extracting(ArtifactDrift::getType, ArtifactDrift::getGav)
+                .containsExactly(
+                        tuple(ArtifactDrift.Type.MODIFIED, "org.foo:bar:1.2.3"),
+                        tuple(ArtifactDrift.Type.MISSING, "org.foo:baz:1.0.0"));
+        // same size and modification time is not detected by the fast check
+        assertThat(new InstallationVerifier(base).verify(index, manifest, true))
+                .extracting(ArtifactDrift::getType)
+                .containsExactly(ArtifactDrift.Type.MISSING);
+    }
+
+    @Test
+    public void manifestVersionChangeIsReported() throws Exception {
+        final Channel updated = new Channel(null, null, null, null, Arrays.asList(
+                new Stream("org.foo", "bar", "1.2.4", null),
+                new Stream("org.foo", "baz", "1.0.0", null)));
+
+        assertThat(new InstallationVerifier(base).verify(index, updated, true))
+                .extracting(ArtifactDrift::getType, ArtifactDrift::getExpected, ArtifactDrift::getActual)
+                .containsExactly(tuple(ArtifactDrift.Type.UNEXPECTED_VERSION, "1.2.4", "1.2.3"));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wildfly.prospero.installation;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.channel.Channel;
+import org.wildfly.channel.Stream;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PinnedArtifactsTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private Path installDir;
+    private Path sourceRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        installDir = temp.newFolder("installation").toPath();
+        sourceRepository = temp.newFolder("repository").toPath();
+    }
+
+    @Test
+    public void pinCopiesArtifactFilesOfManifestStreams() throws Exception {
+        deploy("foo", "1.0.0", "foo-1.0.0.jar", "foo-1.0.0.jar.sha1", "foo-1.0.0-sources.jar", "_remote.repositories");
+        deploy("fp", "1.0.0", "fp-1.0.0.zip");
+        final PinnedArtifacts pinnedArtifacts = new PinnedArtifacts(installDir, 2);
+
+        pinnedArtifacts.pin("aaaaaaaa", manifest("1.0.0"), sourceRepository);
+
+        assertThat(pinnedArtifacts.isPinned("aaaaaaaa")).isTrue();
+        assertThat(pinnedArtifacts.isPinned("aaaa")).isTrue();
+        assertThat(pinnedArtifacts.isPinned("bbbbbbbb")).isFalse();
+        final Path pinned = pinnedArtifacts.getRepository().resolve("org/test");
+        assertThat(pinned.resolve("foo/1.0.0/foo-1.0.0.jar")).hasContent("foo-1.0.0.jar");
+        assertThat(pinned.resolve("foo/1.0.0/foo-1.0.0-sources.jar")).exists();
+        assertThat(pinned.resolve("foo/1.0.0/foo-1.0.0.jar.sha1")).doesNotExist();
+        assertThat(pinned.resolve("foo/1.0.0/_remote.repositories")).doesNotExist();
+        assertThat(pinned.resolve("fp/1.0.0/fp-1.0.0.zip")).exists();
+    }
+
+    @Test
+    public void onlyLastStatesArePinned() throws Exception {
+        deploy("foo", "1.0.0", "foo-1.0.0.jar");
+        deploy("foo", "1.0.1", "foo-1.0.1.jar");
+        deploy("foo", "1.0.2", "foo-1.0.2.jar");
+        deploy("fp", "1.0.0", "fp-1.0.0.zip");
+        final PinnedArtifacts pinnedArtifacts = new PinnedArtifacts(installDir, 2);
+
+        pinnedArtifacts.pin("aaaaaaaa", manifest("1.0.0"), sourceRepository);
+        pinnedArtifacts.pin("bbbbbbbb", manifest("1.0.1"), sourceRepository);
+        pinnedArtifacts.pin("cccccccc", manifest("1.0.2"), sourceRepository);
+
+        assertThat(pinnedArtifacts.isPinned("aaaaaaaa")).isFalse();
+        assertThat(pinnedArtifacts.isPinned("bbbbbbbb")).isTrue();
+        assertThat(pinnedArtifacts.isPinned("cccccccc")).isTrue();
+        final Path pinned = pinnedArtifacts.getRepository().resolve("org/test");
+        assertThat(pinned.resolve("foo/1.0.0")).doesNotExist();
+        assertThat(pinned.resolve("foo/1.0.1/foo-1.0.1.jar")).exists();
+        assertThat(pinned.resolve("foo/1.0.2/foo-1.0.2.jar")).exists();
+        // shared by all states
+        assertThat(pinned.resolve("fp/1.0.0/fp-1.0.0.zip")).exists();
+    }
+
+    @Test
+    public void copyPinnedArtifactsOfState() throws Exception {
+        deploy("foo", "1.0.0", "foo-1.0.0.jar");
+        deploy("foo", "1.0.1", "foo-1.0.1.jar");
+        deploy("fp", "1.0.0", "fp-1.0.0.zip");
+        final PinnedArtifacts pinnedArtifacts = new PinnedArtifacts(installDir, 2);
+        pinnedArtifacts.pin("aaaaaaaa", manifest("1.0.0"), sourceRepository);
+        pinnedArtifacts.pin("bbbbbbbb", manifest("1.0.1"), sourceRepository);
+        final Path target = temp.newFolder("local-repository").toPath();
+
+        pinnedArtifacts.copyTo("aaaaaaaa", target);
+
+        assertThat(target.resolve("org/test/foo/1.0.0/foo-1.0.0.jar")).hasContent("foo-1.0.0.jar");
+        assertThat(target.resolve("org/test/fp/1.0.0/fp-1.0.0.zip")).exists();
+        assertThat(target.resolve("org/test/foo/1.0.1")).doesNotExist();
+    }
+
+    @Test
+    public void stateWithMissingArtifactsIsIncomplete() throws Exception {
+        deploy("foo", "1.0.0", "foo-1.0.0.jar");
+        deploy("fp", "1.0.0", "fp-1.0.0.zip");
+        deploy("missing", "1.0.0", "missing-1.0.0.jar");
+        final PinnedArtifacts pinnedArtifacts = new PinnedArtifacts(installDir, 2);
+
+        pinnedArtifacts.pin("aaaaaaaa", manifest("1.0.0"), sourceRepository);
+        pinnedArtifacts.pin("bbbbbbbb", manifest("1.0.1"), sourceRepository);
+
+        assertThat(pinnedArtifacts.isComplete("aaaaaaaa")).isTrue();
+        assertThat(pinnedArtifacts.isPinned("bbbbbbbb")).isTrue();
+        assertThat(pinnedArtifacts.isComplete("bbbbbbbb")).isFalse();
+        assertThat(pinnedArtifacts.isComplete("cccccccc")).isFalse();
+    }
+
+    @Test
+    public void nothingIsPinnedIfDisabled() throws Exception {
+        deploy("foo", "1.0.0", "foo-1.0.0.jar");
+        deploy("fp", "1.0.0", "fp-1.0.0.zip");
+        final PinnedArtifacts pinnedArtifacts = new PinnedArtifacts(installDir, 0);
+
+        pinnedArtifacts.pin("aaaaaaaa", manifest("1.0.0"), sourceRepository);
+
+        assertThat(pinnedArtifacts.isPinned("aaaaaaaa")).isFalse();
+        assertThat(pinnedArtifacts.getRepository()).doesNotExist();
+    }
+
+    private Channel manifest(String fooVersion) {
+        return new Channel("manifest", null, null, null, Arrays.asList(
+                new Stream("org.test", "foo", fooVersion),
+                new Stream("org.test", "fp", "1.0.0"),
+                new Stream("org.test", "missing", "1.0.0")));
+    }
+
+    private void deploy(String artifactId, String version, String... files) throws Exception {
+        final Path dir = Files.createDirectories(sourceRepository.resolve("org/test").resolve(artifactId).resolve(version));
+        for (String file : files) {
+            Files.writeString(dir.resolve(file), file);
+        }
+    }
+}
@@ -36,6 +36,7 @@ import org.wildfly.prospero.model.ProsperoConfig;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -98,6 +99,43 @@ public class GitStorageTest {
         assertTrue(changes.get(0).getNewVersion().isEmpty());
     }
 
+    @Test
+    public void compactPacksLooseObjects() throws Exception {
+        final GitStorage gitStorage = new GitStorage(base.getParent());
+        final Channel channel = new Channel("test", "", null, null,
+                new ArrayList<>());
+
+        setArtifact(channel, "org.test:test:1.2.3");
+        gitStorage.record();
+        setArtifact(channel, "org.test:test:1.2.4");
+        gitStorage.record();
+
+        gitStorage.compact();
+
+        try (Git git = Git.open(base.toFile())) {
+            assertEquals(0L, ((Number) git.gc().getStatistics().get("numberOfLooseObjects")).longValue());
+        }
+        assertEquals(2, gitStorage.getRevisions().size());
+    }
+
+    @Test
+    public void recordPacksHistoryOverLooseObjectsThreshold() throws Exception {
+        final GitStorage gitStorage = new GitStorage(base.getParent(), 5);
+        final Channel channel = new Channel("test", "", null, null,
+                new ArrayList<>());
+
+        setArtifact(channel, "org.test:test:1.2.3");
+        gitStorage.record();
+        assertTrue(looseObjects() > 0);
+
+        setArtifact(channel, "org.test:test:1.2.4");
+        gitStorage.record();
+
+        assertTrue(GitStorage.awaitMaintenance(Duration.ofSeconds(30)));
+        assertEquals(0L, looseObjects());
+        assertEquals(2, gitStorage.getRevisions().size());
+    }
+
     @Test
     public void testAddedArtifact() throws Exception {
         final GitStorage gitStorage = new GitStorage(base.getParent());
@@ -135,6 +173,12 @@ public class GitStorageTest {
         assertEquals(new HashSet<>(Arrays.asList("manifest.yaml", InstallationMetadata.PROSPERO_CONFIG_FILE_NAME)), storedPaths);
     }
 
+    private long looseObjects() throws Exception {
+        try (Git git = Git.open(base.toFile())) {
+            return ((Number) git.gc().getStatistics().get("numberOfLooseObjects")).longValue();
+        }
+    }
+
     private HashSet<String> getPathsInCommit() throws IOException, GitAPIException {
         final Git git = Git.open(base.resolve(".git").toFile());
         HashSet<String> paths = new HashSet<>();
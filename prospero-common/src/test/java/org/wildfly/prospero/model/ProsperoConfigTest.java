@@ -18,9 +18,14 @@
 package org.wildfly.prospero.model;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Map;
 
 
 import static org.assertj.core.api.Assertions.*;
@@ -28,6 +33,9 @@ import static org.junit.Assert.*;
 
 public class ProsperoConfigTest {
 
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
     private final ProsperoConfig prosperoConfig = new ProsperoConfig(new ArrayList<>(), new ArrayList<>());
 
     @Test
@@ -73,4 +81,22 @@ public class ProsperoConfigTest {
                 new RepositoryRef("test", "file:///foo.bar")
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void downloadSettingsArePersisted() throws Exception {
+        final File configFile = temp.newFile("installer-config.yaml");
+        final DownloadSettings downloads = new DownloadSettings(4, Map.of("central", 2), 1_000_000L);
+        new ProsperoConfig(new ArrayList<>(), new ArrayList<>(), downloads).writeConfig(configFile);
+
+        assertEquals(downloads, ProsperoConfig.readConfig(configFile.toPath()).getDownloads());
+    }
+
+    @Test
+    public void downloadSettingsAreOptional() throws Exception {
+        final File configFile = temp.newFile("installer-config.yaml");
+        prosperoConfig.writeConfig(configFile);
+
+        assertThat(Files.readString(configFile.toPath())).doesNotContain("downloads");
+        assertNull(ProsperoConfig.readConfig(configFile.toPath()).getDownloads());
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class YamlSupportTest {
+
+    @Test
+    public void readersAreCachedPerType() {
+        assertThat(YamlSupport.reader(ProsperoConfig.class)).isSameAs(YamlSupport.reader(ProsperoConfig.class));
+        assertThat(YamlSupport.reader(new TypeReference<List<String>>() {}))
+                .isSameAs(YamlSupport.reader(new TypeReference<List<String>>() {}));
+        assertThat(YamlSupport.reader(new TypeReference<List<String>>() {}))
+                .isNotSameAs(YamlSupport.reader(new TypeReference<Map<String, String>>() {}));
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        final RepositoryRef repository = new RepositoryRef("test", "http://test.te");
+
+        final String yaml = YamlSupport.writer().writeValueAsString(repository);
+
+        assertThat(YamlSupport.reader(RepositoryRef.class).<RepositoryRef>readValue(yaml)).isEqualTo(repository);
+    }
+}
@@ -17,19 +17,29 @@
 
 package org.wildfly.prospero.promotion;
 
+import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.wildfly.channel.ArtifactCoordinate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ArtifactBundleTest {
 
@@ -66,10 +76,70 @@ public class ArtifactBundleTest {
         ArtifactBundle.createCustomizationArchive(Collections.emptyList(), temp.newFile("archive.zip"));
     }
 
+    @Test
+    public void openBundleWithoutExtracting() throws Exception {
+        final Path archiveFile = createCustomizationArchive();
+
+        final Path artifactFile;
+        try (final ArtifactBundle bundle = ArtifactBundle.open(archiveFile)) {
+            assertThat(bundle.getArtifactList()).containsOnly(
+                    new ArtifactCoordinate("foo.bar", "test", "", "", "1.2.3")
+            );
+            assertTrue(Files.exists(bundle.getRepository().resolve("foo/bar/test/1.2.3/test-1.2.3.jar")));
+
+            final List<Artifact> artifacts = bundle.resolveArtifacts();
+            assertThat(artifacts).hasSize(1);
+            artifactFile = artifacts.get(0).getFile().toPath();
+            assertTrue(Files.exists(artifactFile));
+            assertEquals("test content", Files.readString(artifactFile));
+        }
+        assertFalse(Files.exists(artifactFile));
+    }
+
+    @Test
+    public void rejectArtifactWithWrongChecksum() throws Exception {
+        final Path archiveFile = temp.newFile("archive.zip").toPath();
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(archiveFile))) {
+            writeEntry(zos, ArtifactBundle.ARTIFACT_LIST_YAML, new CustomArtifactList(Collections.singletonList(
+                    new CustomArtifact("foo.bar", "test", null, "jar", "1.2.3"))).writeToString());
+            writeEntry(zos, "repository/foo/bar/test/1.2.3/test-1.2.3.jar", "test content");
+            writeEntry(zos, "repository/foo/bar/test/1.2.3/test-1.2.3.jar.sha1", "0000000000000000000000000000000000000000");
+        }
+
+        try (final ArtifactBundle bundle = ArtifactBundle.open(archiveFile)) {
+            bundle.resolveArtifacts();
+            fail("Artifact with invalid checksum should be rejected");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("test-1.2.3.jar");
+        }
+    }
+
+    @Test
+    public void rejectEntriesOutsideOfBundle() throws Exception {
+        final Path archiveFile = temp.newFile("archive.zip").toPath();
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(archiveFile))) {
+            writeEntry(zos, ArtifactBundle.ARTIFACT_LIST_YAML, new CustomArtifactList(Collections.emptyList()).writeToString());
+            writeEntry(zos, "../evil.jar", "test content");
+        }
+
+        try (final ArtifactBundle bundle = ArtifactBundle.extract(archiveFile)) {
+            fail("Entry outside of the bundle should be rejected");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("evil.jar");
+        }
+    }
+
+    private static void writeEntry(ZipOutputStream zos, String name, String content) throws IOException {
+        zos.putNextEntry(new ZipEntry(name));
+        zos.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+
     // TODO: createArchiveWithArtifactWithoutFile
 
     private Path createCustomizationArchive() throws Exception {
-        final DefaultArtifact testArtifact = new DefaultArtifact("foo.bar", "test", null, null, "1.2.3", null, temp.newFile("test-1.2.3.jar"));
+        final File file = temp.newFile("test-1.2.3.jar");
+        Files.writeString(file.toPath(), "test content");
+        final DefaultArtifact testArtifact = new DefaultArtifact("foo.bar", "test", null, null, "1.2.3", null, file);
         return ArtifactBundle.createCustomizationArchive(Collections.singletonList(testArtifact), temp.newFile("archive.zip"));
     }
 
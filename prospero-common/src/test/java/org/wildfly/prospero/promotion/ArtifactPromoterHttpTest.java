@@ -0,0 +1,252 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.promotion;
+
+import io.undertow.Undertow;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.HttpContinueAcceptingHandler;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+import io.undertow.util.StatusCodes;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.deployment.DeploymentException;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.repository.AuthenticationBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.channel.maven.ChannelCoordinate;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ArtifactPromoterHttpTest {
+
+    private static final String JAR_PATH = "foo/bar/1.2.3/bar-1.2.3.jar";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private RepositorySystem system;
+    private DefaultRepositorySystemSession session;
+    private Path sourceRepositoryPath;
+    private Path targetRepositoryPath;
+    private RemoteRepository sourceRepository;
+    private RemoteRepository targetRepository;
+    private Undertow server;
+    private final Map<String, AtomicInteger> uploads = new ConcurrentHashMap<>();
+    private final Set<String> failOnce = ConcurrentHashMap.newKeySet();
+    private volatile String requiredAuthorization;
+
+    @Before
+    public void setUp() throws Exception {
+        final MavenSessionManager sessionManager = new MavenSessionManager();
+        system = sessionManager.getRepositorySystem();
+        session = sessionManager.newRepositorySystemSession(system, false);
+
+        sourceRepositoryPath = temp.newFolder("source").toPath();
+        targetRepositoryPath = temp.newFolder("target").toPath();
+        sourceRepository = new RemoteRepository.Builder("source", "default", sourceRepositoryPath.toUri().toURL().toString()).build();
+
+        server = Undertow.builder()
+                .addHttpListener(0, "localhost")
+                .setHandler(new HttpContinueAcceptingHandler(this::handle))
+                .build();
+        server.start();
+        final int port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+        targetRepository = new RemoteRepository.Builder("target", "default", "http://localhost:" + port + "/repo").build();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void promoteUploadsArtifactsChecksumsAndChannel() throws Exception {
+        final List<CustomArtifact> artifacts = Arrays.asList(
+                new CustomArtifact("foo", "bar", null, "jar", "1.2.3"),
+                new CustomArtifact("foo", "baz", null, "jar", "1.2.3"));
+        for (CustomArtifact artifact : artifacts) {
+            createSourceArtifact(artifact);
+        }
+
+        promote(artifacts);
+
+        assertThat(targetRepositoryPath.resolve(JAR_PATH)).exists();
+        assertThat(targetRepositoryPath.resolve(JAR_PATH + ".sha1")).exists();
+        assertThat(targetRepositoryPath.resolve("foo/baz/1.2.3/baz-1.2.3.jar")).exists();
+        assertThat(targetRepositoryPath.resolve("test/channel/1.0.0.Final-rev00000002/channel-1.0.0.Final-rev00000002-channel.yaml"))
+                .exists();
+    }
+
+    @Test
+    public void promoteRetriesFailedUpload() throws Exception {
+        final CustomArtifact artifact = new CustomArtifact("foo", "bar", null, "jar", "1.2.3");
+        createSourceArtifact(artifact);
+        failOnce.add("/repo/" + JAR_PATH);
+
+        promote(Arrays.asList(artifact));
+
+        assertThat(targetRepositoryPath.resolve(JAR_PATH)).exists();
+        assertThat(uploads.get("/repo/" + JAR_PATH).get()).isEqualTo(2);
+    }
+
+    @Test
+    public void promoteSkipsUploadedArtifactsAcrossBatches() throws Exception {
+        final List<CustomArtifact> artifacts = new ArrayList<>();
+        for (int i = 0; i < ArtifactPromoter.REMOTE_BATCH_SIZE * 3; i++) {
+            final CustomArtifact artifact = new CustomArtifact("foo", "bar" + i, null, "jar", "1.2.3");
+            createSourceArtifact(artifact);
+            artifacts.add(artifact);
+        }
+        promote(artifacts);
+
+        // every batch mixes deployed artifacts with new ones
+        for (int i = 0; i < 3; i++) {
+            final CustomArtifact artifact = new CustomArtifact("foo", "bar" + i + "-new", null, "jar", "1.2.3");
+            createSourceArtifact(artifact);
+            artifacts.add(i * ArtifactPromoter.REMOTE_BATCH_SIZE, artifact);
+        }
+        promote(artifacts);
+
+        assertThat(uploads.get("/repo/foo/bar0/1.2.3/bar0-1.2.3.jar").get()).isEqualTo(1);
+        assertThat(uploads.get("/repo/foo/bar29/1.2.3/bar29-1.2.3.jar").get()).isEqualTo(1);
+        assertThat(targetRepositoryPath.resolve("foo/bar2-new/1.2.3/bar2-new-1.2.3.jar")).exists();
+        assertThat(uploads.keySet()).filteredOn(path -> path.endsWith(".jar")).hasSize(33);
+        assertThat(uploads.entrySet()).filteredOn(e -> e.getKey().endsWith(".jar")).allMatch(e -> e.getValue().get() == 1);
+    }
+
+    @Test
+    public void promoteSkipsArtifactsAlreadyUploaded() throws Exception {
+        final CustomArtifact artifact = new CustomArtifact("foo", "bar", null, "jar", "1.2.3");
+        createSourceArtifact(artifact);
+
+        promote(Arrays.asList(artifact));
+        promote(Arrays.asList(artifact));
+
+        assertThat(uploads.get("/repo/" + JAR_PATH).get()).isEqualTo(1);
+    }
+
+    @Test
+    public void promoteUploadsArtifactWhenDeployedChecksumChanged() throws Exception {
+        final CustomArtifact artifact = new CustomArtifact("foo", "bar", null, "jar", "1.2.3");
+        createSourceArtifact(artifact);
+
+        promote(Arrays.asList(artifact));
+        // reads the deployed checksum
+        promote(Arrays.asList(artifact));
+        // redeployed with different content by someone else
+        Files.writeString(targetRepositoryPath.resolve(JAR_PATH), "other");
+        Files.writeString(targetRepositoryPath.resolve(JAR_PATH + ".sha1"), DigestUtils.sha1Hex("other"));
+        promote(Arrays.asList(artifact));
+
+        assertThat(uploads.get("/repo/" + JAR_PATH).get()).isEqualTo(2);
+        assertThat(targetRepositoryPath.resolve(JAR_PATH)).hasContent("bar");
+    }
+
+    @Test
+    public void promoteAuthenticatesToTargetRepository() throws Exception {
+        final CustomArtifact artifact = new CustomArtifact("foo", "bar", null, "jar", "1.2.3");
+        createSourceArtifact(artifact);
+        requiredAuthorization = "Basic " + Base64.getEncoder().encodeToString("user:secret".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> promote(Arrays.asList(artifact)))
+                .isInstanceOf(DeploymentException.class);
+        assertThat(targetRepositoryPath.resolve(JAR_PATH)).doesNotExist();
+
+        targetRepository = new RemoteRepository.Builder(targetRepository)
+                .setAuthentication(new AuthenticationBuilder().addUsername("user").addPassword("secret").build())
+                .build();
+        promote(Arrays.asList(artifact));
+
+        assertThat(targetRepositoryPath.resolve(JAR_PATH)).exists();
+    }
+
+    private void promote(List<CustomArtifact> artifacts) throws Exception {
+        new ArtifactPromoter(system, session, targetRepository)
+                .promote(new CustomArtifactList(artifacts).getArtifactCoordinates(), new ChannelCoordinate("test", "channel"), sourceRepository);
+    }
+
+    private void createSourceArtifact(CustomArtifact artifact) throws Exception {
+        final Path path = sourceRepositoryPath.resolve(artifact.getGroupId()).resolve(artifact.getArtifactId())
+                .resolve(artifact.getVersion())
+                .resolve(artifact.getArtifactId() + "-" + artifact.getVersion() + "." + artifact.getExtension());
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, artifact.getArtifactId());
+    }
+
+    private void handle(HttpServerExchange exchange) throws Exception {
+        if (exchange.isInIoThread()) {
+            exchange.dispatch(this::handle);
+            return;
+        }
+        final String requestPath = exchange.getRequestPath();
+        final Path file = targetRepositoryPath.resolve(requestPath.substring("/repo/".length()));
+
+        if (requiredAuthorization != null
+                && !requiredAuthorization.equals(exchange.getRequestHeaders().getFirst(Headers.AUTHORIZATION))) {
+            exchange.getResponseHeaders().put(Headers.WWW_AUTHENTICATE, "Basic realm=\"test\"");
+            exchange.setStatusCode(StatusCodes.UNAUTHORIZED);
+            return;
+        }
+
+        if (exchange.getRequestMethod().equals(Methods.PUT)) {
+            uploads.computeIfAbsent(requestPath, p -> new AtomicInteger()).incrementAndGet();
+            exchange.startBlocking();
+            if (failOnce.remove(requestPath)) {
+                exchange.getInputStream().readAllBytes();
+                exchange.setStatusCode(StatusCodes.SERVICE_UNAVAILABLE);
+                return;
+            }
+            Files.createDirectories(file.getParent());
+            try (InputStream is = exchange.getInputStream()) {
+                Files.copy(is, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            exchange.setStatusCode(StatusCodes.CREATED);
+        } else if (Files.isRegularFile(file)) {
+            exchange.startBlocking();
+            if (exchange.getRequestMethod().equals(Methods.GET)) {
+                exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, Files.size(file));
+                Files.copy(file, exchange.getOutputStream());
+            }
+        } else {
+            exchange.setStatusCode(StatusCodes.NOT_FOUND);
+        }
+    }
+}
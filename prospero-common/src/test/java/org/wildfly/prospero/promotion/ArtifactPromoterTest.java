@@ -43,12 +43,15 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -69,7 +72,7 @@ public class ArtifactPromoterTest {
     @Before
     public void setUp() throws Exception {
         sessionManager = new MavenSessionManager();
-        system = sessionManager.newRepositorySystem();
+        system = sessionManager.getRepositorySystem();
         session = sessionManager.newRepositorySystemSession(system, false);
 
         sourceRepositoryPath = temp.newFolder("source").toPath();
@@ -107,6 +110,65 @@ public class ArtifactPromoterTest {
         assertStreamMatches("stream", "one", "1.2.3", channelGa);
     }
 
+    @Test
+    public void testPromoteMultipleArtifacts() throws Exception {
+        final List<CustomArtifact> artifacts = Arrays.asList(
+                new CustomArtifact("foo", "bar", null, "jar", "1.2.3"),
+                new CustomArtifact("foo", "baz", null, "jar", "1.2.3"),
+                new CustomArtifact("foo", "baz", "linux", "jar", "1.2.3"));
+        for (CustomArtifact artifact : artifacts) {
+            mockDeployArtifact(artifact, sourceRepositoryPath);
+        }
+
+        final ChannelCoordinate channelGa = new ChannelCoordinate("test", "channel");
+        promote(new CustomArtifactList(artifacts), channelGa);
+
+        for (CustomArtifact artifact : artifacts) {
+            assertArtifactInRepository(artifact);
+        }
+        assertStreamMatches("foo", "bar", "1.2.3", channelGa);
+        assertStreamMatches("foo", "baz", "1.2.3", channelGa);
+    }
+
+    @Test
+    public void testPromoteMoreArtifactsThanBatchSize() throws Exception {
+        final List<CustomArtifact> artifacts = new ArrayList<>();
+        for (int i = 0; i < ArtifactPromoter.BATCH_SIZE + 5; i++) {
+            final CustomArtifact artifact = new CustomArtifact("foo", "bar" + i, null, "jar", "1.2.3");
+            mockDeployArtifact(artifact, sourceRepositoryPath);
+            artifacts.add(artifact);
+        }
+
+        final ChannelCoordinate channelGa = new ChannelCoordinate("test", "channel");
+        promote(new CustomArtifactList(artifacts), channelGa);
+
+        for (CustomArtifact artifact : artifacts) {
+            assertArtifactInRepository(artifact);
+        }
+    }
+
+    @Test
+    public void testUnchangedArtifactsAreNotDeployedAgain() throws Exception {
+        final CustomArtifact unchanged = new CustomArtifact("foo", "bar", null, "jar", "1.2.3");
+        final CustomArtifact changed = new CustomArtifact("foo", "baz", null, "jar", "1.2.3");
+        mockDeployArtifact(unchanged, sourceRepositoryPath);
+        mockDeployArtifact(changed, sourceRepositoryPath);
+        Files.writeString(artifactPath(unchanged, sourceRepositoryPath), "unchanged");
+        Files.writeString(artifactPath(changed, sourceRepositoryPath), "new content");
+        mockDeployArtifact(unchanged, targetRepositoryPath);
+        mockDeployArtifact(changed, targetRepositoryPath);
+        Files.writeString(artifactPath(unchanged, targetRepositoryPath), "unchanged");
+        Files.writeString(artifactPath(changed, targetRepositoryPath), "old content");
+        final FileTime timestamp = FileTime.fromMillis(1_000_000L);
+        Files.setLastModifiedTime(artifactPath(unchanged, targetRepositoryPath), timestamp);
+
+        final ChannelCoordinate channelGa = new ChannelCoordinate("test", "channel");
+        promote(new CustomArtifactList(Arrays.asList(unchanged, changed)), channelGa);
+
+        assertEquals(timestamp, Files.getLastModifiedTime(artifactPath(unchanged, targetRepositoryPath)));
+        assertEquals("new content", Files.readString(artifactPath(changed, targetRepositoryPath)));
+    }
+
     private void mockDeployArtifact(CustomArtifact artifact, Path sourceRepositoryPath) throws IOException {
         Files.createDirectories(artifactPath(artifact, sourceRepositoryPath).getParent());
         Files.createFile(artifactPath(artifact, sourceRepositoryPath));
@@ -171,6 +233,44 @@ public class ArtifactPromoterTest {
         );
     }
 
+    @Test
+    public void testPromoteNewerVersionReplacesExistingStream() throws Exception {
+        final CustomArtifact artifact = new CustomArtifact("stream", "one", null, "jar", "1.2.4");
+        mockDeployArtifact(artifact, sourceRepositoryPath);
+
+        List<Stream> streams = Arrays.asList(
+                new Stream("stream", "two", "1.0.0"),
+                new Stream("stream", "one", "1.2.3"));
+        mockDeployedChannel(streams, "1.0.0.Final-rev00000001");
+
+        final ChannelCoordinate channelGa = new ChannelCoordinate("test", "channel");
+        promote(new CustomArtifactList(Arrays.asList(artifact)), channelGa);
+
+        final Channel channel = getChannels(channelGa).get(0);
+        assertThat(channel.getStreams())
+                .extracting(Stream::getArtifactId, Stream::getVersion)
+                .containsExactly(tuple("one", "1.2.4"), tuple("two", "1.0.0"));
+    }
+
+    @Test
+    public void testPromoteOlderVersionDoesNotChangeChannel() throws Exception {
+        final CustomArtifact artifact = new CustomArtifact("stream", "one", null, "jar", "1.2.2");
+        mockDeployArtifact(artifact, sourceRepositoryPath);
+
+        List<Stream> streams = Arrays.asList(new Stream("stream", "one", "1.2.3"));
+        mockDeployedChannel(streams, "1.0.0.Final-rev00000001");
+
+        final ChannelCoordinate channelGa = new ChannelCoordinate("test", "channel");
+        promote(new CustomArtifactList(Arrays.asList(artifact)), channelGa);
+
+        assertStreamMatches("stream", "one", "1.2.3", channelGa);
+        final VersionRangeRequest request = new VersionRangeRequest(
+                new DefaultArtifact("test", "channel",  "channel", "yaml", "[0,)"),
+                Arrays.asList(targetRepository), null);
+        assertThat(system.resolveVersionRange(session, request).getVersions().stream().map(Version::toString))
+                .containsOnly("1.0.0.Final-rev00000001");
+    }
+
     @Test
     public void testTooManyChannelVersions() throws Exception {
         final CustomArtifact artifact = new CustomArtifact("stream", "two", null, "jar", "1.2.3");
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.proxy;
+
+import io.undertow.Undertow;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.wildfly.prospero.api.ProvisioningDefinition.DEFAULT_REPOSITORY_POLICY;
+
+public class RepositoryProxyTest {
+
+    private static final String JAR_PATH = "foo/bar/1.0/bar-1.0.jar";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final List<Upstream> upstreams = new ArrayList<>();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private RepositoryProxy proxy;
+    private byte[] content;
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[64 * 1024];
+        new Random(42).nextBytes(content);
+    }
+
+    @After
+    public void tearDown() {
+        if (proxy != null) {
+            proxy.close();
+        }
+        upstreams.forEach(u -> u.server.stop());
+    }
+
+    @Test
+    public void artifactIsDownloadedOnce() throws Exception {
+        final Upstream upstream = upstream("upstream");
+        upstream.publish(JAR_PATH, content);
+        startProxy(upstream);
+
+        final HttpResponse<byte[]> first = get(JAR_PATH);
+        final HttpResponse<byte[]> second = get(JAR_PATH);
+        final HttpResponse<byte[]> checksum = get(JAR_PATH + ".sha1");
+
+        assertThat(first.statusCode()).isEqualTo(200);
+        assertThat(first.body()).isEqualTo(content);
+        assertThat(second.body()).isEqualTo(content);
+        assertThat(new String(checksum.body(), StandardCharsets.US_ASCII)).isEqualTo(DigestUtils.sha1Hex(content));
+        assertThat(upstream.requests(JAR_PATH)).isEqualTo(1);
+        assertThat(proxy.getStatistics().getMisses()).isEqualTo(1);
+        assertThat(proxy.getStatistics().getHits()).isEqualTo(2);
+        assertThat(proxy.getStatistics().getHitRate()).isGreaterThan(0.6);
+    }
+
+    @Test
+    public void concurrentRequestsShareDownload() throws Exception {
+        final Upstream upstream = upstream("upstream");
+        upstream.publish(JAR_PATH, content);
+        upstream.blocked = new CountDownLatch(1);
+        startProxy(upstream);
+
+        final List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            responses.add(client.sendAsync(request(JAR_PATH), HttpResponse.BodyHandlers.ofByteArray()));
+        }
+        // let all the requests reach the proxy before the download completes
+        waitFor(() -> proxy.getStatistics().getRequests() == 5);
+        upstream.blocked.countDown();
+
+        for (CompletableFuture<HttpResponse<byte[]>> response : responses) {
+            assertThat(response.get(10, TimeUnit.SECONDS).body()).isEqualTo(content);
+        }
+        assertThat(upstream.requests(JAR_PATH)).isEqualTo(1);
+    }
+
+    @Test
+    public void metadataIsMergedFromAllRepositories() throws Exception {
+        final Upstream first = upstream("first");
+        first.publish("foo/bar/maven-metadata.xml", metadata("1.0"));
+        final Upstream second = upstream("second");
+        second.publish("foo/bar/maven-metadata.xml", metadata("1.1"));
+        startProxy(first, second);
+
+        final HttpResponse<byte[]> response = get("foo/bar/maven-metadata.xml");
+        final HttpResponse<byte[]> checksum = get("foo/bar/maven-metadata.xml.sha1");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        final String metadata = new String(response.body(), StandardCharsets.UTF_8);
+        assertThat(metadata).contains("<version>1.0</version>", "<version>1.1</version>");
+        assertThat(new String(checksum.body(), StandardCharsets.US_ASCII)).isEqualTo(DigestUtils.sha1Hex(response.body()));
+    }
+
+    @Test
+    public void missingArtifactIsNotFound() throws Exception {
+        startProxy(upstream("upstream"));
+
+        assertThat(get(JAR_PATH).statusCode()).isEqualTo(404);
+        assertThat(get("not/an/artifact").statusCode()).isEqualTo(404);
+        assertThat(proxy.getStatistics().getNotFound()).isEqualTo(2);
+    }
+
+    @Test
+    public void statisticsAreServed() throws Exception {
+        startProxy(upstream("upstream"));
+
+        final HttpResponse<byte[]> response = get(RepositoryProxy.STATS_PATH.substring(1));
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(new String(response.body(), StandardCharsets.UTF_8)).contains("\"hitRate\"", "\"requests\":1");
+    }
+
+    @Test
+    public void parseArtifactPaths() {
+        Artifact artifact = RepositoryProxy.parseArtifact("org/foo/bar/1.0/bar-1.0-sources.jar");
+        assertThat(artifact.getGroupId()).isEqualTo("org.foo");
+        assertThat(artifact.getArtifactId()).isEqualTo("bar");
+        assertThat(artifact.getVersion()).isEqualTo("1.0");
+        assertThat(artifact.getClassifier()).isEqualTo("sources");
+        assertThat(artifact.getExtension()).isEqualTo("jar");
+
+        artifact = RepositoryProxy.parseArtifact("org/foo/bar/1.0-SNAPSHOT/bar-1.0-20220101.120000-3.tar.gz");
+        assertThat(artifact.getVersion()).isEqualTo("1.0-20220101.120000-3");
+        assertThat(artifact.getBaseVersion()).isEqualTo("1.0-SNAPSHOT");
+        assertThat(artifact.getExtension()).isEqualTo("tar.gz");
+
+        assertThat(RepositoryProxy.parseArtifact("org/foo/bar/1.0/baz-1.0.jar")).isNull();
+        assertThat(RepositoryProxy.parseArtifact("org/foo/bar/1.0/bar-1.0")).isNull();
+    }
+
+    private void startProxy(Upstream... repositories) throws Exception {
+        final List<RemoteRepository> remoteRepositories = new ArrayList<>();
+        for (Upstream upstream : repositories) {
+            remoteRepositories.add(new RemoteRepository.Builder(upstream.id, "default", upstream.url)
+                    .setPolicy(DEFAULT_REPOSITORY_POLICY)
+                    .build());
+        }
+        final MavenSessionManager msm = new MavenSessionManager(temp.newFolder().toPath());
+        proxy = new RepositoryProxy(msm, remoteRepositories, new InetSocketAddress("localhost", 0));
+        proxy.start();
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(proxy.getUri().resolve(path)).build();
+    }
+
+    private HttpResponse<byte[]> get(String path) throws Exception {
+        return client.send(request(path), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static byte[] metadata(String version) {
+        return ("<metadata><groupId>foo</groupId><artifactId>bar</artifactId><versioning><versions>"
+                + "<version>" + version + "</version></versions></versioning></metadata>").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private Upstream upstream(String id) {
+        final Upstream upstream = new Upstream(id);
+        upstreams.add(upstream);
+        return upstream;
+    }
+
+    private static class Upstream {
+        private final String id;
+        private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+        private final List<String> requests = new CopyOnWriteArrayList<>();
+        private final Undertow server;
+        private final String url;
+        private volatile CountDownLatch blocked;
+
+        Upstream(String id) {
+            this.id = id;
+            server = Undertow.builder()
+                    .addHttpListener(0, "localhost")
+                    .setHandler(this::handle)
+                    .build();
+            server.start();
+            final int port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+            url = URI.create("http://localhost:" + port + "/repo/").toString();
+        }
+
+        void publish(String path, byte[] data) {
+            files.put("/repo/" + path, data);
+            files.put("/repo/" + path + ".sha1", DigestUtils.sha1Hex(data).getBytes(StandardCharsets.US_ASCII));
+        }
+
+        long requests(String path) {
+            return requests.stream().filter(("/repo/" + path)::equals).count();
+        }
+
+        private void handle(HttpServerExchange exchange) throws Exception {
+            if (exchange.isInIoThread()) {
+                exchange.dispatch(this::handle);
+                return;
+            }
+            requests.add(exchange.getRequestPath());
+            final CountDownLatch latch = blocked;
+            if (latch != null) {
+                latch.await(10, TimeUnit.SECONDS);
+            }
+            final byte[] data = files.get(exchange.getRequestPath());
+            if (data == null) {
+                exchange.setStatusCode(StatusCodes.NOT_FOUND);
+                return;
+            }
+            exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, data.length);
+            exchange.startBlocking();
+            exchange.getOutputStream().write(data);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.updates;
+
+import io.undertow.Undertow;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.aether.ConfigurationProperties;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.wildfly.prospero.wfchannel.MavenSessionManager;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.wildfly.prospero.api.ProvisioningDefinition.DEFAULT_REPOSITORY_POLICY;
+
+public class MetadataPrefetcherTest {
+
+    private static final String METADATA_PATH = "/repo/foo/bar/maven-metadata.xml";
+    private static final String METADATA = "<metadata><groupId>foo</groupId><artifactId>bar</artifactId>"
+            + "<versioning><versions><version>1.0</version><version>1.1</version></versions></versioning></metadata>";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<String> requestHeaders = new CopyOnWriteArrayList<>();
+    private Undertow server;
+    private RemoteRepository repository;
+    private MavenSessionManager msm;
+
+    @Before
+    public void setUp() throws Exception {
+        final byte[] metadata = METADATA.getBytes(StandardCharsets.UTF_8);
+        files.put(METADATA_PATH, metadata);
+        files.put(METADATA_PATH + ".sha1", DigestUtils.sha1Hex(metadata).getBytes(StandardCharsets.UTF_8));
+
+        server = Undertow.builder()
+                .addHttpListener(0, "localhost")
+                .setHandler(this::handle)
+                .build();
+        server.start();
+        final int port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+        repository = new RemoteRepository.Builder("test", "default", "http://localhost:" + port + "/repo")
+                .setPolicy(DEFAULT_REPOSITORY_POLICY)
+                .build();
+        msm = new MavenSessionManager(temp.newFolder("local-repo").toPath());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void versionLookupAfterPrefetchDoesNotContactRepository() throws Exception {
+        final RepositorySystem system = msm.getRepositorySystem();
+        final DefaultRepositorySystemSession session = msm.newRepositorySystemSession(system);
+
+        final int found = new MetadataPrefetcher(system, session, List.of(repository))
+                .prefetch(List.of(new DefaultArtifact("foo:bar:jar:1.0"), new DefaultArtifact("foo:bar:pom:1.0")));
+        final int requestsAfterPrefetch = requests.size();
+        final VersionRangeResult result = findVersions(system, session);
+
+        assertThat(found).isEqualTo(1);
+        assertThat(metadataRequests()).hasSize(1);
+        assertThat(requests).hasSize(requestsAfterPrefetch);
+        assertThat(result.getVersions()).extracting(Object::toString).containsExactly("1.0", "1.1");
+    }
+
+    @Test
+    public void unchangedMetadataIsRevalidated() throws Exception {
+        final RepositorySystem system = msm.getRepositorySystem();
+        new MetadataPrefetcher(system, msm.newRepositorySystemSession(system), List.of(repository))
+                .prefetch(List.of(new DefaultArtifact("foo:bar:1.0")));
+
+        final DefaultRepositorySystemSession session = msm.newRepositorySystemSession(system);
+        new MetadataPrefetcher(system, session, List.of(repository))
+                .prefetch(List.of(new DefaultArtifact("foo:bar:1.0")));
+        final VersionRangeResult result = findVersions(system, session);
+
+        assertThat(metadataRequests()).containsExactly(
+                METADATA_PATH + " 200",
+                METADATA_PATH + " 304");
+        assertThat(result.getVersions()).extracting(Object::toString).containsExactly("1.0", "1.1");
+    }
+
+    @Test
+    public void metadataRequestsUseSessionSettings() throws Exception {
+        final RepositorySystem system = msm.getRepositorySystem();
+        final DefaultRepositorySystemSession session = msm.newRepositorySystemSession(system);
+        session.setConfigProperty(ConfigurationProperties.USER_AGENT, "test-agent");
+        session.setConfigProperty(ConfigurationProperties.HTTP_HEADERS + "." + repository.getId(), Map.of("X-Test", "value"));
+
+        new MetadataPrefetcher(system, session, List.of(repository))
+                .prefetch(List.of(new DefaultArtifact("foo:bar:1.0")));
+
+        assertThat(requestHeaders).contains(METADATA_PATH + " test-agent value");
+        // validators are stored together with the content, one file for the metadata and one for its checksum
+        try (Stream<Path> cache = Files.list(temp.getRoot().toPath().resolve("local-repo").resolve(".prospero/metadata-cache"))) {
+            assertThat(cache).hasSize(2);
+        }
+    }
+
+    @Test
+    public void missingMetadataIsIgnored() throws Exception {
+        files.clear();
+        final RepositorySystem system = msm.getRepositorySystem();
+
+        final int found = new MetadataPrefetcher(system, msm.newRepositorySystemSession(system), List.of(repository))
+                .prefetch(List.of(new DefaultArtifact("foo:bar:1.0")));
+
+        assertThat(found).isEqualTo(0);
+    }
+
+    private VersionRangeResult findVersions(RepositorySystem system, DefaultRepositorySystemSession session) throws Exception {
+        return system.resolveVersionRange(session,
+                new VersionRangeRequest(new DefaultArtifact("foo:bar:[0,)"), List.of(repository), null));
+    }
+
+    private List<String> metadataRequests() {
+        return requests.stream()
+                .filter(r -> r.startsWith(METADATA_PATH + " "))
+                .collect(Collectors.toList());
+    }
+
+    private void handle(HttpServerExchange exchange) throws Exception {
+        if (exchange.isInIoThread()) {
+            exchange.dispatch(this::handle);
+            return;
+        }
+        final String path = exchange.getRequestPath();
+        final byte[] data = files.get(path);
+        requestHeaders.add(path + " " + exchange.getRequestHeaders().getFirst(Headers.USER_AGENT)
+                + " " + exchange.getRequestHeaders().getFirst("X-Test"));
+        // record the request before responding, the client may continue as soon as the response is sent
+        if (data == null) {
+            requests.add(path + " " + StatusCodes.NOT_FOUND);
+            exchange.setStatusCode(StatusCodes.NOT_FOUND);
+            return;
+        }
+        final String etag = "\"" + DigestUtils.sha1Hex(data) + "\"";
+        if (etag.equals(exchange.getRequestHeaders().getFirst(Headers.IF_NONE_MATCH))) {
+            requests.add(path + " " + StatusCodes.NOT_MODIFIED);
+            exchange.setStatusCode(StatusCodes.NOT_MODIFIED);
+            return;
+        }
+        requests.add(path + " " + StatusCodes.OK);
+        exchange.getResponseHeaders().put(Headers.ETAG, etag);
+        exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, data.length);
+        exchange.startBlocking();
+        exchange.getOutputStream().write(data);
+    }
+}
@@ -26,10 +26,15 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.wildfly.channel.ChannelSession;
 import org.wildfly.channel.UnresolvedMavenArtifactException;
+import org.wildfly.prospero.api.ArtifactChange;
+import org.wildfly.prospero.api.exceptions.ArtifactResolutionException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.when;
@@ -103,4 +108,80 @@ public class UpdateFinderTest {
         assertEquals(Optional.empty(), updates.getArtifactUpdates().get(0).getNewVersion());
         assertEquals("1.0.0", updates.getArtifactUpdates().get(0).getOldVersion().get());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void listenerIsNotifiedAboutEachCheckedArtifact() throws Exception {
+        when(channelSession.findLatestMavenArtifactVersion("org.foo", "bar", "jar", "", null)).thenReturn("1.0.1");
+        when(channelSession.findLatestMavenArtifactVersion("org.foo", "baz", "jar", "", null)).thenReturn("1.0.0");
+        final List<String> events = new ArrayList<>();
+
+        final UpdateSet updates;
+        try (UpdateFinder finder = new UpdateFinder(channelSession, provMgr)) {
+            updates = finder.findUpdates(Arrays.asList(
+                    new DefaultArtifact("org.foo", "bar", "jar", "1.0.0"),
+                    new DefaultArtifact("org.foo", "baz", "jar", "1.0.0")
+            ), new UpdateListener() {
+                @Override
+                public void searchStarted(int total) {
+                    events.add("started " + total);
+                }
+
+                @Override
+                public void artifactChecked(Artifact artifact, Optional<ArtifactChange> change, int checked, int total) {
+                    events.add(String.format("%s %s %d/%d", artifact.getArtifactId(),
+                            change.flatMap(ArtifactChange::getNewVersion).orElse("-"), checked, total));
+                }
+
+                @Override
+                public void searchCompleted(UpdateSet updates) {
+                    events.add("completed " + updates.getArtifactUpdates().size());
+                }
+            });
+        }
+
+        assertEquals(1, updates.getArtifactUpdates().size());
+        assertEquals(4, events.size());
+        assertEquals("started 2", events.get(0));
+        assertTrue(events.containsAll(Arrays.asList("bar 1.0.1 1/2", "baz - 2/2"))
+                || events.containsAll(Arrays.asList("baz - 1/2", "bar 1.0.1 2/2")));
+        assertEquals("completed 1", events.get(3));
+    }
+
+    @Test
+    public void failedCheckCancelsOutstandingChecks() throws Exception {
+        final CountDownLatch slowCheckStarted = new CountDownLatch(1);
+        final CountDownLatch slowCheckInterrupted = new CountDownLatch(1);
+        when(channelSession.findLatestMavenArtifactVersion("org.foo", "slow", "jar", "", null)).thenAnswer(inv -> {
+            slowCheckStarted.countDown();
+            try {
+                Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            } catch (InterruptedException e) {
+                slowCheckInterrupted.countDown();
+            }
+            return "1.0.0";
+        });
+        when(channelSession.findLatestMavenArtifactVersion("org.foo", "bar", "jar", "", null)).thenAnswer(inv -> {
+            slowCheckStarted.await();
+            throw new IllegalStateException("fatal");
+        });
+
+        try (UpdateFinder finder = new UpdateFinder(channelSession, provMgr, 2)) {
+            finder.findUpdates(Arrays.asList(
+                    new DefaultArtifact("org.foo", "slow", "jar", "1.0.0"),
+                    new DefaultArtifact("org.foo", "bar", "jar", "1.0.0")
+            ));
+            fail("The failed check should be reported");
+        } catch (ArtifactResolutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals("fatal", e.getCause().getMessage());
+        }
+        assertTrue(slowCheckInterrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullArtifactIsRejected() throws Exception {
+        try (UpdateFinder finder = new UpdateFinder(channelSession, provMgr)) {
+            finder.findUpdates(Arrays.asList(new DefaultArtifact("org.foo", "bar", "jar", "1.0.0"), null));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.wfchannel;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.transfer.TransferEvent;
+import org.eclipse.aether.transfer.TransferResource;
+import org.junit.Test;
+import org.wildfly.prospero.model.DownloadSettings;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DownloadSchedulerTest {
+
+    private final DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+
+    @Test
+    public void limitParallelDownloads() throws Exception {
+        final DownloadScheduler scheduler = new DownloadScheduler(new DownloadSettings(1, null, null));
+        final TransferEvent first = event("central", "a.jar");
+        final TransferEvent second = event("other", "b.jar");
+
+        scheduler.transferInitiated(first);
+        final CompletableFuture<Void> waiting = initiateAsync(scheduler, second);
+        assertBlocked(waiting);
+
+        scheduler.transferSucceeded(first);
+        waiting.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void limitParallelDownloadsPerRepository() throws Exception {
+        final DownloadScheduler scheduler = new DownloadScheduler(new DownloadSettings(null, Map.of("central", 1), null));
+        final TransferEvent first = event("central", "a.jar");
+
+        scheduler.transferInitiated(first);
+        // other repositories are not limited
+        scheduler.transferInitiated(event("other", "b.jar"));
+        final CompletableFuture<Void> waiting = initiateAsync(scheduler, event("central", "c.jar"));
+        assertBlocked(waiting);
+
+        scheduler.transferFailed(first);
+        waiting.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void limitBandwidth() throws Exception {
+        final DownloadScheduler scheduler = new DownloadScheduler(new DownloadSettings(null, Collections.emptyMap(), 1000L));
+        final TransferResource resource = new TransferResource("central", "http://localhost", "a.jar", null, null);
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            scheduler.transferProgressed(new TransferEvent.Builder(session, resource)
+                    .setType(TransferEvent.EventType.PROGRESSED)
+                    .setDataBuffer(ByteBuffer.wrap(new byte[100]))
+                    .build());
+        }
+
+        // the first chunk passes immediately, the next three have to wait 100ms each
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    private TransferEvent event(String repositoryId, String resourceName) {
+        final TransferResource resource = new TransferResource(repositoryId, "http://localhost", resourceName, null, null);
+        return new TransferEvent.Builder(session, resource).build();
+    }
+
+    private static CompletableFuture<Void> initiateAsync(DownloadScheduler scheduler, TransferEvent event) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                scheduler.transferInitiated(event);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static void assertBlocked(CompletableFuture<Void> waiting) throws Exception {
+        try {
+            waiting.get(200, TimeUnit.MILLISECONDS);
+            fail("The download should wait for a free slot");
+        } catch (TimeoutException e) {
+            assertFalse(waiting.isDone());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.wfchannel;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class MavenSessionManagerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        System.clearProperty(MavenSessionManager.CONNECT_TIMEOUT_PROPERTY);
+        MavenSessionManager.closeConnections();
+    }
+
+    @Test
+    public void repositorySystemIsSharedBetweenManagers() throws Exception {
+        final MavenSessionManager first = new MavenSessionManager(temp.newFolder().toPath());
+        final MavenSessionManager second = new MavenSessionManager(temp.newFolder().toPath());
+
+        assertSame(first.getRepositorySystem(), second.getRepositorySystem());
+    }
+
+    @Test
+    public void httpStateIsSharedBetweenSessions() throws Exception {
+        final MavenSessionManager msm = new MavenSessionManager(temp.newFolder().toPath());
+        final RepositorySystem system = msm.getRepositorySystem();
+        final DefaultRepositorySystemSession first = msm.newRepositorySystemSession(system);
+        final DefaultRepositorySystemSession second = new MavenSessionManager(temp.newFolder().toPath())
+                .newRepositorySystemSession(system);
+
+        final Object state = new Object();
+        first.getCache().put(first, SharedConnectionsCache.HTTP_STATE_KEY, state);
+        first.getCache().put(first, "other", "value");
+
+        assertSame(state, second.getCache().get(second, SharedConnectionsCache.HTTP_STATE_KEY));
+        assertNull(second.getCache().get(second, "other"));
+        assertEquals("value", first.getCache().get(first, "other"));
+    }
+
+    @Test
+    public void connectTimeoutIsConfigurable() throws Exception {
+        System.setProperty(MavenSessionManager.CONNECT_TIMEOUT_PROPERTY, "1234");
+        final MavenSessionManager msm = new MavenSessionManager(temp.newFolder().toPath());
+
+        final DefaultRepositorySystemSession session = msm.newRepositorySystemSession(msm.getRepositorySystem());
+
+        assertEquals(1234, session.getConfigProperties().get("aether.connector.connectTimeout"));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2022 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wildfly.prospero.wfchannel;
+
+import io.undertow.Undertow;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.StatusCodes;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.transfer.ChecksumFailureException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.wildfly.prospero.api.ProvisioningDefinition.DEFAULT_REPOSITORY_POLICY;
+
+public class ResumableDownloadTest {
+
+    private static final String JAR_PATH = "/repo/foo/bar/1.0/bar-1.0.jar";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private volatile boolean dropNextDownload;
+    private byte[] content;
+    private Undertow server;
+    private RemoteRepository repository;
+    private MavenSessionManager msm;
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[512 * 1024];
+        new Random(42).nextBytes(content);
+        files.put(JAR_PATH, content);
+
+        server = Undertow.builder()
+                .addHttpListener(0, "localhost")
+                .setHandler(this::handle)
+                .build();
+        server.start();
+        final int port = ((InetSocketAddress) server.getListenerInfo().get(0).getAddress()).getPort();
+        repository = new RemoteRepository.Builder("test", "default", "http://localhost:" + port + "/repo")
+                .setPolicy(DEFAULT_REPOSITORY_POLICY)
+                .build();
+        msm = new MavenSessionManager(temp.newFolder("local-repo").toPath());
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void interruptedDownloadIsResumed() throws Exception {
+        publishChecksum(".sha1", DigestUtils.sha1Hex(content));
+        dropNextDownload = true;
+
+        try {
+            resolve();
+            fail("The first download should be interrupted");
+        } catch (ArtifactResolutionException e) {
+            // expected, the connection was dropped
+        }
+
+        final ArtifactResult result = resolve();
+
+        assertThat(result.getArtifact().getFile()).hasBinaryContent(content);
+        assertThat(ranges).hasSize(1);
+        assertThat(ranges.get(0)).matches("bytes=[1-9][0-9]*-");
+    }
+
+    @Test
+    public void verifySha256Checksum() throws Exception {
+        publishChecksum(".sha256", DigestUtils.sha256Hex(content));
+
+        final ArtifactResult result = resolve();
+
+        assertThat(result.getArtifact().getFile()).hasBinaryContent(content);
+    }
+
+    @Test
+    public void rejectSha256Mismatch() throws Exception {
+        publishChecksum(".sha256", DigestUtils.sha256Hex("other content"));
+
+        try {
+            resolve();
+            fail("Corrupted artifact should not be resolved");
+        } catch (ArtifactResolutionException e) {
+            assertThat(e).hasRootCauseInstanceOf(ChecksumFailureException.class)
+                    .getRootCause().hasMessageContaining(DigestUtils.sha256Hex(content));
+        }
+    }
+
+    private ArtifactResult resolve() throws ArtifactResolutionException {
+        final RepositorySystem system = msm.getRepositorySystem();
+        final DefaultRepositorySystemSession session = msm.newRepositorySystemSession(system);
+        return system.resolveArtifact(session,
+                new ArtifactRequest(new DefaultArtifact("foo", "bar", "jar", "1.0"), List.of(repository), null));
+    }
+
+    private void publishChecksum(String extension, String checksum) {
+        files.put(JAR_PATH + extension, checksum.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void handle(HttpServerExchange exchange) throws Exception {
+        if (exchange.isInIoThread()) {
+            exchange.dispatch(this::handle);
+            return;
+        }
+        final byte[] data = files.get(exchange.getRequestPath());
+        if (data == null) {
+            exchange.setStatusCode(StatusCodes.NOT_FOUND);
+            return;
+        }
+        exchange.startBlocking();
+        final String range = exchange.getRequestHeaders().getFirst(Headers.RANGE);
+        int offset = 0;
+        if (range != null) {
+            ranges.add(range);
+            offset = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+            exchange.setStatusCode(StatusCodes.PARTIAL_CONTENT);
+            exchange.getResponseHeaders().put(Headers.CONTENT_RANGE,
+                    String.format("bytes %d-%d/%d", offset, data.length - 1, data.length));
+        }
+        exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, data.length - offset);
+
+        final OutputStream os = exchange.getOutputStream();
+        if (dropNextDownload && data == content) {
+            dropNextDownload = false;
+            // send 90% of the file and drop the connection
+            os.write(data, 0, data.length * 9 / 10);
+            os.flush();
+            exchange.getConnection().close();
+            return;
+        }
+        os.write(data, offset, data.length - offset);
+    }
+}